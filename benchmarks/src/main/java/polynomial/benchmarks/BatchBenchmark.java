@@ -0,0 +1,83 @@
+package polynomial.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import polynomial.src.Polynomial;
+import polynomial.src.PolynomialBatch;
+
+/**
+ * Evaluation and differentiation of many polynomials at once, one Polynomial at a time on a single thread against a
+ * PolynomialBatch. Every benchmark covers the same COUNT polynomials, and is reported per polynomial.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BatchBenchmark {
+
+    static final int COUNT = 4096;
+
+    @Param({"10", "100", "1000"})
+    public int degree;
+
+    @Param({"DENSE", "SPARSE"})
+    public Inputs.Storage storage;
+
+    private Polynomial[] polynomials;
+    private PolynomialBatch batch;
+    private double[] points;
+
+    @Setup
+    public void setUp() {
+        polynomials = new Polynomial[COUNT];
+        for (int i = 0; i < COUNT; i++) polynomials[i] = Inputs.polynomial(degree, storage, i);
+        batch = new PolynomialBatch(polynomials);
+        points = Inputs.points(16, COUNT);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public double[] valueAtEach() {
+        double[] values = new double[COUNT * points.length];
+        for (int i = 0; i < COUNT; i++) {
+            for (int j = 0; j < points.length; j++) values[i * points.length + j] = polynomials[i].valueAt(points[j]);
+        }
+        return values;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public double[] valueAtBatch() {
+        return batch.valueAt(points);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public Polynomial[] derivativeEach() {
+        /* Polynomial caches its derivative, so fresh copies are differentiated every time */
+        Polynomial[] derivatives = new Polynomial[COUNT];
+        for (int i = 0; i < COUNT; i++) derivatives[i] = polynomials[i].negation().derivative();
+        return derivatives;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public PolynomialBatch derivativeBatch() {
+        return batch.derivative();
+    }
+}
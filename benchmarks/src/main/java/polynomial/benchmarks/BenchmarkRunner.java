@@ -0,0 +1,37 @@
+package polynomial.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.openjdk.jmh.Main;
+
+/**
+ * The entry point of the benchmark jar. It takes the usual JMH command line, and adds the defaults of this suite for
+ * anything the command line leaves out: allocation profiling with -prof gc, and results written as JSON to
+ * jmh-result.json, so that throughput and allocation per operation can be tracked over time.
+ *
+ *     java -jar benchmarks/target/benchmarks.jar [JMH options] [benchmark regex]
+ */
+public final class BenchmarkRunner {
+
+    static final String RESULT_FILE = "jmh-result.json";
+
+    private BenchmarkRunner() {}
+
+    public static void main(String[] args) throws Exception {
+        List<String> options = new ArrayList<String>(Arrays.asList(args));
+        if (!hasOption(options, "-prof", "gc")) options.addAll(0, List.of("-prof", "gc"));
+        if (!hasOption(options, "-rf", null)) options.addAll(0, List.of("-rf", "json"));
+        if (!hasOption(options, "-rff", null)) options.addAll(0, List.of("-rff", RESULT_FILE));
+        Main.main(options.toArray(new String[0]));
+    }
+
+    /* Whether an option was given, with a value that starts with a certain prefix if it isn't null */
+    private static boolean hasOption(List<String> options, String name, String valuePrefix) {
+        for (int i = 0; i < options.size() - 1; i++) {
+            if (options.get(i).equals(name) && (valuePrefix == null || options.get(i + 1).startsWith(valuePrefix))) return true;
+        }
+        return false;
+    }
+}
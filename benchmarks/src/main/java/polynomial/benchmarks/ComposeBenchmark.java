@@ -0,0 +1,59 @@
+package polynomial.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import polynomial.src.Polynomial;
+
+/**
+ * Composition with a polynomial of degree 4, where the degree is the degree of the composition, and the Taylor shift
+ * of a polynomial of the full degree. The shift takes a quadratic number of steps, so the degrees stop at 10^4.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ComposeBenchmark {
+
+    static final int INNER_DEGREE = 4;
+
+    @Param({"10", "100", "1000", "10000"})
+    public int degree;
+
+    @Param({"DENSE", "SPARSE"})
+    public Inputs.Storage storage;
+
+    private Polynomial outer;
+    private Polynomial inner;
+    private Polynomial shifted;
+
+    @Setup
+    public void setUp() {
+        outer = Inputs.polynomial(Math.max(1, degree / INNER_DEGREE), storage, 1);
+        inner = Inputs.polynomial(INNER_DEGREE, Inputs.Storage.DENSE, 2);
+        shifted = Inputs.polynomial(degree, storage, 3);
+    }
+
+    @Benchmark
+    public Polynomial compose() {
+        return outer.compose(inner);
+    }
+
+    @Benchmark
+    public Polynomial shift() {
+        return shifted.shift(0.25);
+    }
+}
@@ -0,0 +1,59 @@
+package polynomial.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import polynomial.src.PolyQuotientRemainder;
+import polynomial.src.Polynomial;
+
+/**
+ * Division of a polynomial by one of half its degree, so the quotient and divisor are the same size, which goes
+ * through long division and then Newton iteration as the degree grows. Linear divisors are measured separately,
+ * since they take synthetic division.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DivideBenchmark {
+
+    @Param({"10", "100", "1000", "10000", "100000", "1000000"})
+    public int degree;
+
+    @Param({"DENSE", "SPARSE"})
+    public Inputs.Storage storage;
+
+    private Polynomial dividend;
+    private Polynomial divisor;
+    private Polynomial linearDivisor;
+
+    @Setup
+    public void setUp() {
+        dividend = Inputs.polynomial(degree, storage, 1);
+        divisor = Inputs.polynomial(degree / 2, storage, 2);
+        linearDivisor = Inputs.polynomial(1, Inputs.Storage.DENSE, 3);
+    }
+
+    @Benchmark
+    public PolyQuotientRemainder divide() {
+        return dividend.divide(divisor);
+    }
+
+    @Benchmark
+    public PolyQuotientRemainder divideByLinear() {
+        return dividend.divide(linearDivisor);
+    }
+}
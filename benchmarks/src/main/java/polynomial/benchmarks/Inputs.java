@@ -0,0 +1,67 @@
+package polynomial.benchmarks;
+
+import java.util.Random;
+
+import polynomial.src.Polynomial;
+import polynomial.src.Term;
+
+/**
+ * The inputs of the benchmarks. Every polynomial is generated from a fixed seed, so runs on different builds
+ * measure the same inputs and their results can be compared.
+ */
+public final class Inputs {
+
+    /* Sparse inputs have one term for about every this many degrees, which is well below the sparse fill ratio */
+    static final int SPARSE_SPACING = 256;
+
+    /** The storage of a generated polynomial */
+    public enum Storage {
+        /** Every coefficient up to the degree is non-zero */
+        DENSE,
+        /** Only about one in SPARSE_SPACING coefficients is non-zero, so high degrees are stored sparsely */
+        SPARSE
+    }
+
+    private Inputs() {}
+
+    /**
+     * Generates a polynomial with coefficients between -1 and 1.
+     * @param degree the degree of the polynomial
+     * @param storage whether every coefficient is non-zero, or only a few of them
+     * @param seed the seed of the random coefficients and degrees
+     * @return the polynomial
+     */
+    static Polynomial polynomial(int degree, Storage storage, long seed) {
+        Random random = new Random(seed);
+        if (storage == Storage.DENSE) {
+            double[] coefficients = new double[degree + 1];
+            for (int i = 0; i <= degree; i++) coefficients[i] = coefficient(random);
+            return Polynomial.fromCoefficients(coefficients);
+        }
+
+        int termCount = Math.max(2, degree / SPARSE_SPACING);
+        Term[] terms = new Term[termCount];
+        terms[0] = new Term(coefficient(random), degree);
+        for (int i = 1; i < termCount; i++) terms[i] = new Term(coefficient(random), random.nextInt(degree));
+        return new Polynomial(terms);
+    }
+
+    /**
+     * Generates points between -1 and 1, where the polynomials neither vanish nor overflow.
+     * @param count the number of points
+     * @param seed the seed of the random points
+     * @return the points
+     */
+    static double[] points(int count, long seed) {
+        Random random = new Random(seed);
+        double[] points = new double[count];
+        for (int i = 0; i < count; i++) points[i] = 2 * random.nextDouble() - 1;
+        return points;
+    }
+
+    /* A non-zero coefficient between -1 and 1 */
+    private static double coefficient(Random random) {
+        double coefficient = 2 * random.nextDouble() - 1;
+        return coefficient == 0 ? 1 : coefficient;
+    }
+}
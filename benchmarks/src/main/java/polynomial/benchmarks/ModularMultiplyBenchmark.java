@@ -0,0 +1,71 @@
+package polynomial.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import polynomial.src.IntegerPolynomial;
+import polynomial.src.ModularPolynomial;
+
+/**
+ * Exact multiplication of two polynomials of the same degree: modulo a transform prime (998244353), modulo a prime
+ * that goes through three transform primes and the CRT (1000000007), and over the integers with 64 bit coefficients,
+ * which is reconstructed from as many primes as the size of the product needs.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ModularMultiplyBenchmark {
+
+    @Param({"10", "100", "1000", "10000", "100000", "1000000"})
+    public int degree;
+
+    @Param({"998244353", "1000000007"})
+    public long modulus;
+
+    private ModularPolynomial first;
+    private ModularPolynomial second;
+    private IntegerPolynomial firstInteger;
+    private IntegerPolynomial secondInteger;
+
+    @Setup
+    public void setUp() {
+        long[] firstCoefficients = coefficients(degree, 1);
+        long[] secondCoefficients = coefficients(degree, 2);
+        first = ModularPolynomial.fromCoefficients(modulus, firstCoefficients);
+        second = ModularPolynomial.fromCoefficients(modulus, secondCoefficients);
+        firstInteger = IntegerPolynomial.fromCoefficients(firstCoefficients);
+        secondInteger = IntegerPolynomial.fromCoefficients(secondCoefficients);
+    }
+
+    @Benchmark
+    public ModularPolynomial modular() {
+        return first.multiply(second);
+    }
+
+    @Benchmark
+    public IntegerPolynomial integer() {
+        return firstInteger.multiply(secondInteger);
+    }
+
+    private static long[] coefficients(int degree, long seed) {
+        Random random = new Random(seed);
+        long[] coefficients = new long[degree + 1];
+        for (int i = 0; i <= degree; i++) coefficients[i] = random.nextLong();
+        return coefficients;
+    }
+}
@@ -0,0 +1,50 @@
+package polynomial.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import polynomial.src.Polynomial;
+
+/**
+ * Multiplication of two polynomials of the same degree, which goes through the schoolbook method, Karatsuba and the
+ * FFT for dense inputs as the degree grows, and through the heap method for sparse inputs.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MultiplyBenchmark {
+
+    @Param({"10", "100", "1000", "10000", "100000", "1000000"})
+    public int degree;
+
+    @Param({"DENSE", "SPARSE"})
+    public Inputs.Storage storage;
+
+    private Polynomial first;
+    private Polynomial second;
+
+    @Setup
+    public void setUp() {
+        first = Inputs.polynomial(degree, storage, 1);
+        second = Inputs.polynomial(degree, storage, 2);
+    }
+
+    @Benchmark
+    public Polynomial multiply() {
+        return first.multiply(second);
+    }
+}
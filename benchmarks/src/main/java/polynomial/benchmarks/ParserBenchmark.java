@@ -0,0 +1,58 @@
+package polynomial.benchmarks;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import polynomial.src.Polynomial;
+import polynomial.src.PolynomialParser;
+
+/**
+ * Parsing of the output of Polynomial.toString, from a String and from the ASCII bytes in a direct buffer.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParserBenchmark {
+
+    @Param({"10", "100", "1000", "10000", "100000", "1000000"})
+    public int degree;
+
+    @Param({"DENSE", "SPARSE"})
+    public Inputs.Storage storage;
+
+    private String expression;
+    private ByteBuffer bytes;
+
+    @Setup
+    public void setUp() {
+        expression = Inputs.polynomial(degree, storage, 1).toString();
+        byte[] ascii = expression.getBytes(StandardCharsets.US_ASCII);
+        bytes = ByteBuffer.allocateDirect(ascii.length).put(ascii).flip();
+    }
+
+    @Benchmark
+    public Polynomial parseString() {
+        return PolynomialParser.parseExpression(expression);
+    }
+
+    @Benchmark
+    public Polynomial parseBytes() {
+        return PolynomialParser.parseExpression(bytes.duplicate());
+    }
+}
@@ -0,0 +1,51 @@
+package polynomial.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import polynomial.src.Polynomial;
+
+/**
+ * Powers of a polynomial by repeated squaring. The degree is the degree of the power, so the base has the degree
+ * divided by the exponent, and the last squaring multiplies two polynomials of half the degree.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PowBenchmark {
+
+    @Param({"10", "100", "1000", "10000", "100000", "1000000"})
+    public int degree;
+
+    @Param({"DENSE", "SPARSE"})
+    public Inputs.Storage storage;
+
+    @Param({"2", "8"})
+    public int power;
+
+    private Polynomial base;
+
+    @Setup
+    public void setUp() {
+        base = Inputs.polynomial(Math.max(1, degree / power), storage, 1);
+    }
+
+    @Benchmark
+    public Polynomial pow() {
+        return base.pow(power);
+    }
+}
@@ -0,0 +1,47 @@
+package polynomial.benchmarks;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import polynomial.src.Polynomial;
+
+/**
+ * Real root finding with Sturm sequences, which takes quadratic time in the degree, so the degrees stop at 1000.
+ * The inputs are dense, because the Sturm sequences of high degree sparse polynomials lose too much accuracy for
+ * the root counts to be reliable.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RealRootsBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int degree;
+
+    private Polynomial polynomial;
+
+    @Setup
+    public void setUp() {
+        polynomial = Inputs.polynomial(degree, Inputs.Storage.DENSE, 1);
+    }
+
+    @Benchmark
+    public ArrayList<Double> realRoots() {
+        return polynomial.realRoots();
+    }
+}
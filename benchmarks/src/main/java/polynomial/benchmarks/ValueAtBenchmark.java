@@ -0,0 +1,103 @@
+package polynomial.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleUnaryOperator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import polynomial.src.Polynomial;
+
+/**
+ * Evaluation of a single polynomial, one point at a time, through the compiled evaluator, and at a block of points at
+ * once. Also the value with the first two derivatives, in a single pass or from the cached derivative polynomials.
+ * Every benchmark evaluates the same POINTS points, and is reported per point.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ValueAtBenchmark {
+
+    static final int POINTS = 1024;
+
+    @Param({"10", "100", "1000", "10000", "100000", "1000000"})
+    public int degree;
+
+    @Param({"DENSE", "SPARSE"})
+    public Inputs.Storage storage;
+
+    private Polynomial polynomial;
+    private DoubleUnaryOperator compiled;
+    private double[] points;
+    private double[] values;
+    private Polynomial first;
+    private Polynomial second;
+    private double[] derivatives;
+
+    @Setup
+    public void setUp() {
+        polynomial = Inputs.polynomial(degree, storage, 1);
+        compiled = polynomial.compile();
+        points = Inputs.points(POINTS, 2);
+        values = new double[POINTS];
+        first = polynomial.derivative();
+        second = first.derivative();
+        derivatives = new double[3 * POINTS];
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public void single(Blackhole blackhole) {
+        for (double x : points) blackhole.consume(polynomial.valueAt(x));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public void compiled(Blackhole blackhole) {
+        for (double x : points) blackhole.consume(compiled.applyAsDouble(x));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public double[] batch() {
+        polynomial.valueAt(points, values);
+        return values;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public void derivativesSingle(Blackhole blackhole) {
+        double[] out = new double[3];
+        for (double x : points) {
+            polynomial.derivativesAt(x, out);
+            blackhole.consume(out[0] + out[1] + out[2]);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public void derivativesSeparate(Blackhole blackhole) {
+        for (double x : points) blackhole.consume(polynomial.valueAt(x) + first.valueAt(x) + second.valueAt(x));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public double[] derivativesBatch() {
+        polynomial.derivativesAt(points, 3, derivatives);
+        return derivatives;
+    }
+}
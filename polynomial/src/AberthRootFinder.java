@@ -0,0 +1,193 @@
+package polynomial.src;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Finds all the complex roots of a polynomial at once with the Aberth-Ehrlich iteration. Every root
+ * estimate z_k is moved by w_k = p(z_k) / (p'(z_k) - p(z_k) * sum(1 / (z_k - z_j))), where the sum is over
+ * the other estimates, which keeps the estimates from converging to the same root. Within a pass every update
+ * only reads the estimates of the previous pass, so the updates are independent and run in parallel for
+ * high degree polynomials.
+ */
+final class AberthRootFinder {
+
+    /* The degree from which the updates of a pass are spread over the common fork-join pool */
+    static final int PARALLEL_THRESHOLD = 256;
+
+    private static final double UNIT_ROUNDOFF = Math.ulp(1.0) / 2;
+    /* The initial estimates are rotated off the real axis, so that no estimate starts out on a line of symmetry */
+    private static final double INITIAL_ANGLE = 0.4;
+
+    private AberthRootFinder() {}
+
+    /**
+     * Approximates all the roots of a polynomial, counted with multiplicity.
+     * @param coefficients the coefficients from the constant term upwards
+     * @param degree the degree of the polynomial, such that coefficients[degree] is not 0
+     * @return two arrays of length degree, holding the real and the imaginary parts of the roots
+     */
+    static double[][] roots(double[] coefficients, int degree) {
+        return roots(coefficients, degree, null);
+    }
+
+    /**
+     * Approximates all the roots of a polynomial as above, collecting the statistics of the search.
+     * @param coefficients the coefficients from the constant term upwards
+     * @param degree the degree of the polynomial, such that coefficients[degree] is not 0
+     * @param stats the statistics that the number of passes is added to, or null
+     * @return two arrays of length degree, holding the real and the imaginary parts of the roots
+     */
+    static double[][] roots(double[] coefficients, int degree, RootSearchStats stats) {
+        double[] re = new double[degree];
+        double[] im = new double[degree];
+
+        /* Every trailing zero coefficient is a factor of x, so those roots are exactly 0 and are left at the end */
+        int zeroRoots = 0;
+        while (zeroRoots < degree && coefficients[zeroRoots] == 0) zeroRoots++;
+        int n = degree - zeroRoots;
+        if (n == 0) return new double[][] {re, im};
+
+        double[] c = Arrays.copyOfRange(coefficients, zeroRoots, degree + 1);
+        if (n == 1) {
+            re[0] = -c[0] / c[1];
+            return new double[][] {re, im};
+        }
+        double[] absCoefficients = new double[n + 1];
+        for (int i = 0; i <= n; i++) absCoefficients[i] = Math.abs(c[i]);
+
+        /* Start on a circle whose radius is the geometric mean of the moduli of the roots */
+        double radius = Math.pow(absCoefficients[0] / absCoefficients[n], 1.0 / n);
+        for (int k = 0; k < n; k++) {
+            double angle = 2 * Math.PI * k / n + INITIAL_ANGLE;
+            re[k] = radius * Math.cos(angle);
+            im[k] = radius * Math.sin(angle);
+        }
+
+        boolean[] converged = new boolean[n];
+        double[][] current = {re, im};
+        double[][] next = {new double[degree], new double[degree]};
+
+        int pass = 0;
+        boolean done = false;
+        while (!done && pass < MathConstants.MAX_ITER) {
+            double[] curRe = current[0], curIm = current[1];
+            double[] nextRe = next[0], nextIm = next[1];
+            IntConsumer update = k -> {
+                if (converged[k]) {
+                    nextRe[k] = curRe[k];
+                    nextIm[k] = curIm[k];
+                }
+                else {
+                    step(c, absCoefficients, n, curRe, curIm, k, nextRe, nextIm, converged);
+                }
+            };
+            if (n >= PARALLEL_THRESHOLD) IntStream.range(0, n).parallel().forEach(update);
+            else for (int k = 0; k < n; k++) update.accept(k);
+
+            double[][] swap = current;
+            current = next;
+            next = swap;
+            pass++;
+
+            done = true;
+            for (int k = 0; k < n && done; k++) done = converged[k];
+        }
+        if (stats != null) {
+            stats.iterations.add(pass);
+            if (!done) stats.converged = false;
+        }
+
+        /* The zero roots were left at the end of the arrays, which are still 0 in both of them */
+        if (current[0] != re) {
+            System.arraycopy(current[0], 0, re, 0, n);
+            System.arraycopy(current[1], 0, im, 0, n);
+        }
+        return new double[][] {re, im};
+    }
+
+    /* One Aberth update of the estimate with index k, written to the next arrays */
+    private static void step(double[] c, double[] absCoefficients, int n, double[] re, double[] im, int k,
+                             double[] nextRe, double[] nextIm, boolean[] converged) {
+        double zRe = re[k], zIm = im[k];
+        double modulus = Math.hypot(zRe, zIm);
+        double pRe, pIm, dRe, dIm;
+
+        if (modulus <= 1) {
+            /* Evaluate p and p' together with Horner's scheme */
+            pRe = c[n]; pIm = 0; dRe = 0; dIm = 0;
+            double bound = absCoefficients[n];
+            for (int i = n - 1; i >= 0; i--) {
+                double t = dRe * zRe - dIm * zIm + pRe;
+                dIm = dRe * zIm + dIm * zRe + pIm;
+                dRe = t;
+                t = pRe * zRe - pIm * zIm + c[i];
+                pIm = pRe * zIm + pIm * zRe;
+                pRe = t;
+                bound = bound * modulus + absCoefficients[i];
+            }
+            /* Once |p(z)| is within the rounding error of its evaluation, the estimate can't be improved */
+            if (Math.hypot(pRe, pIm) <= (4 * n + 1) * UNIT_ROUNDOFF * bound) {
+                converged[k] = true;
+                nextRe[k] = zRe;
+                nextIm[k] = zIm;
+                return;
+            }
+        }
+        else {
+            /** Outside the unit circle, p(z) = z^n q(1/z) where q has the coefficients of p reversed, which avoids overflow.
+             * Then p(z) / p'(z) = z q(y) / (n q(y) - y q'(y)) with y = 1/z, and that ratio is rewritten as p / d below. */
+            double yRe = zRe / (modulus * modulus), yIm = -zIm / (modulus * modulus);
+            double yModulus = 1 / modulus;
+            double qRe = c[0], qIm = 0, qdRe = 0, qdIm = 0;
+            double bound = absCoefficients[0];
+            for (int i = 1; i <= n; i++) {
+                double t = qdRe * yRe - qdIm * yIm + qRe;
+                qdIm = qdRe * yIm + qdIm * yRe + qIm;
+                qdRe = t;
+                t = qRe * yRe - qIm * yIm + c[i];
+                qIm = qRe * yIm + qIm * yRe;
+                qRe = t;
+                bound = bound * yModulus + absCoefficients[i];
+            }
+            if (Math.hypot(qRe, qIm) <= (4 * n + 1) * UNIT_ROUNDOFF * bound) {
+                converged[k] = true;
+                nextRe[k] = zRe;
+                nextIm[k] = zIm;
+                return;
+            }
+            pRe = zRe * qRe - zIm * qIm;
+            pIm = zRe * qIm + zIm * qRe;
+            dRe = n * qRe - (yRe * qdRe - yIm * qdIm);
+            dIm = n * qIm - (yRe * qdIm + yIm * qdRe);
+        }
+
+        /* The sum of 1 / (z_k - z_j) over the other estimates */
+        double sumRe = 0, sumIm = 0;
+        for (int j = 0; j < n; j++) {
+            if (j == k) continue;
+            double diffRe = zRe - re[j], diffIm = zIm - im[j];
+            double norm = diffRe * diffRe + diffIm * diffIm;
+            sumRe += diffRe / norm;
+            sumIm -= diffIm / norm;
+        }
+
+        /* w = p / (d - p * sum) */
+        double denominatorRe = dRe - (pRe * sumRe - pIm * sumIm);
+        double denominatorIm = dIm - (pRe * sumIm + pIm * sumRe);
+        double denominatorNorm = denominatorRe * denominatorRe + denominatorIm * denominatorIm;
+        if (denominatorNorm == 0 || Double.isNaN(denominatorNorm)) {
+            /* The update is undefined here, so the estimate is nudged and tried again in the next pass */
+            nextRe[k] = zRe + Math.ulp(modulus) * 1024 + Double.MIN_NORMAL;
+            nextIm[k] = zIm + Math.ulp(modulus) * 1024 + Double.MIN_NORMAL;
+            return;
+        }
+        double wRe = (pRe * denominatorRe + pIm * denominatorIm) / denominatorNorm;
+        double wIm = (pIm * denominatorRe - pRe * denominatorIm) / denominatorNorm;
+
+        nextRe[k] = zRe - wRe;
+        nextIm[k] = zIm - wIm;
+        if (Math.hypot(wRe, wIm) <= UNIT_ROUNDOFF * modulus) converged[k] = true;
+    }
+}
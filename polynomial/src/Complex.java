@@ -0,0 +1,57 @@
+package polynomial.src;
+
+/**
+ * A complex number, used to represent the roots of a polynomial that are not necessarily real.
+ * Complex numbers are immutable; only what the root finders need is modelled here.
+ */
+public final class Complex {
+
+    private final double real;
+    private final double imaginary;
+
+    public Complex(double argReal, double argImaginary) {
+        real = argReal;
+        imaginary = argImaginary;
+    }
+
+    public double getReal() {
+        return real;
+    }
+
+    public double getImaginary() {
+        return imaginary;
+    }
+
+    /**
+     * Produces the modulus (absolute value) of the complex number.
+     * @return the distance of the number from 0 in the complex plane
+     */
+    public double abs() {
+        return Math.hypot(real, imaginary);
+    }
+
+    /**
+     * Asserts if the complex number is real, within a tolerance.
+     * @param tolerance the largest imaginary part that is still considered to be 0
+     * @return whether or not the imaginary part is within the tolerance of 0
+     */
+    public boolean isReal(double tolerance) {
+        return MathUtil.isClose(imaginary, 0, tolerance);
+    }
+
+    @Override
+    public String toString() {
+        if (imaginary < 0) return real + " - " + (-imaginary) + "i";
+        else return real + " + " + imaginary + "i";
+    }
+
+    /**
+     * Asserts if the two complex numbers being compared are equal.
+     * @param other the other complex number that is being checked
+     * @return whether or not both the real and imaginary parts are equal
+     */
+    public boolean equals(Complex other) {
+        return MathUtil.isClose(real, other.real, MathConstants.EPSILON) &&
+               MathUtil.isClose(imaginary, other.imaginary, MathConstants.EPSILON);
+    }
+}
@@ -0,0 +1,292 @@
+package polynomial.src;
+
+import java.util.Arrays;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.DoubleStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Evaluation of a polynomial over a uniform grid x0, x0 + h, x0 + 2h, ... with forward differences. The forward
+ * differences D0 = p(x), D1 = p(x + h) - p(x), ..., Dn of a polynomial of degree n at a point are set up once, and
+ * since Dn is constant, the table at the next point of the grid is found by adding D(k + 1) into Dk for every k. Each
+ * next value then takes n additions and no multiplications, instead of the n multiplications and n additions of
+ * Horner's scheme.
+ *
+ * A single table is a chain of additions that each depend on the last, so LANES tables are run side by side: lane l
+ * covers the points x + l h, x + (l + LANES) h, ..., with a step of LANES h. The additions of different lanes are
+ * independent, so the JIT compiler can pipeline and vectorize them, and every step of the lanes produces the next
+ * LANES values of the grid.
+ *
+ * The higher differences are tiny for a small step, so they are not computed by differencing values of p, which
+ * would leave nothing but rounding error in them. Instead, p is shifted to q(t) = p(x + s t) for the step s, and since
+ * the k-th difference of t^j at 0 is k! S(j, k), with S the Stirling numbers of the second kind, Dk is the sum of
+ * q(j) k! S(j, k), which is accurate relative to its own size.
+ *
+ * Rounding errors in the tables are still carried along and grow with the number of steps, so the tables are
+ * re-anchored periodically: they are set up again at exact grid points x0 + i h. At every anchor, the drift of the
+ * running value from the value of Horner's scheme is measured, relative to the sum of the magnitudes of the terms,
+ * and the number of points until the next anchor is halved while the drift is above the tolerance, and doubled while
+ * it is far below it.
+ *
+ * An evaluator is a cursor over the grid that produces every value once, in order, and is not safe for use by
+ * multiple threads at once. Setting up the tables takes O(n^2) per lane, so it pays off for low degrees and long runs.
+ * Above degree MAX_TABLE_DEGREE the factors k! S(j, k) overflow, so such polynomials are evaluated with Horner's
+ * scheme at every grid point instead.
+ */
+public final class GridEvaluator implements PrimitiveIterator.OfDouble {
+
+    /** The default bound of the drift, relative to the sum of the magnitudes of the terms at the grid point */
+    public static final double DEFAULT_TOLERANCE = 1e-12;
+
+    /** The highest degree that is evaluated with tables of differences */
+    public static final int MAX_TABLE_DEGREE = 64;
+
+    /* The number of interleaved tables, and so the number of values that each step produces */
+    static final int LANES = 8;
+    /* The number of points between anchors never goes above this */
+    static final int MAX_ANCHOR_INTERVAL = 1 << 20;
+    /* Or below this many times the size of the tables, so that setting them up again stays a small part of the cost */
+    private static final int MIN_ANCHOR_INTERVAL_FACTOR = 4;
+    private static final int INITIAL_ANCHOR_INTERVAL = 1024;
+    /* The interval is doubled while the drift at an anchor is below the tolerance divided by this */
+    private static final double GROWTH_MARGIN = 1024;
+
+    private final double[] coefficients;
+    private final double[] absCoefficients;
+    private final int degree;
+    private final double x0;
+    private final double h;
+    private final double tolerance;
+
+    /* The forward differences of the lanes at their current points, with Dk of lane l at k * LANES + l */
+    private final double[] differences;
+    /* The values of the last step, of which those from bufferPosition on are not handed out yet */
+    private final double[] buffer = new double[LANES];
+    private int bufferPosition = LANES;
+    /* Scratch space for setting up the tables, with the shifted coefficients of lane l from l * (degree + 1) */
+    private final double[] shifted;
+    private final double[] surjections;
+
+    /* The index of the next value to hand out, and the index of the point of lane 0 */
+    private long index;
+    private long laneIndex;
+    private long nextAnchor;
+    private int anchorInterval;
+    private final int minAnchorInterval;
+    private long anchorCount;
+    private double maxDrift;
+
+    /**
+     * Sets up the evaluation of a polynomial over a grid, with the default tolerance.
+     * @param polynomial the polynomial
+     * @param start the first point of the grid, x0
+     * @param step the distance between consecutive points of the grid, h
+     * @throws IllegalArgumentException if the start or the step is not finite
+     */
+    public GridEvaluator(Polynomial polynomial, double start, double step) {
+        this(polynomial, start, step, DEFAULT_TOLERANCE);
+    }
+
+    /**
+     * Sets up the evaluation of a polynomial over a grid.
+     * @param polynomial the polynomial
+     * @param start the first point of the grid, x0
+     * @param step the distance between consecutive points of the grid, h
+     * @param driftTolerance the bound of the drift at the anchors, relative to the sum of the magnitudes of the terms
+     * @throws IllegalArgumentException if the start or the step is not finite, or the tolerance is not positive
+     */
+    public GridEvaluator(Polynomial polynomial, double start, double step, double driftTolerance) {
+        if (!Double.isFinite(start) || !Double.isFinite(step)) throw new IllegalArgumentException("The start and step of a grid must be finite.");
+        if (!(driftTolerance > 0)) throw new IllegalArgumentException("The drift tolerance must be positive.");
+        degree = polynomial.getDegree();
+        coefficients = polynomial.coefficients();
+        absCoefficients = new double[degree + 1];
+        for (int i = 0; i <= degree; i++) absCoefficients[i] = Math.abs(coefficients[i]);
+        x0 = start;
+        h = step;
+        tolerance = driftTolerance;
+
+        int tableSize = degree > MAX_TABLE_DEGREE ? 0 : degree + 1;
+        differences = new double[tableSize * LANES];
+        shifted = new double[tableSize * LANES];
+        surjections = new double[tableSize];
+        minAnchorInterval = MIN_ANCHOR_INTERVAL_FACTOR * LANES * Math.max(tableSize, 1);
+        anchorInterval = Math.max(INITIAL_ANCHOR_INTERVAL, minAnchorInterval);
+    }
+
+    /**
+     * Evaluates a polynomial over a grid into an array, with the default tolerance.
+     * @param polynomial the polynomial
+     * @param start the first point of the grid, x0
+     * @param step the distance between consecutive points of the grid, h
+     * @param out the array that the value of the polynomial at x0 + i * h is written to, at index i
+     * @throws IllegalArgumentException if the start or the step is not finite
+     */
+    public static void evaluate(Polynomial polynomial, double start, double step, double[] out) {
+        new GridEvaluator(polynomial, start, step).fill(out, 0, out.length);
+    }
+
+    /**
+     * Produces the index of the grid point whose value is produced next.
+     * @return i, such that the next value is the value at x0 + i * h
+     */
+    public long getIndex() {
+        return index;
+    }
+
+    /**
+     * Produces the grid point whose value is produced next.
+     * @return x0 + i * h, where i is the index of the next value
+     */
+    public double getX() {
+        return x0 + index * h;
+    }
+
+    public long getAnchorCount() {
+        return anchorCount;
+    }
+
+    public int getAnchorInterval() {
+        return anchorInterval;
+    }
+
+    /**
+     * Produces the largest drift that was measured at an anchor, relative to the sum of the magnitudes of the terms.
+     * @return the largest relative drift so far
+     */
+    public double getMaxDrift() {
+        return maxDrift;
+    }
+
+    /**
+     * The grid has no end, so there is always a next value.
+     * @return true
+     */
+    @Override
+    public boolean hasNext() {
+        return true;
+    }
+
+    /**
+     * Produces the value at the next grid point, and moves on to the point after it.
+     * @return the value of the polynomial at x0 + i * h, where i is the index before the call
+     */
+    @Override
+    public double nextDouble() {
+        if (degree > MAX_TABLE_DEGREE) return HornerEvaluator.evaluate(coefficients, degree, x0 + index++ * h);
+        if (bufferPosition == LANES) {
+            step(buffer, 0);
+            bufferPosition = 0;
+        }
+        index++;
+        return buffer[bufferPosition++];
+    }
+
+    /**
+     * Writes the values at the next grid points into an array, and moves on past them.
+     * @param out the array the values are written to
+     * @param offset the index that the first value is written to
+     * @param length the number of values
+     * @throws IndexOutOfBoundsException if the range is not within the array
+     */
+    public void fill(double[] out, int offset, int length) {
+        if (offset < 0 || length < 0 || offset > out.length - length) {
+            throw new IndexOutOfBoundsException("The range of " + length + " values at " + offset + " is out of bounds for an array of length " + out.length + ".");
+        }
+        int position = offset;
+        int end = offset + length;
+        if (degree > MAX_TABLE_DEGREE) {
+            while (position < end) out[position++] = HornerEvaluator.evaluate(coefficients, degree, x0 + index++ * h);
+            return;
+        }
+
+        /* What is left of the last step, then whole steps straight into the array, then part of one more step */
+        while (position < end && bufferPosition < LANES) out[position++] = buffer[bufferPosition++];
+        while (end - position >= LANES) {
+            step(out, position);
+            position += LANES;
+        }
+        if (position < end) {
+            step(buffer, 0);
+            bufferPosition = 0;
+            while (position < end) out[position++] = buffer[bufferPosition++];
+        }
+        index += length;
+    }
+
+    /**
+     * Produces a stream of the values at the next grid points. The stream takes its values from this evaluator as
+     * it is consumed, so the evaluator should not be used otherwise until the stream is done.
+     * @param count the number of values in the stream
+     * @return the sequential stream of the values
+     * @throws IllegalArgumentException if the count is negative
+     */
+    public DoubleStream stream(long count) {
+        if (count < 0) throw new IllegalArgumentException("The count must not be negative.");
+        Spliterator.OfDouble values = Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.doubleStream(values, false).limit(count);
+    }
+
+    /* Writes the values of the lanes at their current points, then moves every lane on: Dk += D(k + 1) for every k */
+    private void step(double[] out, int offset) {
+        if (laneIndex == nextAnchor) anchor();
+        double[] d = differences;
+        System.arraycopy(d, 0, out, offset, LANES);
+        for (int k = 0; k < degree; k++) {
+            int row = k * LANES;
+            for (int l = 0; l < LANES; l++) d[row + l] += d[row + LANES + l];
+        }
+        laneIndex += LANES;
+    }
+
+    /* Measures the drift at the point of lane 0, adapts the interval, and sets the tables up again from there */
+    private void anchor() {
+        if (anchorCount > 0) {
+            double x = x0 + laneIndex * h;
+            double exact = HornerEvaluator.evaluate(coefficients, degree, x);
+            double scale = HornerEvaluator.evaluate(absCoefficients, degree, Math.abs(x));
+            double drift = scale > 0 ? Math.abs(differences[0] - exact) / scale : 0;
+            if (!(drift <= maxDrift)) maxDrift = drift;
+
+            if (!(drift <= tolerance)) anchorInterval = Math.max(minAnchorInterval, anchorInterval / 2);
+            else if (drift < tolerance / GROWTH_MARGIN) anchorInterval = Math.min(MAX_ANCHOR_INTERVAL, 2 * anchorInterval);
+            /* Anchors are only checked for at the start of a step */
+            anchorInterval -= anchorInterval % LANES;
+        }
+
+        /* The coefficients of q(t) = p(x + LANES h t) at the point x of every lane, from the Taylor coefficients of p
+           at x, then scaled. Each lane's coefficients are contiguous, from index l (degree + 1) */
+        double laneStep = LANES * h;
+        double[] q = shifted;
+        int size = degree + 1;
+        for (int l = 0; l < LANES; l++) {
+            double x = x0 + (laneIndex + l) * h;
+            HornerEvaluator.taylor(coefficients, 0, degree, x, q, l * size, size);
+            double stepPower = 1;
+            for (int j = 0; j <= degree; j++) {
+                q[l * size + j] *= stepPower;
+                stepPower *= laneStep;
+            }
+        }
+
+        /* Dk = sum over j of q(j) k! S(j, k), with the rows of k! S(j, k) = k (k! S(j - 1, k) + (k - 1)! S(j - 1, k - 1)) built up in place */
+        double[] row = surjections;
+        Arrays.fill(row, 0);
+        row[0] = 1;
+        Arrays.fill(differences, 0);
+        for (int j = 0; j <= degree; j++) {
+            if (j > 0) {
+                for (int k = j; k >= 1; k--) row[k] = k * (row[k] + row[k - 1]);
+                row[0] = 0;
+            }
+            for (int k = 0; k <= j; k++) {
+                for (int l = 0; l < LANES; l++) differences[k * LANES + l] += q[l * size + j] * row[k];
+            }
+        }
+
+        anchorCount++;
+        nextAnchor = laneIndex + anchorInterval;
+    }
+}
@@ -0,0 +1,215 @@
+package polynomial.src;
+
+import java.util.Arrays;
+
+/**
+ * Evaluation of coefficient arrays with Horner's scheme, where a polynomial c0 + c1x + ... + cnx^n
+ * is rewritten as c0 + x(c1 + x(c2 + ... + x(cn))). This needs n multiplications and n additions,
+ * and no calls to Math.pow.
+ */
+final class HornerEvaluator {
+
+    /* Points are evaluated in blocks that fit comfortably in the L1 cache */
+    static final int BLOCK_SIZE = 256;
+
+    private HornerEvaluator() {}
+
+    /**
+     * Evaluates a polynomial at a single point.
+     * @param coefficients the coefficients from the constant term upwards
+     * @param degree the index of the highest coefficient to use
+     * @param x the point
+     * @return the value of the polynomial at x
+     */
+    static double evaluate(double[] coefficients, int degree, double x) {
+        return evaluate(coefficients, 0, degree, x);
+    }
+
+    /**
+     * Evaluates a polynomial whose coefficients start part way into an array, such as a PolynomialBatch.
+     * @param coefficients the array holding the coefficients from the constant term upwards
+     * @param offset the index of the constant term
+     * @param degree the degree of the polynomial
+     * @param x the point
+     * @return the value of the polynomial at x
+     */
+    static double evaluate(double[] coefficients, int offset, int degree, double x) {
+        double value = coefficients[offset + degree];
+        for (int i = offset + degree - 1; i >= offset; i--) {
+            value = value * x + coefficients[i];
+        }
+        return value;
+    }
+
+    /**
+     * Evaluates a polynomial at many points. For each block of points, the loop over the coefficients
+     * is on the outside and the loop over the points is on the inside, so the inner loop is a plain
+     * multiply-add over adjacent elements that the JIT compiler can vectorize. The block is accumulated
+     * in a scratch array, so the input and output may be the same array.
+     * @param coefficients the coefficients from the constant term upwards
+     * @param degree the index of the highest coefficient to use
+     * @param xs the points
+     * @param xsOffset the index of the first point
+     * @param out the array the values are written to
+     * @param outOffset the index that the first value is written to
+     * @param length the number of points
+     * @param block a scratch array of at least BLOCK_SIZE elements
+     */
+    static void evaluate(double[] coefficients, int degree, double[] xs, int xsOffset,
+                         double[] out, int outOffset, int length, double[] block) {
+        evaluate(coefficients, 0, degree, xs, xsOffset, out, outOffset, length, block);
+    }
+
+    /**
+     * Evaluates a polynomial whose coefficients start part way into an array at many points, as above.
+     * @param coefficients the array holding the coefficients from the constant term upwards
+     * @param offset the index of the constant term
+     * @param degree the degree of the polynomial
+     * @param xs the points
+     * @param xsOffset the index of the first point
+     * @param out the array the values are written to
+     * @param outOffset the index that the first value is written to
+     * @param length the number of points
+     * @param block a scratch array of at least BLOCK_SIZE elements
+     */
+    static void evaluate(double[] coefficients, int offset, int degree, double[] xs, int xsOffset,
+                         double[] out, int outOffset, int length, double[] block) {
+        for (int start = 0; start < length; start += BLOCK_SIZE) {
+            int blockLength = Math.min(BLOCK_SIZE, length - start);
+            int xsStart = xsOffset + start;
+
+            double leading = coefficients[offset + degree];
+            for (int j = 0; j < blockLength; j++) block[j] = leading;
+            for (int i = offset + degree - 1; i >= offset; i--) {
+                double coefficient = coefficients[i];
+                for (int j = 0; j < blockLength; j++) {
+                    block[j] = block[j] * xs[xsStart + j] + coefficient;
+                }
+            }
+            System.arraycopy(block, 0, out, outOffset + start, blockLength);
+        }
+    }
+
+    /**
+     * Produces the first Taylor coefficients of a polynomial around a point, p(x), p'(x), p''(x) / 2!, and so on up to
+     * p^(count - 1)(x) / (count - 1)!, in a single pass over the coefficients. It is repeated synthetic division by
+     * (t - x) with the divisions interleaved: the kth Taylor coefficient follows its own Horner recurrence on the one
+     * below it, so the pass takes about count multiply-adds per coefficient and allocates nothing. Coefficients above
+     * the degree are written as 0.
+     * @param coefficients the array holding the coefficients from the constant term upwards
+     * @param offset the index of the constant term
+     * @param degree the degree of the polynomial
+     * @param x the point
+     * @param out the array that the coefficient of (t - x)^k is written to, at index outOffset + k
+     * @param outOffset the index that the value of the polynomial is written to
+     * @param count the number of Taylor coefficients, at least 1
+     */
+    static void taylor(double[] coefficients, int offset, int degree, double x, double[] out, int outOffset, int count) {
+        /* Newton and Halley steps only need up to the second order, which are kept in locals */
+        if (count <= 3) {
+            double value = coefficients[offset + degree];
+            double first = 0;
+            double second = 0;
+            for (int i = offset + degree - 1; i >= offset; i--) {
+                second = second * x + first;
+                first = first * x + value;
+                value = value * x + coefficients[i];
+            }
+            out[outOffset] = value;
+            if (count > 1) out[outOffset + 1] = first;
+            if (count > 2) out[outOffset + 2] = second;
+            return;
+        }
+        out[outOffset] = coefficients[offset + degree];
+        for (int k = 1; k < count; k++) out[outOffset + k] = 0;
+        for (int i = degree - 1; i >= 0; i--) {
+            /* The kth coefficient is still 0 until k steps have been taken */
+            for (int k = Math.min(count - 1, degree - i); k >= 1; k--) {
+                out[outOffset + k] = out[outOffset + k] * x + out[outOffset + k - 1];
+            }
+            out[outOffset] = out[outOffset] * x + coefficients[offset + i];
+        }
+    }
+
+    /**
+     * Produces the Taylor coefficients of a polynomial around many points, as above. For each block of points, the
+     * coefficients of the polynomial are the outer loop and the points the inner one, as in the evaluation at many
+     * points, with the partial Taylor coefficients of the block kept in a scratch array, one row per order.
+     * @param coefficients the array holding the coefficients from the constant term upwards
+     * @param offset the index of the constant term
+     * @param degree the degree of the polynomial
+     * @param xs the points
+     * @param xsOffset the index of the first point
+     * @param out the array that the coefficient of (t - xs[xsOffset + j])^k is written to, at index
+     * outOffset + j * count + k
+     * @param outOffset the index that the value of the polynomial at the first point is written to
+     * @param length the number of points
+     * @param count the number of Taylor coefficients per point, at least 1
+     * @param derivatives whether to multiply the kth Taylor coefficient by k!, producing the kth derivative
+     * @param block a scratch array of at least count * BLOCK_SIZE elements
+     */
+    static void taylor(double[] coefficients, int offset, int degree, double[] xs, int xsOffset, double[] out,
+                       int outOffset, int length, int count, boolean derivatives, double[] block) {
+        for (int start = 0; start < length; start += BLOCK_SIZE) {
+            int blockLength = Math.min(BLOCK_SIZE, length - start);
+            int xsStart = xsOffset + start;
+
+            Arrays.fill(block, 0, count * blockLength, 0);
+            double leading = coefficients[offset + degree];
+            for (int j = 0; j < blockLength; j++) block[j] = leading;
+            if (count <= 3) {
+                /* Up to the second order, all the rows are updated together in one loop over the points. Rows past
+                   count share row 0, which is written last */
+                int firstRow = count > 1 ? blockLength : 0;
+                int secondRow = count > 2 ? 2 * blockLength : 0;
+                for (int i = degree - 1; i >= 0; i--) {
+                    double coefficient = coefficients[offset + i];
+                    for (int j = 0; j < blockLength; j++) {
+                        double x = xs[xsStart + j];
+                        double value = block[j];
+                        double first = block[firstRow + j];
+                        block[secondRow + j] = block[secondRow + j] * x + first;
+                        block[firstRow + j] = first * x + value;
+                        block[j] = value * x + coefficient;
+                    }
+                }
+            }
+            else {
+                for (int i = degree - 1; i >= 0; i--) {
+                    for (int k = Math.min(count - 1, degree - i); k >= 1; k--) {
+                        int row = k * blockLength;
+                        int below = row - blockLength;
+                        for (int j = 0; j < blockLength; j++) {
+                            block[row + j] = block[row + j] * xs[xsStart + j] + block[below + j];
+                        }
+                    }
+                    double coefficient = coefficients[offset + i];
+                    for (int j = 0; j < blockLength; j++) {
+                        block[j] = block[j] * xs[xsStart + j] + coefficient;
+                    }
+                }
+            }
+
+            double factorial = 1;
+            for (int k = 0; k < count; k++) {
+                if (derivatives && k > 1) factorial *= k;
+                int row = k * blockLength;
+                for (int j = 0; j < blockLength; j++) out[outOffset + (start + j) * count + k] = block[row + j] * factorial;
+            }
+        }
+    }
+
+    /**
+     * Multiplies Taylor coefficients by the factorials of their orders, turning them into derivatives.
+     * @param values the array holding the Taylor coefficients, from the value of the polynomial upwards
+     * @param offset the index of the value of the polynomial
+     * @param count the number of Taylor coefficients
+     */
+    static void toDerivatives(double[] values, int offset, int count) {
+        double factorial = 1;
+        for (int k = 2; k < count; k++) {
+            factorial *= k;
+            values[offset + k] *= factorial;
+        }
+    }
+}
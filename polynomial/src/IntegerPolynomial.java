@@ -0,0 +1,391 @@
+package polynomial.src;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * A polynomial with exact integer coefficients of any size. Products and powers are computed multi-modularly: the
+ * coefficients are reduced modulo enough transform primes to cover the size of the result, the product is computed
+ * modulo each prime with the number theoretic transform, and the exact coefficients are recovered from the residues
+ * with the Chinese remainder theorem. The images modulo the primes are independent, so they are computed in parallel.
+ *
+ * No BigInteger arithmetic is done in the transforms or in the reductions: the coefficients are reduced from their
+ * 32 bit words with long arithmetic, and Garner's algorithm finds the mixed radix digits of every coefficient with
+ * long arithmetic too, so that BigIntegers are only built once per coefficient of the result. Coefficients are given
+ * in the symmetric range, so a coefficient is negative if its residues are closer to the product of the primes than
+ * to 0.
+ *
+ * Like Polynomial, an integer polynomial is immutable and safe to share between threads.
+ * @see ModularPolynomial
+ * @see ModularMultiplier
+ */
+public final class IntegerPolynomial {
+
+    private static final BigInteger[] ZERO_COEFFICIENTS = {BigInteger.ZERO};
+
+    /* The coefficients, indexed by degree and without leading zeros, except for the zero polynomial {0} */
+    private final BigInteger[] coefficients;
+    private final int degree;
+    private volatile int hash;
+
+    /* Takes over an array of coefficients without copying, trimming off leading zeros */
+    private IntegerPolynomial(BigInteger[] polyCoefficients) {
+        int highest = polyCoefficients.length - 1;
+        while (highest > 0 && polyCoefficients[highest].signum() == 0) highest--;
+        if (highest < 0) coefficients = ZERO_COEFFICIENTS;
+        else coefficients = highest < polyCoefficients.length - 1 ? Arrays.copyOf(polyCoefficients, highest + 1) : polyCoefficients;
+        degree = Math.max(highest, 0);
+    }
+
+    /**
+     * Produces an integer polynomial from its coefficients, given from the constant term upwards.
+     * @param coefficients the coefficients, such that coefficients[i] is the coefficient of x^i
+     * @return the polynomial with those coefficients
+     */
+    public static IntegerPolynomial fromCoefficients(long... coefficients) {
+        BigInteger[] polyCoefficients = new BigInteger[coefficients.length];
+        for (int i = 0; i < coefficients.length; i++) polyCoefficients[i] = BigInteger.valueOf(coefficients[i]);
+        return new IntegerPolynomial(polyCoefficients);
+    }
+
+    /**
+     * Produces an integer polynomial from its coefficients, given from the constant term upwards.
+     * @param coefficients the coefficients, such that coefficients[i] is the coefficient of x^i
+     * @return the polynomial with those coefficients
+     */
+    public static IntegerPolynomial fromCoefficients(BigInteger... coefficients) {
+        BigInteger[] polyCoefficients = coefficients.clone();
+        for (BigInteger coefficient : polyCoefficients) {
+            if (coefficient == null) throw new IllegalArgumentException("The coefficients must not be null.");
+        }
+        return new IntegerPolynomial(polyCoefficients);
+    }
+
+    /**
+     * Produces the integer polynomial with the same coefficients as a polynomial whose coefficients are all integers.
+     * @param polynomial the polynomial
+     * @return the polynomial with the exact values of the coefficients
+     * @throws IllegalArgumentException if a coefficient is not an integer
+     */
+    public static IntegerPolynomial fromPolynomial(Polynomial polynomial) {
+        double[] polyCoefficients = polynomial.coefficients();
+        BigInteger[] exact = new BigInteger[polyCoefficients.length];
+        for (int i = 0; i < polyCoefficients.length; i++) {
+            if (!Double.isFinite(polyCoefficients[i]) || polyCoefficients[i] != Math.rint(polyCoefficients[i])) {
+                throw new IllegalArgumentException("The coefficient " + polyCoefficients[i] + " is not an integer.");
+            }
+            exact[i] = new BigDecimal(polyCoefficients[i]).toBigIntegerExact();
+        }
+        return new IntegerPolynomial(exact);
+    }
+
+    /**
+     * Recovers the integer polynomial whose images modulo distinct primes are given, with the Chinese remainder
+     * theorem. The result is exact if the coefficients lie strictly between -M / 2 and M / 2, where M is the product
+     * of the primes.
+     * @param images the images of the polynomial modulo distinct primes
+     * @return the polynomial with coefficients in the symmetric range that has all those images
+     * @throws IllegalArgumentException if there are no images, or two of them have the same modulus
+     */
+    public static IntegerPolynomial reconstruct(ModularPolynomial... images) {
+        if (images.length == 0) throw new IllegalArgumentException("At least 1 image is needed.");
+        long[] primes = new long[images.length];
+        long[][] residues = new long[images.length][];
+        int length = 0;
+        for (int i = 0; i < images.length; i++) {
+            primes[i] = images[i].getModulus();
+            residues[i] = images[i].residues();
+            length = Math.max(length, residues[i].length);
+            for (int j = 0; j < i; j++) {
+                if (primes[j] == primes[i]) throw new IllegalArgumentException("The modulus " + primes[i] + " is repeated.");
+            }
+        }
+        return new IntegerPolynomial(reconstruct(primes, residues, length));
+    }
+
+    public int getDegree() {
+        return degree;
+    }
+
+    public BigInteger getLeadingCoeff() {
+        return coefficients[degree];
+    }
+
+    /**
+     * Produces the coefficient of a term of some degree.
+     * @param termDegree the degree of the term
+     * @return the coefficient of x^termDegree, which is 0 above the degree of the polynomial
+     */
+    public BigInteger getCoefficient(int termDegree) {
+        return termDegree >= 0 && termDegree <= degree ? coefficients[termDegree] : BigInteger.ZERO;
+    }
+
+    /**
+     * Produces a copy of the coefficients.
+     * @return the coefficients, such that the element at index i is the coefficient of x^i
+     */
+    public BigInteger[] getCoefficients() {
+        return coefficients.clone();
+    }
+
+    /**
+     * Produces the image of the polynomial modulo a prime.
+     * @param modulus the prime modulus, below 2^31
+     * @return the polynomial with the coefficients reduced modulo the prime
+     * @throws IllegalArgumentException if the modulus is not a prime below 2^31
+     */
+    public ModularPolynomial reduce(long modulus) {
+        ModularPolynomial.checkModulus(modulus);
+        return new ModularPolynomial(modulus, residues(words(), modulus));
+    }
+
+    /**
+     * Produces the polynomial with the nearest double values of the coefficients.
+     * @return the polynomial, whose coefficients are rounded if they have more than 53 significant bits
+     */
+    public Polynomial toPolynomial() {
+        double[] approximations = new double[degree + 1];
+        for (int i = 0; i <= degree; i++) approximations[i] = coefficients[i].doubleValue();
+        return new Polynomial(approximations);
+    }
+
+    /**
+     * Produces the exact evaluation of the polynomial at a certain value, using Horner's scheme.
+     * @param a the value at which the polynomial should be evaluated
+     * @return the value of the polynomial at x = a
+     */
+    public BigInteger valueAt(BigInteger a) {
+        BigInteger value = coefficients[degree];
+        for (int i = degree - 1; i >= 0; i--) value = value.multiply(a).add(coefficients[i]);
+        return value;
+    }
+
+    /**
+     * Produces the general derivative of the polynomial.
+     * @return the polynomial that is the derivative of the polynomial
+     */
+    public IntegerPolynomial derivative() {
+        BigInteger[] derivativeCoefficients = new BigInteger[Math.max(degree, 1)];
+        derivativeCoefficients[0] = BigInteger.ZERO;
+        for (int i = 1; i <= degree; i++) derivativeCoefficients[i - 1] = coefficients[i].multiply(BigInteger.valueOf(i));
+        return new IntegerPolynomial(derivativeCoefficients);
+    }
+
+    /**
+     * Produces the negation of the polynomial.
+     * @return a polynomial that represents the negation of this polynomial
+     */
+    public IntegerPolynomial negation() {
+        BigInteger[] negatedCoefficients = new BigInteger[degree + 1];
+        for (int i = 0; i <= degree; i++) negatedCoefficients[i] = coefficients[i].negate();
+        return new IntegerPolynomial(negatedCoefficients);
+    }
+
+    /**
+     * Produces the sum of two integer polynomials.
+     * @param addend the polynomial that is being added
+     * @return the sum of the polynomials
+     */
+    public IntegerPolynomial add(IntegerPolynomial addend) {
+        return sum(addend, false);
+    }
+
+    /**
+     * Produces the difference of two integer polynomials.
+     * @param subtrahend the polynomial that is the subtrahend
+     * @return the difference of the polynomials
+     */
+    public IntegerPolynomial subtract(IntegerPolynomial subtrahend) {
+        return sum(subtrahend, true);
+    }
+
+    private IntegerPolynomial sum(IntegerPolynomial other, boolean negateOther) {
+        BigInteger[] sum = new BigInteger[Math.max(degree, other.degree) + 1];
+        for (int i = 0; i < sum.length; i++) {
+            BigInteger otherCoefficient = other.getCoefficient(i);
+            sum[i] = negateOther ? getCoefficient(i).subtract(otherCoefficient) : getCoefficient(i).add(otherCoefficient);
+        }
+        return new IntegerPolynomial(sum);
+    }
+
+    /**
+     * Produces the exact product of two integer polynomials, computed modulo enough transform primes to hold its
+     * coefficients, which are bounded by the product of the largest coefficients times the length of the shorter
+     * factor.
+     * @param multiplicand the other factor
+     * @return the product of the polynomials
+     * @throws IllegalArgumentException if the product is too large for the available transform primes
+     */
+    public IntegerPolynomial multiply(IntegerPolynomial multiplicand) {
+        long start = PolynomialMetrics.start();
+        int productLength = degree + multiplicand.degree + 1;
+        long bound = (long) maxBitLength() + multiplicand.maxBitLength() + 32 - Integer.numberOfLeadingZeros(Math.min(degree, multiplicand.degree) + 1);
+        long[] primes = primesFor(productLength, bound);
+
+        int[][] firstWords = words();
+        int[][] secondWords = this == multiplicand ? firstWords : multiplicand.words();
+        long[][] residues = new long[primes.length][];
+        IntStream indices = IntStream.range(0, primes.length);
+        if (primes.length > 1 && productLength >= ModularMultiplier.getNttThreshold()) indices = indices.parallel();
+        indices.forEach(i -> {
+            long[] first = residues(firstWords, primes[i]);
+            long[] second = firstWords == secondWords ? first : residues(secondWords, primes[i]);
+            residues[i] = ModularMultiplier.multiply(first, second, primes[i]);
+        });
+
+        IntegerPolynomial product = new IntegerPolynomial(reconstruct(primes, residues, productLength));
+        PolynomialMetrics.record(PolynomialMetrics.Operation.MULTIPLY, product.degree, start);
+        return product;
+    }
+
+    /**
+     * Produces the result of the polynomial raised to a power. The power is taken modulo each transform prime by
+     * repeated squaring, and the coefficients are only reconstructed once, at the end. They are bounded by the sum of
+     * the magnitudes of the coefficients raised to the power.
+     * @param power by what the degree the polynomial is raised
+     * @return a polynomial that is this polynomial raised to the power
+     * @throws IllegalArgumentException if the power is negative, or the power is too large for the transform primes
+     */
+    public IntegerPolynomial pow(int power) {
+        if (power < 0) throw new IllegalArgumentException("A polynomial can only be raised to a whole number power.");
+        if (power == 0) return fromCoefficients(1);
+        if ((long) degree * power > Integer.MAX_VALUE - 8) throw new IllegalArgumentException("The degree of the power is too large.");
+
+        BigInteger norm = BigInteger.ZERO;
+        for (BigInteger coefficient : coefficients) norm = norm.add(coefficient.abs());
+        int powerLength = degree * power + 1;
+        long[] primes = primesFor(powerLength, (long) norm.bitLength() * power);
+
+        int[][] words = words();
+        long[][] residues = new long[primes.length][];
+        IntStream indices = IntStream.range(0, primes.length);
+        if (primes.length > 1 && powerLength >= ModularMultiplier.getNttThreshold()) indices = indices.parallel();
+        indices.forEach(i -> residues[i] = new ModularPolynomial(primes[i], residues(words, primes[i])).pow(power).residues());
+        return new IntegerPolynomial(reconstruct(primes, residues, powerLength));
+    }
+
+    /**
+     * Asserts if an object is an integer polynomial with the same coefficients.
+     * @param other the object that this polynomial is being compared to
+     * @return whether or not the object is an IntegerPolynomial with the same degree and coefficients
+     */
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) return true;
+        if (!(other instanceof IntegerPolynomial)) return false;
+        return Arrays.equals(coefficients, ((IntegerPolynomial) other).coefficients);
+    }
+
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0) hash = h = Arrays.hashCode(coefficients);
+        return h;
+    }
+
+    @Override
+    public String toString() {
+        ArrayList<String> stringRepresentations = new ArrayList<String>();
+        for (int i = degree; i >= 0; i--) {
+            if (coefficients[i].signum() == 0) continue;
+            stringRepresentations.add(i == 0 ? coefficients[i].toString() : "(" + coefficients[i] + ")" + "x" + "^" + i);
+        }
+        if (stringRepresentations.isEmpty()) stringRepresentations.add("0");
+        return String.join(" + ", stringRepresentations);
+    }
+
+    private int maxBitLength() {
+        int bits = 0;
+        for (BigInteger coefficient : coefficients) bits = Math.max(bits, coefficient.bitLength());
+        return bits;
+    }
+
+    /* Transform primes for products of some length whose product is above 2^(bound + 1), covering the sign as well */
+    private static long[] primesFor(int productLength, long bound) {
+        for (int count = (int) Math.min(Integer.MAX_VALUE, bound / 31 + 1); ; count++) {
+            long[] primes = ModularMultiplier.transformPrimes(productLength, count);
+            if (primes == null) {
+                throw new IllegalArgumentException("The coefficients of the result are too large for the transform primes of its length.");
+            }
+            long bits = 0;
+            for (long prime : primes) bits += 63 - Long.numberOfLeadingZeros(prime);
+            if (bits > bound + 1) return primes;
+        }
+    }
+
+    /* The coefficients as a sign word, 1 if negative and 0 otherwise, followed by the 32 bit words of the magnitude */
+    private int[][] words() {
+        int[][] words = new int[degree + 1][];
+        for (int i = 0; i <= degree; i++) {
+            BigInteger coefficient = coefficients[i];
+            int sign = coefficient.signum() < 0 ? 1 : 0;
+            if (coefficient.bitLength() < 32) {
+                words[i] = new int[] {sign, Math.abs(coefficient.intValue())};
+                continue;
+            }
+            /* The big-endian bytes of the magnitude, packed into words from the least significant end */
+            byte[] bytes = coefficient.abs().toByteArray();
+            int length = (bytes.length + 3) / 4;
+            int[] coefficientWords = new int[length + 1];
+            coefficientWords[0] = sign;
+            for (int b = 0; b < bytes.length; b++) {
+                int fromEnd = bytes.length - 1 - b;
+                coefficientWords[length - fromEnd / 4] |= (bytes[b] & 0xff) << (8 * (fromEnd % 4));
+            }
+            words[i] = coefficientWords;
+        }
+        return words;
+    }
+
+    /* The residues of the coefficients modulo a prime, by Horner's scheme over their words with a base of 2^32 */
+    private static long[] residues(int[][] words, long prime) {
+        long[] residues = new long[words.length];
+        long base = (1L << 32) % prime;
+        for (int i = 0; i < words.length; i++) {
+            int[] coefficientWords = words[i];
+            long residue = 0;
+            /* residue * base < 2^62, so the sum stays below 2^63 */
+            for (int j = 1; j < coefficientWords.length; j++) residue = (residue * base + (coefficientWords[j] & 0xffffffffL)) % prime;
+            residues[i] = coefficientWords[0] == 1 && residue != 0 ? prime - residue : residue;
+        }
+        return residues;
+    }
+
+    /**
+     * Garner's algorithm over any number of primes. The mixed radix digits v(i) of x = v(0) + m(0) (v(1) + m(1) (...))
+     * are found one prime at a time with long arithmetic, and the BigInteger of every coefficient is only assembled
+     * from them at the end, then moved into the symmetric range.
+     */
+    static BigInteger[] reconstruct(long[] primes, long[][] residues, int length) {
+        int count = primes.length;
+        /* inverses[i][j] is 1 / m(j) mod m(i), for j < i */
+        long[][] inverses = new long[count][];
+        BigInteger product = BigInteger.ONE;
+        BigInteger[] radices = new BigInteger[count];
+        for (int i = 0; i < count; i++) {
+            inverses[i] = new long[i];
+            for (int j = 0; j < i; j++) inverses[i][j] = ModularMultiplier.inverse(primes[j] % primes[i], primes[i]);
+            radices[i] = BigInteger.valueOf(primes[i]);
+            product = product.multiply(radices[i]);
+        }
+        BigInteger half = product.shiftRight(1);
+
+        BigInteger[] coefficients = new BigInteger[length];
+        long[] digits = new long[count];
+        for (int k = 0; k < length; k++) {
+            for (int i = 0; i < count; i++) {
+                long m = primes[i];
+                long t = k < residues[i].length ? residues[i][k] : 0;
+                for (int j = 0; j < i; j++) t = (t - digits[j] % m + m) % m * inverses[i][j] % m;
+                digits[i] = t;
+            }
+            BigInteger value = BigInteger.valueOf(digits[count - 1]);
+            for (int i = count - 2; i >= 0; i--) value = value.multiply(radices[i]).add(BigInteger.valueOf(digits[i]));
+            coefficients[k] = value.compareTo(half) > 0 ? value.subtract(product) : value;
+        }
+        return coefficients;
+    }
+}
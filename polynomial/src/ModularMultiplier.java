@@ -0,0 +1,359 @@
+package polynomial.src;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The multiplication engine behind ModularPolynomial.multiply, for coefficient arrays whose coefficients are residues
+ * modulo a prime p below 2^31. The schoolbook method is used for small factors, and a number theoretic transform
+ * (NTT) for large ones: the analogue of the fast Fourier transform over Z/pZ, with a root of unity of order 2^k mod p
+ * in place of the complex exponential. Every step is exact, so unlike the FFT over doubles there is no rounding.
+ *
+ * A transform of length 2^k mod p needs 2^k to divide p - 1. The product modulo a prime without enough factors of 2
+ * in p - 1 is instead computed over the integers with three fixed transform primes, and reduced mod p with the Chinese
+ * remainder theorem. Every coefficient of the integer product is below n (p - 1)^2 < 2^85, where n <= 2^23 is the
+ * length of the shorter factor, and the product of the three primes is above 2^86, so the result is exact. Such
+ * products can be at most 2^23 coefficients long.
+ *
+ * The butterflies use Montgomery multiplication with R = 2^32, which replaces the division in a * b % p with two
+ * multiplications and a shift. The roots of unity are kept in Montgomery form, so that multiplying a plain residue by
+ * one produces a plain residue again, and the tables of their powers are cached for every prime. The crossover point
+ * can be tuned with the "polynomial.nttThreshold" system property, or at runtime.
+ */
+public class ModularMultiplier {
+
+    private static volatile int nttThreshold = Integer.getInteger("polynomial.nttThreshold", 64);
+
+    /* The primes used for moduli that can't be transformed directly, with 2^23, 2^25 and 2^26 dividing p - 1 */
+    private static final long[] CRT_PRIMES = {998244353, 167772161, 469762049};
+    /* The longest product over the three primes, set by the smallest power of 2 that divides one of them minus 1 */
+    static final int MAX_CRT_LENGTH = 1 << 23;
+
+    private static final long LOW_32_BITS = 0xffffffffL;
+
+    /* The Montgomery constants and roots of unity of every transform prime used so far */
+    private static final ConcurrentHashMap<Long, Field> FIELDS = new ConcurrentHashMap<Long, Field>();
+    /* Transform primes of the form c 2^k + 1 below 2^31, in decreasing order, by k, found as they are needed */
+    private static final ConcurrentHashMap<Integer, long[]> TRANSFORM_PRIMES = new ConcurrentHashMap<Integer, long[]>();
+
+    public static int getNttThreshold() {
+        return nttThreshold;
+    }
+
+    /**
+     * Sets the size of the smaller factor from which the number theoretic transform is used instead of the
+     * schoolbook method.
+     * @param threshold the number of coefficients, at least 1
+     */
+    public static void setNttThreshold(int threshold) {
+        if (threshold < 1) throw new IllegalArgumentException("The NTT threshold must be at least 1.");
+        nttThreshold = threshold;
+    }
+
+    /**
+     * Produces the product of two coefficient arrays modulo a prime, using the algorithm that suits their size.
+     * @param first the coefficients of the first factor, each in [0, modulus)
+     * @param second the coefficients of the second factor, each in [0, modulus)
+     * @param modulus the prime modulus, below 2^31
+     * @return the coefficients of the product, of length first.length + second.length - 1
+     */
+    public static long[] multiply(long[] first, long[] second, long modulus) {
+        if (Math.min(first.length, second.length) >= nttThreshold) return ntt(first, second, modulus);
+        else return schoolbook(first, second, modulus);
+    }
+
+    /**
+     * Produces the product of two coefficient arrays modulo a prime by multiplying every pair of coefficients.
+     * @param first the coefficients of the first factor, each in [0, modulus)
+     * @param second the coefficients of the second factor, each in [0, modulus)
+     * @param modulus the prime modulus, below 2^31
+     * @return the coefficients of the product
+     */
+    public static long[] schoolbook(long[] first, long[] second, long modulus) {
+        long[] product = new long[first.length + second.length - 1];
+        for (int i = 0; i < first.length; i++) {
+            long a = first[i];
+            if (a == 0) continue;
+            /* a * b < 2^62 and the running sum is reduced, so nothing overflows */
+            for (int j = 0; j < second.length; j++) product[i + j] = (product[i + j] + a * second[j]) % modulus;
+        }
+        return product;
+    }
+
+    /**
+     * Produces the product of two coefficient arrays modulo a prime with the number theoretic transform, either
+     * modulo the prime itself or over three transform primes combined with the Chinese remainder theorem.
+     * @param first the coefficients of the first factor, each in [0, modulus)
+     * @param second the coefficients of the second factor, each in [0, modulus)
+     * @param modulus the prime modulus, below 2^31
+     * @return the coefficients of the product
+     * @throws IllegalArgumentException if the product is too long to be transformed
+     */
+    public static long[] ntt(long[] first, long[] second, long modulus) {
+        int productLength = first.length + second.length - 1;
+        if (supportsTransform(modulus, productLength)) return convolve(first, first == second ? null : second, modulus);
+        if (productLength > MAX_CRT_LENGTH) {
+            throw new IllegalArgumentException("The product is too long for a number theoretic transform modulo " + modulus + ".");
+        }
+
+        long[][] residues = new long[CRT_PRIMES.length][];
+        for (int i = 0; i < CRT_PRIMES.length; i++) {
+            long prime = CRT_PRIMES[i];
+            residues[i] = convolve(reduced(first, modulus, prime), first == second ? null : reduced(second, modulus, prime), prime);
+        }
+
+        /* Garner's algorithm: x = r0 + m0 t1 + m0 m1 t2, with each digit found mod the next prime, all below 2^62 */
+        long m0 = CRT_PRIMES[0];
+        long m1 = CRT_PRIMES[1];
+        long m2 = CRT_PRIMES[2];
+        long m0InverseMod1 = inverse(m0 % m1, m1);
+        long m01InverseMod2 = inverse(m0 % m2 * (m1 % m2) % m2, m2);
+        long m01ModP = m0 % modulus * (m1 % modulus) % modulus;
+        long[] product = new long[productLength];
+        for (int i = 0; i < productLength; i++) {
+            long r0 = residues[0][i];
+            long t1 = (residues[1][i] - r0 % m1 + m1) % m1 * m0InverseMod1 % m1;
+            long x01 = r0 + m0 * t1;
+            long t2 = (residues[2][i] - x01 % m2 + m2) % m2 * m01InverseMod2 % m2;
+            product[i] = (x01 % modulus + m01ModP * t2) % modulus;
+        }
+        return product;
+    }
+
+    /**
+     * Produces the cyclic convolution of two coefficient arrays modulo a transform prime, padded to a power of 2 that
+     * holds the whole product, so that it is the product itself. A null second factor squares the first.
+     */
+    static long[] convolve(long[] first, long[] second, long prime) {
+        int productLength = first.length + (second == null ? first.length : second.length) - 1;
+        int n = Integer.highestOneBit(Math.max(productLength - 1, 1)) << 1;
+        Field field = field(prime);
+        long[][] roots = field.roots(n);
+
+        long[] a = Arrays.copyOf(first, n);
+        forward(a, n, roots[0], field);
+        long[] b = a;
+        if (second != null) {
+            b = Arrays.copyOf(second, n);
+            forward(b, n, roots[0], field);
+        }
+        /* The pointwise products are a b / R, and the 1 / R is undone with the scaling by 1 / n below */
+        for (int i = 0; i < n; i++) a[i] = field.reduce(a[i] * b[i]);
+        inverse(a, n, roots[1], field);
+
+        long scale = field.toMontgomery(field.toMontgomery(inverse(n % prime, prime)));
+        long[] product = new long[productLength];
+        for (int i = 0; i < productLength; i++) product[i] = field.reduce(a[i] * scale);
+        return product;
+    }
+
+    /* Gentleman-Sande butterflies from the natural order, leaving the transform in bit reversed order */
+    private static void forward(long[] a, int n, long[] roots, Field field) {
+        long p = field.prime;
+        int tableLength = 2 * roots.length;
+        for (int half = n >> 1; half >= 1; half >>= 1) {
+            int stride = tableLength / (2 * half);
+            for (int start = 0; start < n; start += 2 * half) {
+                for (int j = 0; j < half; j++) {
+                    long u = a[start + j];
+                    long v = a[start + j + half];
+                    long sum = u + v;
+                    long difference = u - v;
+                    a[start + j] = sum >= p ? sum - p : sum;
+                    a[start + j + half] = field.reduce((difference < 0 ? difference + p : difference) * roots[j * stride]);
+                }
+            }
+        }
+    }
+
+    /* Cooley-Tukey butterflies with the inverse roots from bit reversed order, leaving n times the inverse transform */
+    private static void inverse(long[] a, int n, long[] inverseRoots, Field field) {
+        long p = field.prime;
+        int tableLength = 2 * inverseRoots.length;
+        for (int half = 1; half < n; half <<= 1) {
+            int stride = tableLength / (2 * half);
+            for (int start = 0; start < n; start += 2 * half) {
+                for (int j = 0; j < half; j++) {
+                    long u = a[start + j];
+                    long v = field.reduce(a[start + j + half] * inverseRoots[j * stride]);
+                    long sum = u + v;
+                    long difference = u - v;
+                    a[start + j] = sum >= p ? sum - p : sum;
+                    a[start + j + half] = difference < 0 ? difference + p : difference;
+                }
+            }
+        }
+    }
+
+    /* Whether products of some length can be transformed modulo a prime directly, without the Chinese remainder theorem */
+    static boolean supportsTransform(long prime, int productLength) {
+        int n = Integer.highestOneBit(Math.max(productLength - 1, 1)) << 1;
+        return prime > 2 && Long.numberOfTrailingZeros(prime - 1) >= Integer.numberOfTrailingZeros(n);
+    }
+
+    /**
+     * Produces distinct primes below 2^31 that support transforms of a certain length, from the largest down.
+     * @param productLength the length of the products to transform
+     * @param count the number of primes
+     * @return the primes, or null if there are fewer of them
+     */
+    static long[] transformPrimes(int productLength, int count) {
+        int k = Integer.numberOfTrailingZeros(Integer.highestOneBit(Math.max(productLength - 1, 1)) << 1);
+        long[] known = TRANSFORM_PRIMES.getOrDefault(k, new long[0]);
+        if (known.length < count) {
+            /* Look further down for primes c 2^k + 1 than the last search went, which is where the known ones end */
+            long[] found = Arrays.copyOf(known, count);
+            int length = known.length;
+            long c = length == 0 ? ((long) Integer.MAX_VALUE - 1) >> k : ((known[length - 1] - 1) >> k) - 1;
+            for (; length < count && c > 0; c--) {
+                long candidate = (c << k) + 1;
+                if (isPrime(candidate)) found[length++] = candidate;
+            }
+            if (length < count) return null;
+            TRANSFORM_PRIMES.put(k, found);
+            known = found;
+        }
+        return Arrays.copyOf(known, count);
+    }
+
+    /* Reduces residues modulo one prime into residues modulo another */
+    private static long[] reduced(long[] coefficients, long modulus, long prime) {
+        if (modulus <= prime) return coefficients;
+        long[] reduced = new long[coefficients.length];
+        for (int i = 0; i < coefficients.length; i++) reduced[i] = coefficients[i] % prime;
+        return reduced;
+    }
+
+    /**
+     * Produces a power of a residue modulo a prime below 2^31, by repeated squaring.
+     * @param base the residue, in [0, modulus)
+     * @param exponent the power, at least 0
+     * @param modulus the modulus
+     * @return base^exponent mod modulus
+     */
+    static long power(long base, long exponent, long modulus) {
+        long result = 1 % modulus;
+        long square = base;
+        while (exponent > 0) {
+            if ((exponent & 1) == 1) result = result * square % modulus;
+            square = square * square % modulus;
+            exponent >>= 1;
+        }
+        return result;
+    }
+
+    /* The inverse of a non-zero residue modulo a prime, which is a^(p - 2) by Fermat's little theorem */
+    static long inverse(long residue, long prime) {
+        return power(residue, prime - 2, prime);
+    }
+
+    /**
+     * Asserts if a number below 2^31 is a prime, with the Miller-Rabin test for the bases 2, 7 and 61, which has no
+     * false positives in that range.
+     * @param n the number
+     * @return whether or not the number is a prime
+     */
+    static boolean isPrime(long n) {
+        if (n < 2) return false;
+        for (long small : new long[] {2, 3, 5, 7, 11, 13, 61}) {
+            if (n % small == 0) return n == small;
+        }
+        long odd = n - 1;
+        int twos = Long.numberOfTrailingZeros(odd);
+        odd >>= twos;
+        for (long base : new long[] {2, 7, 61}) {
+            long x = power(base, odd, n);
+            if (x == 1 || x == n - 1) continue;
+            boolean composite = true;
+            for (int i = 1; i < twos && composite; i++) {
+                x = x * x % n;
+                if (x == n - 1) composite = false;
+            }
+            if (composite) return false;
+        }
+        return true;
+    }
+
+    private static Field field(long prime) {
+        Field field = FIELDS.get(prime);
+        if (field == null) field = FIELDS.computeIfAbsent(prime, Field::new);
+        return field;
+    }
+
+    /* The arithmetic modulo an odd transform prime p below 2^31, in Montgomery form with R = 2^32 */
+    private static final class Field {
+
+        final long prime;
+        /* -1 / p mod R */
+        private final long negatedInverse;
+        /* R^2 mod p, which turns a residue into Montgomery form with a single reduction */
+        private final long rSquared;
+        /* A root of unity of order 2^twoAdicity, the largest power of 2 that divides p - 1 */
+        private final int twoAdicity;
+        private final long rootOfUnity;
+        /* The powers of the roots of unity of the longest transform so far, and of their inverses, in Montgomery form */
+        private volatile long[][] roots;
+
+        Field(long p) {
+            prime = p;
+            /* Newton's iteration x = x (2 - p x) doubles the number of correct low bits of 1 / p, starting from 3 */
+            long x = p;
+            for (int i = 0; i < 4; i++) x = x * (2 - p * x) & LOW_32_BITS;
+            negatedInverse = -x & LOW_32_BITS;
+            long r = (1L << 32) % p;
+            rSquared = r * r % p;
+            twoAdicity = Long.numberOfTrailingZeros(p - 1);
+            rootOfUnity = power(primitiveRoot(p), (p - 1) >> twoAdicity, p);
+        }
+
+        /* Montgomery reduction: t / R mod p, for t < p R, where t + m p is divisible by R and below 2^64 */
+        long reduce(long t) {
+            long m = (t & LOW_32_BITS) * negatedInverse & LOW_32_BITS;
+            long u = (t + m * prime) >>> 32;
+            return u >= prime ? u - prime : u;
+        }
+
+        long toMontgomery(long residue) {
+            return reduce(residue * rSquared);
+        }
+
+        /* The tables of the powers of the roots of unity for a transform of length n, or of a multiple of n */
+        long[][] roots(int n) {
+            long[][] tables = roots;
+            if (tables == null || 2 * tables[0].length < n) {
+                long root = power(rootOfUnity, 1L << (twoAdicity - Integer.numberOfTrailingZeros(n)), prime);
+                long[] powers = new long[Math.max(n / 2, 1)];
+                long[] inversePowers = new long[powers.length];
+                long rootMontgomery = toMontgomery(root);
+                long inverseMontgomery = toMontgomery(inverse(root, prime));
+                powers[0] = inversePowers[0] = toMontgomery(1);
+                for (int j = 1; j < powers.length; j++) {
+                    powers[j] = reduce(powers[j - 1] * rootMontgomery);
+                    inversePowers[j] = reduce(inversePowers[j - 1] * inverseMontgomery);
+                }
+                roots = tables = new long[][] {powers, inversePowers};
+            }
+            return tables;
+        }
+
+        /* The smallest generator of the multiplicative group, which is not a root of 1 of order (p - 1) / q for any prime q */
+        private static long primitiveRoot(long p) {
+            long[] factors = new long[32];
+            int count = 0;
+            long rest = p - 1;
+            for (long q = 2; q * q <= rest; q++) {
+                if (rest % q == 0) {
+                    factors[count++] = q;
+                    while (rest % q == 0) rest /= q;
+                }
+            }
+            if (rest > 1) factors[count++] = rest;
+
+            for (long g = 2; ; g++) {
+                boolean generator = true;
+                for (int i = 0; i < count && generator; i++) generator = power(g, (p - 1) / factors[i], p) != 1;
+                if (generator) return g;
+            }
+        }
+    }
+}
@@ -0,0 +1,379 @@
+package polynomial.src;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * A polynomial over the integers modulo a prime p, Z/pZ, for exact arithmetic. Where Polynomial stores doubles and
+ * compares them with a tolerance, every coefficient here is a residue in [0, p), and every operation is exact. Large
+ * products are computed with the number theoretic transform, so multiplication runs at the speed of the FFT without
+ * any rounding.
+ *
+ * The modulus is a prime below 2^31, so that the product of two residues fits in a long, and Z/pZ is a field in which
+ * every non-zero leading coefficient has an inverse, so division by any non-zero polynomial is defined. Exact integer
+ * results are found by computing modulo several primes, and combining the images with IntegerPolynomial.reconstruct.
+ *
+ * Like Polynomial, a modular polynomial is immutable and safe to share between threads, with its derivative computed
+ * the first time it is needed and then cached.
+ * @see ModularMultiplier
+ * @see IntegerPolynomial
+ */
+public final class ModularPolynomial {
+
+    /** The largest supported modulus, 2^31 - 1, which is a prime */
+    public static final long MAX_MODULUS = Integer.MAX_VALUE;
+
+    private final long modulus;
+    /* The residues, indexed by degree and without leading zeros, except for the zero polynomial {0} */
+    private final long[] coefficients;
+    private final int degree;
+
+    private volatile ModularPolynomial derivative;
+    private volatile int hash;
+
+    /**
+     * The construction of a modular polynomial directly from an array of residues, which is taken over without copying.
+     * Only used internally, where the residues are known to be reduced and the array is not modified afterwards.
+     */
+    ModularPolynomial(long polyModulus, long[] polyCoefficients) {
+        int highest = polyCoefficients.length - 1;
+        while (highest > 0 && polyCoefficients[highest] == 0) highest--;
+        modulus = polyModulus;
+        if (highest < 0) coefficients = new long[] {0};
+        else coefficients = highest < polyCoefficients.length - 1 ? Arrays.copyOf(polyCoefficients, highest + 1) : polyCoefficients;
+        degree = Math.max(highest, 0);
+    }
+
+    /**
+     * Produces a modular polynomial from its coefficients, given from the constant term upwards. The coefficients are
+     * reduced into [0, modulus), so negative coefficients are taken as their residues.
+     * @param modulus the prime modulus, below 2^31
+     * @param coefficients the coefficients, such that coefficients[i] is the coefficient of x^i
+     * @return the polynomial with those coefficients modulo the modulus
+     * @throws IllegalArgumentException if the modulus is not a prime below 2^31
+     */
+    public static ModularPolynomial fromCoefficients(long modulus, long... coefficients) {
+        checkModulus(modulus);
+        long[] residues = new long[Math.max(coefficients.length, 1)];
+        for (int i = 0; i < coefficients.length; i++) residues[i] = Math.floorMod(coefficients[i], modulus);
+        return new ModularPolynomial(modulus, residues);
+    }
+
+    /**
+     * Produces the image of a polynomial with integer coefficients modulo a prime.
+     * @param polynomial the polynomial, whose coefficients must all be integers
+     * @param modulus the prime modulus, below 2^31
+     * @return the polynomial with the coefficients reduced modulo the modulus
+     * @throws IllegalArgumentException if the modulus is not a prime below 2^31, or a coefficient is not an integer
+     */
+    public static ModularPolynomial fromPolynomial(Polynomial polynomial, long modulus) {
+        checkModulus(modulus);
+        double[] polyCoefficients = polynomial.coefficients();
+        long[] residues = new long[polyCoefficients.length];
+        for (int i = 0; i < polyCoefficients.length; i++) {
+            double coefficient = polyCoefficients[i];
+            if (coefficient != Math.rint(coefficient) || Math.abs(coefficient) >= 0x1p63) {
+                throw new IllegalArgumentException("The coefficient " + coefficient + " is not an integer that fits in a long.");
+            }
+            residues[i] = Math.floorMod((long) coefficient, modulus);
+        }
+        return new ModularPolynomial(modulus, residues);
+    }
+
+    public long getModulus() {
+        return modulus;
+    }
+
+    public int getDegree() {
+        return degree;
+    }
+
+    public long getLeadingCoeff() {
+        return coefficients[degree];
+    }
+
+    /**
+     * Produces the coefficient of a term of some degree.
+     * @param termDegree the degree of the term
+     * @return the residue of the coefficient of x^termDegree, which is 0 above the degree of the polynomial
+     */
+    public long getCoefficient(int termDegree) {
+        return termDegree >= 0 && termDegree <= degree ? coefficients[termDegree] : 0;
+    }
+
+    /**
+     * Produces a copy of the coefficients.
+     * @return the residues, such that the element at index i is the coefficient of x^i
+     */
+    public long[] getCoefficients() {
+        return coefficients.clone();
+    }
+
+    /**
+     * Produces the evaluation of the polynomial at a certain value, using Horner's scheme modulo the prime.
+     * @param a the value at which the polynomial should be evaluated, which is reduced modulo the prime first
+     * @return the residue of the value of the polynomial at x = a
+     */
+    public long valueAt(long a) {
+        long x = Math.floorMod(a, modulus);
+        long value = coefficients[degree];
+        for (int i = degree - 1; i >= 0; i--) value = (value * x + coefficients[i]) % modulus;
+        return value;
+    }
+
+    /**
+     * Produces the general derivative of the polynomial. It is computed once and then cached.
+     * @return the derivative, with the coefficients reduced modulo the prime, so that for example (x^p)' = 0
+     */
+    public ModularPolynomial derivative() {
+        ModularPolynomial cached = derivative;
+        if (cached == null) {
+            long[] derivativeCoefficients = new long[Math.max(degree, 1)];
+            for (int i = 1; i <= degree; i++) derivativeCoefficients[i - 1] = coefficients[i] * (i % modulus) % modulus;
+            derivative = cached = new ModularPolynomial(modulus, derivativeCoefficients);
+        }
+        return cached;
+    }
+
+    /**
+     * Produces the negation of the polynomial, the additive inverse of every coefficient.
+     * @return a polynomial that represents the negation of this polynomial
+     */
+    public ModularPolynomial negation() {
+        long[] negatedCoefficients = new long[degree + 1];
+        for (int i = 0; i <= degree; i++) negatedCoefficients[i] = coefficients[i] == 0 ? 0 : modulus - coefficients[i];
+        return new ModularPolynomial(modulus, negatedCoefficients);
+    }
+
+    /**
+     * Produces the sum of two modular polynomials.
+     * @param addend the polynomial that is being added, with the same modulus
+     * @return the sum of the polynomials
+     * @throws IllegalArgumentException if the moduli differ
+     */
+    public ModularPolynomial add(ModularPolynomial addend) {
+        requireSameModulus(addend);
+        long[] sum = Arrays.copyOf(coefficients, Math.max(degree, addend.degree) + 1);
+        for (int i = 0; i <= addend.degree; i++) {
+            long s = sum[i] + addend.coefficients[i];
+            sum[i] = s >= modulus ? s - modulus : s;
+        }
+        return new ModularPolynomial(modulus, sum);
+    }
+
+    /**
+     * Produces the difference of two modular polynomials.
+     * @param subtrahend the polynomial that is the subtrahend, with the same modulus
+     * @return the difference of the polynomials
+     * @throws IllegalArgumentException if the moduli differ
+     */
+    public ModularPolynomial subtract(ModularPolynomial subtrahend) {
+        requireSameModulus(subtrahend);
+        long[] difference = Arrays.copyOf(coefficients, Math.max(degree, subtrahend.degree) + 1);
+        for (int i = 0; i <= subtrahend.degree; i++) {
+            long d = difference[i] - subtrahend.coefficients[i];
+            difference[i] = d < 0 ? d + modulus : d;
+        }
+        return new ModularPolynomial(modulus, difference);
+    }
+
+    /**
+     * Produces the product of two modular polynomials, with the schoolbook method for small factors and the number
+     * theoretic transform for large ones.
+     * @param multiplicand the other factor, with the same modulus
+     * @return the product of the polynomials
+     * @throws IllegalArgumentException if the moduli differ, or the product is too long to be transformed
+     * @see ModularMultiplier
+     */
+    public ModularPolynomial multiply(ModularPolynomial multiplicand) {
+        requireSameModulus(multiplicand);
+        long start = PolynomialMetrics.start();
+        ModularPolynomial product = new ModularPolynomial(modulus, ModularMultiplier.multiply(coefficients, multiplicand.coefficients, modulus));
+        PolynomialMetrics.record(PolynomialMetrics.Operation.MULTIPLY, product.degree, start);
+        return product;
+    }
+
+    /**
+     * Produces the result of the polynomial raised to a power, by repeated squaring.
+     * @param power by what the degree the polynomial is raised
+     * @return a polynomial that is this polynomial raised to the power
+     * @throws IllegalArgumentException if the power is negative, or the degree of the power is too large
+     */
+    public ModularPolynomial pow(int power) {
+        if (power < 0) throw new IllegalArgumentException("A polynomial can only be raised to a whole number power.");
+        if (power == 0) return new ModularPolynomial(modulus, new long[] {1 % modulus});
+        if ((long) degree * power > Integer.MAX_VALUE - 8) throw new IllegalArgumentException("The degree of the power is too large.");
+
+        ModularPolynomial result = null;
+        ModularPolynomial square = this;
+        int remaining = power;
+        while (true) {
+            if ((remaining & 1) == 1) result = result == null ? square : result.multiply(square);
+            remaining >>= 1;
+            if (remaining == 0) break;
+            square = square.multiply(square);
+        }
+        return result;
+    }
+
+    /**
+     * Produces the quotient and remainder of the division of two modular polynomials. Every non-zero residue has an
+     * inverse modulo a prime, so the division is exact for any non-zero divisor. Long division is used for small
+     * quotients and divisors, and Newton's iteration on the power series reciprocal of the reversed divisor otherwise.
+     * @param divisor the polynomial that this is being divided by, with the same modulus
+     * @return the quotient and the remainder, whose degree is below the degree of the divisor
+     * @throws IllegalArgumentException if the divisor is the zero polynomial, or the moduli differ
+     */
+    public ModularQuotientRemainder divide(ModularPolynomial divisor) {
+        requireSameModulus(divisor);
+        if (divisor.degree == 0 && divisor.coefficients[0] == 0) {
+            throw new IllegalArgumentException("Division by the zero polynomial is undefined.");
+        }
+        if (degree < divisor.degree) {
+            return new ModularQuotientRemainder(new ModularPolynomial(modulus, new long[] {0}), this);
+        }
+
+        long start = PolynomialMetrics.start();
+        int quotientLength = degree - divisor.degree + 1;
+        long[][] quotientRemainder = Math.min(quotientLength, divisor.degree) >= ModularMultiplier.getNttThreshold()
+                ? newtonDivide(divisor) : longDivide(divisor);
+        ModularQuotientRemainder result = new ModularQuotientRemainder(new ModularPolynomial(modulus, quotientRemainder[0]),
+                                                                       new ModularPolynomial(modulus, quotientRemainder[1]));
+        PolynomialMetrics.record(PolynomialMetrics.Operation.DIVIDE, degree, start);
+        return result;
+    }
+
+    /* Schoolbook long division, multiplying by the inverse of the leading coefficient of the divisor */
+    private long[][] longDivide(ModularPolynomial divisor) {
+        int m = divisor.degree;
+        long[] b = divisor.coefficients;
+        long leadInverse = ModularMultiplier.inverse(b[m], modulus);
+        long[] remainder = coefficients.clone();
+        long[] quotient = new long[degree - m + 1];
+        for (int i = degree - m; i >= 0; i--) {
+            long q = remainder[i + m] * leadInverse % modulus;
+            quotient[i] = q;
+            if (q == 0) continue;
+            /* Subtracting q b is adding (p - q) b, which keeps every value non-negative and below 2^62 */
+            long negated = modulus - q;
+            for (int j = 0; j <= m; j++) remainder[i + j] = (remainder[i + j] + negated * b[j]) % modulus;
+        }
+        return new long[][] {quotient, Arrays.copyOf(remainder, Math.max(m, 1))};
+    }
+
+    /* rev(q) = rev(a) / rev(b) mod x^(n - m + 1), and the remainder is the low m coefficients of a - bq */
+    private long[][] newtonDivide(ModularPolynomial divisor) {
+        int m = divisor.degree;
+        int quotientLength = degree - m + 1;
+        long[] reversedDividend = reversed(coefficients, quotientLength);
+        long[] reciprocal = reciprocal(reversed(divisor.coefficients, Math.min(m + 1, quotientLength)), quotientLength);
+        long[] reversedQuotient = ModularMultiplier.multiply(reversedDividend, reciprocal, modulus);
+
+        long[] quotient = new long[quotientLength];
+        for (int i = 0; i < quotientLength; i++) quotient[i] = reversedQuotient[quotientLength - 1 - i];
+
+        long[] product = ModularMultiplier.multiply(Arrays.copyOf(divisor.coefficients, m), Arrays.copyOf(quotient, Math.min(quotientLength, m)), modulus);
+        long[] remainder = Arrays.copyOf(coefficients, m);
+        for (int i = 0; i < m; i++) {
+            long d = remainder[i] - product[i];
+            remainder[i] = d < 0 ? d + modulus : d;
+        }
+        return new long[][] {quotient, remainder};
+    }
+
+    /* The power series reciprocal of f mod x^length with Newton's iteration g = g(2 - fg), exact modulo the prime */
+    private long[] reciprocal(long[] f, int length) {
+        long[] g = {ModularMultiplier.inverse(f[0], modulus)};
+        int precision = 1;
+        while (precision < length) {
+            precision = Math.min(2 * precision, length);
+            long[] fg = Arrays.copyOf(ModularMultiplier.multiply(Arrays.copyOf(f, Math.min(f.length, precision)), g, modulus), precision);
+            for (int i = 0; i < precision; i++) fg[i] = fg[i] == 0 ? 0 : modulus - fg[i];
+            fg[0] = (fg[0] + 2) % modulus;
+            g = Arrays.copyOf(ModularMultiplier.multiply(g, fg, modulus), precision);
+        }
+        return g;
+    }
+
+    /* The coefficients in reverse order, cut down to the lowest coefficients of the reversed polynomial */
+    private static long[] reversed(long[] polyCoefficients, int length) {
+        long[] reversed = new long[length];
+        for (int i = 0; i < length; i++) reversed[i] = polyCoefficients[polyCoefficients.length - 1 - i];
+        return reversed;
+    }
+
+    /**
+     * Produces the monic greatest common divisor of two modular polynomials, with the Euclidean algorithm for low
+     * degrees and the half-GCD algorithm, which costs O(M(n) log n) for multiplications M(n), for high ones.
+     * @param other the other polynomial, with the same modulus
+     * @return the monic greatest common divisor, or 0 if both polynomials are 0
+     * @throws IllegalArgumentException if the moduli differ
+     * @see PolynomialGcd
+     */
+    public ModularPolynomial gcd(ModularPolynomial other) {
+        requireSameModulus(other);
+        return PolynomialGcd.gcd(this, other);
+    }
+
+    /* The polynomial divided by x^k, dropping the k lowest coefficients */
+    ModularPolynomial shiftedDown(int k) {
+        if (k > degree) return new ModularPolynomial(modulus, new long[] {0});
+        return new ModularPolynomial(modulus, Arrays.copyOfRange(coefficients, k, degree + 1));
+    }
+
+    /* The polynomial with every coefficient multiplied by a residue */
+    ModularPolynomial scaled(long factor) {
+        long[] scaledCoefficients = new long[degree + 1];
+        for (int i = 0; i <= degree; i++) scaledCoefficients[i] = coefficients[i] * factor % modulus;
+        return new ModularPolynomial(modulus, scaledCoefficients);
+    }
+
+    /* The coefficient array itself, for the other classes of the package, which must not modify it */
+    long[] residues() {
+        return coefficients;
+    }
+
+    /**
+     * Asserts if an object is a modular polynomial with the same modulus and coefficients.
+     * @param other the object that this polynomial is being compared to
+     * @return whether or not the object is a ModularPolynomial with the same modulus, degree and coefficients
+     */
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) return true;
+        if (!(other instanceof ModularPolynomial)) return false;
+        ModularPolynomial otherPolynomial = (ModularPolynomial) other;
+        return modulus == otherPolynomial.modulus && Arrays.equals(coefficients, otherPolynomial.coefficients);
+    }
+
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0) hash = h = 31 * Long.hashCode(modulus) + Arrays.hashCode(coefficients);
+        return h;
+    }
+
+    @Override
+    public String toString() {
+        ArrayList<String> stringRepresentations = new ArrayList<String>();
+        for (int i = degree; i >= 0; i--) {
+            if (coefficients[i] == 0) continue;
+            stringRepresentations.add(i == 0 ? coefficients[i] + "" : "(" + coefficients[i] + ")" + "x" + "^" + i);
+        }
+        if (stringRepresentations.isEmpty()) stringRepresentations.add("0");
+        return String.join(" + ", stringRepresentations) + " (mod " + modulus + ")";
+    }
+
+    private void requireSameModulus(ModularPolynomial other) {
+        if (other.modulus != modulus) {
+            throw new IllegalArgumentException("The moduli " + modulus + " and " + other.modulus + " of the polynomials differ.");
+        }
+    }
+
+    /* Checks that arithmetic modulo a number is supported, which is the case for primes below 2^31 */
+    static void checkModulus(long modulus) {
+        if (modulus > MAX_MODULUS || !ModularMultiplier.isPrime(modulus)) {
+            throw new IllegalArgumentException("The modulus " + modulus + " is not a prime below 2^31.");
+        }
+    }
+}
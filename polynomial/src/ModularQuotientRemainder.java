@@ -0,0 +1,28 @@
+package polynomial.src;
+
+/**
+ * Simple key-value pair class to represent modular polynomial division quotient and remainder
+ */
+public class ModularQuotientRemainder {
+
+    private final ModularPolynomial quotient;
+    private final ModularPolynomial remainder;
+
+    ModularQuotientRemainder(ModularPolynomial polyQuotient, ModularPolynomial polyRemainder) {
+        quotient = polyQuotient;
+        remainder = polyRemainder;
+    }
+
+    public ModularPolynomial getQuotient() {
+        return quotient;
+    }
+
+    public ModularPolynomial getRemainder() {
+        return remainder;
+    }
+
+    @Override
+    public String toString() {
+        return "Q: " + quotient + " R: " + remainder;
+    }
+}
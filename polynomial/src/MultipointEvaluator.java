@@ -0,0 +1,275 @@
+package polynomial.src;
+
+/**
+ * Evaluation of polynomials at a fixed list of points, and interpolation of polynomials through values at those
+ * points. By default every point is evaluated with Horner's scheme, and the interpolating polynomial is found from its
+ * Newton form, both in O(n^2) time and backward stable.
+ *
+ * Both also have a quasi-linear algorithm on top of the subproduct tree over the points: p(x_i) is the remainder of p
+ * divided by (x - x_i), so p is reduced by the product at each node on the way down the tree (a remainder tree), and
+ * the interpolating polynomial is the Lagrange form, summed up the tree. They work in the monomial basis, where the
+ * products over many points have coefficients that grow exponentially with their number, and the remainders and sums
+ * cancel most of that size. They lose all accuracy on a few hundred points spread over [-1, 1], long before they are
+ * faster, so they are only used from thresholds that are set explicitly, for points and polynomials where that
+ * cancellation is known to be mild.
+ *
+ * The interpolation points are first mapped into [-1, 1], by a power of 2 so that the scaling is exact, and the result
+ * is mapped back with a Taylor shift. Points far from 0, such as the integers 1 to 20, otherwise give weights and
+ * divided differences of wildly different sizes, which cancel each other.
+ */
+public class MultipointEvaluator {
+
+    private static volatile int hornerThreshold = Integer.getInteger("polynomial.multipointHornerThreshold", Integer.MAX_VALUE);
+    private static volatile int interpolationThreshold = Integer.getInteger("polynomial.interpolationThreshold", Integer.MAX_VALUE);
+
+    private final double[] points;
+    /* Built lazily, since the default algorithms don't use it. Building it twice in a race is harmless. */
+    private volatile SubproductTree tree;
+
+    /**
+     * Sets up the evaluation at a list of points.
+     * @param evaluationPoints the points at which polynomials are evaluated
+     * @throws IllegalArgumentException if there are no points
+     */
+    public MultipointEvaluator(double... evaluationPoints) {
+        if (evaluationPoints.length == 0) throw new IllegalArgumentException("There must be at least 1 point.");
+        points = evaluationPoints.clone();
+    }
+
+    /**
+     * Sets up the evaluation at the points of an existing subproduct tree, such as the one a polynomial was built from.
+     * @param pointTree the subproduct tree over the points at which polynomials are evaluated
+     */
+    public MultipointEvaluator(SubproductTree pointTree) {
+        tree = pointTree;
+        points = pointTree.points();
+    }
+
+    public static int getHornerThreshold() {
+        return hornerThreshold;
+    }
+
+    /**
+     * Sets the number of points below which every point is evaluated with Horner's scheme instead of a remainder tree.
+     * @param threshold the number of points
+     */
+    public static void setHornerThreshold(int threshold) {
+        if (threshold < 0) throw new IllegalArgumentException("The Horner threshold can't be negative.");
+        hornerThreshold = threshold;
+    }
+
+    public static int getInterpolationThreshold() {
+        return interpolationThreshold;
+    }
+
+    /**
+     * Sets the number of points below which the interpolating polynomial is found from its Newton form instead of
+     * the Lagrange form summed up the subproduct tree.
+     * @param threshold the number of points
+     */
+    public static void setInterpolationThreshold(int threshold) {
+        if (threshold < 0) throw new IllegalArgumentException("The interpolation threshold can't be negative.");
+        interpolationThreshold = threshold;
+    }
+
+    public SubproductTree getTree() {
+        SubproductTree cached = tree;
+        if (cached == null) tree = cached = new SubproductTree(points);
+        return cached;
+    }
+
+    /**
+     * Produces the values of a polynomial at every point.
+     * @param polynomial the polynomial that is evaluated
+     * @return an array holding the value of the polynomial at the point with the same index
+     */
+    public double[] evaluate(Polynomial polynomial) {
+        double[] values = new double[points.length];
+        if (points.length < hornerThreshold) {
+            polynomial.valueAt(points, values);
+        }
+        else {
+            SubproductTree pointTree = getTree();
+            descend(pointTree, remainder(pointTree, polynomial, 1), 1, 0, points.length, values);
+        }
+        return values;
+    }
+
+    /**
+     * Produces the polynomial of the least degree that passes through the given values at the points. Below the
+     * interpolation threshold it is built from the divided differences of the values, with the points in Leja order,
+     * where each point is the farthest from the ones before it, which keeps the differences from growing. Above it,
+     * the Lagrange form is used: p(x) is the sum of y_i / m'(x_i) * m(x) / (x - x_i), where m is the product of all
+     * the linear factors. The weights y_i / m'(x_i) come from one multipoint evaluation, and the sum is combined up
+     * the tree.
+     * @param values the values at the points, in the same order as the points
+     * @return the interpolating polynomial, whose degree is less than the number of points
+     * @throws IllegalArgumentException if the number of values is different from the number of points, or if two
+     * of the points are equal
+     */
+    public Polynomial interpolate(double... values) {
+        if (values.length != points.length) {
+            throw new IllegalArgumentException("There must be exactly one value for every point.");
+        }
+        double[] scaling = scaling(points);
+        double center = scaling[0];
+        int exponent = (int) scaling[1];
+        double[] scaled = new double[points.length];
+        for (int i = 0; i < points.length; i++) scaled[i] = Math.scalb(points[i] - center, -exponent);
+
+        double[] coefficients;
+        if (points.length < interpolationThreshold) {
+            coefficients = newton(scaled, values);
+        }
+        else {
+            SubproductTree scaledTree = center == 0 && exponent == 0 ? getTree() : new SubproductTree(scaled);
+            coefficients = lagrange(scaledTree, values);
+        }
+
+        /* q(t) with t = (x - center) / 2^exponent is q(x / 2^exponent - center / 2^exponent) */
+        coefficients = PolynomialComposer.shift(coefficients, -Math.scalb(center, -exponent));
+        for (int k = 1; k < coefficients.length; k++) coefficients[k] = Math.scalb(coefficients[k], -k * exponent);
+        return new Polynomial(coefficients);
+    }
+
+    /**
+     * Produces the polynomial of the least degree that passes through a list of points.
+     * @param xs the x values of the points, which must be distinct
+     * @param ys the y values of the points
+     * @return the interpolating polynomial
+     * @see interpolate
+     */
+    public static Polynomial interpolate(double[] xs, double[] ys) {
+        return new MultipointEvaluator(xs).interpolate(ys);
+    }
+
+    /* The center of the points, and the exponent of the smallest power of 2 that is at least their distance from it */
+    private static double[] scaling(double[] points) {
+        double lowest = points[0];
+        double highest = points[0];
+        for (double point : points) {
+            lowest = Math.min(lowest, point);
+            highest = Math.max(highest, point);
+        }
+        double center = lowest / 2 + highest / 2;
+        double halfWidth = highest / 2 - lowest / 2;
+        if (halfWidth == 0) return new double[] {center, 0};
+        int exponent = Math.getExponent(halfWidth);
+        if (Math.scalb(1.0, exponent) < halfWidth) exponent++;
+        return new double[] {center, exponent};
+    }
+
+    /* The interpolating polynomial from its Newton form, with the points in Leja order */
+    private static double[] newton(double[] points, double[] values) {
+        int n = points.length;
+        int[] order = lejaOrder(points);
+        double[] ordered = new double[n];
+        double[] differences = new double[n];
+        for (int i = 0; i < n; i++) {
+            ordered[i] = points[order[i]];
+            differences[i] = values[order[i]];
+        }
+
+        /* differences[i] becomes the divided difference over the points 0 to i, which visits every pair of points once */
+        for (int j = 1; j < n; j++) {
+            for (int i = n - 1; i >= j; i--) {
+                double gap = ordered[i] - ordered[i - j];
+                if (gap == 0) throw new IllegalArgumentException("The interpolation points must be distinct.");
+                differences[i] = (differences[i] - differences[i - 1]) / gap;
+            }
+        }
+
+        /* Nested multiplication of the Newton form: q = q * (x - point_k) + difference_k */
+        double[] coefficients = new double[n];
+        coefficients[0] = differences[n - 1];
+        for (int k = n - 2; k >= 0; k--) {
+            for (int j = n - 1 - k; j > 0; j--) coefficients[j] = coefficients[j - 1] - ordered[k] * coefficients[j];
+            coefficients[0] = differences[k] - ordered[k] * coefficients[0];
+        }
+        return coefficients;
+    }
+
+    /* The indices of the points, starting from the largest in magnitude, each next one maximizing the product of its
+       distances to the ones before it, which is summed as logarithms so that it can't underflow */
+    private static int[] lejaOrder(double[] points) {
+        int n = points.length;
+        int[] order = new int[n];
+        boolean[] used = new boolean[n];
+        double[] logDistances = new double[n];
+        int next = 0;
+        for (int i = 1; i < n; i++) {
+            if (Math.abs(points[i]) > Math.abs(points[next])) next = i;
+        }
+        for (int k = 0; k < n; k++) {
+            order[k] = next;
+            used[next] = true;
+            double last = points[next];
+            next = -1;
+            for (int i = 0; i < n; i++) {
+                if (used[i]) continue;
+                logDistances[i] += Math.log(Math.abs(points[i] - last));
+                if (next < 0 || logDistances[i] > logDistances[next]) next = i;
+            }
+        }
+        return order;
+    }
+
+    /* The interpolating polynomial from its Lagrange form, summed up a subproduct tree over the points */
+    private static double[] lagrange(SubproductTree pointTree, double[] values) {
+        double[] weights = new double[values.length];
+        descend(pointTree, remainder(pointTree, new Polynomial(pointTree.node(1)).derivative(), 1), 1, 0, values.length, weights);
+        for (int i = 0; i < weights.length; i++) {
+            if (weights[i] == 0) throw new IllegalArgumentException("The interpolation points must be distinct.");
+            weights[i] = values[i] / weights[i];
+        }
+        return combine(pointTree, weights, 1, 0, values.length);
+    }
+
+    /* Reduces the remainder modulo the products down the tree, and evaluates it at the points of each leaf */
+    private static void descend(SubproductTree pointTree, Polynomial remainder, int index, int lower, int upper, double[] values) {
+        if (SubproductTree.isLeaf(lower, upper)) {
+            double[] points = pointTree.leafPoints();
+            int[] order = pointTree.order();
+            for (int i = lower; i < upper; i++) values[order[i]] = remainder.valueAt(points[i]);
+            return;
+        }
+        int middle = (lower + upper) >>> 1;
+        descend(pointTree, remainder(pointTree, remainder, 2 * index), 2 * index, lower, middle, values);
+        descend(pointTree, remainder(pointTree, remainder, 2 * index + 1), 2 * index + 1, middle, upper, values);
+    }
+
+    /* The remainder of a polynomial divided by the product at a node of the tree */
+    private static Polynomial remainder(SubproductTree pointTree, Polynomial dividend, int index) {
+        double[] product = pointTree.node(index);
+        if (dividend.getDegree() < product.length - 1) return dividend;
+        return dividend.divide(new Polynomial(product)).getRemainder();
+    }
+
+    /* The sum of weight_i * m(x) / (x - x_i) over the points of a subtree, where m is the product at its root and the weights are in the order the points were given */
+    private static double[] combine(SubproductTree pointTree, double[] weights, int index, int lower, int upper) {
+        if (SubproductTree.isLeaf(lower, upper)) {
+            double[] points = pointTree.leafPoints();
+            int[] order = pointTree.order();
+            double[] product = pointTree.node(index);
+            int length = upper - lower;
+            double[] sum = new double[length];
+            for (int i = lower; i < upper; i++) {
+                /* Synthetic division of the leaf product by (x - x_i), which is exact since x_i is one of its roots */
+                double carry = product[length];
+                for (int j = length - 1; j >= 0; j--) {
+                    sum[j] += weights[order[i]] * carry;
+                    carry = carry * points[i] + product[j];
+                }
+            }
+            return sum;
+        }
+        /* Each half's sum is missing the factors of the other half, so they are multiplied back in */
+        int middle = (lower + upper) >>> 1;
+        double[] left = PolynomialMultiplier.multiply(combine(pointTree, weights, 2 * index, lower, middle), pointTree.node(2 * index + 1));
+        double[] right = PolynomialMultiplier.multiply(combine(pointTree, weights, 2 * index + 1, middle, upper), pointTree.node(2 * index));
+        double[] sum = new double[Math.max(left.length, right.length)];
+        for (int i = 0; i < left.length; i++) sum[i] += left[i];
+        for (int i = 0; i < right.length; i++) sum[i] += right[i];
+        return sum;
+    }
+}
@@ -5,8 +5,8 @@ package polynomial.src;
  */
 public class PolyQuotientRemainder {
 
-    private Polynomial quotient;
-    private Polynomial remainder;
+    private final Polynomial quotient;
+    private final Polynomial remainder;
 
     PolyQuotientRemainder(Polynomial polyQuotient, Polynomial polyRemainder) {
         quotient = polyQuotient;
@@ -1,56 +1,138 @@
 package polynomial.src;
 
+import java.nio.DoubleBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.DoubleUnaryOperator;
 
 /**
  * A Java based object model of polynomials and their properties. This class
  * builds upon the Term class, in which a Term is described as a component of
  * Polynomial. A polynomial can be constructed using term(s), an ArrayList of
  * term(s), or the real roots and leading coefficient of the polynomial.
+ *
+ * Internally, the polynomial is stored densely as a primitive array of coefficients
+ * indexed by degree, so that coefficients[i] is the coefficient of x^i. Terms are only
+ * created as a view of that array, for callers that use terms() and getTerm().
+ *
+ * Polynomials of a high degree with only a few non-zero terms, such as x^1000000 + 3x^500 + 1,
+ * are stored sparsely instead, as packed arrays of their degrees and coefficients. The storage
+ * is picked automatically from the fraction of coefficients that are non-zero, and arithmetic
+ * on sparse polynomials works on their terms only. Operations without a sparse algorithm, such
+ * as division and root finding, work on a dense copy of the coefficients.
+ *
+ * Polynomials are immutable: every operation produces a new polynomial, and the storage is never
+ * shared with callers. They can therefore be shared between threads without copying or locking.
+ * Values derived from the coefficients, such as the derivative and the terms, are computed the first
+ * time they are needed and then cached. Two threads may race to compute the same value, in which
+ * case both compute an equal result and either one is kept. To build up a polynomial one term at a
+ * time, use a PolynomialAccumulator.
  */
-public class Polynomial {
+public final class Polynomial {
 
-    private ArrayList<Term> terms = new ArrayList<Term>();
-    private int degree;
-    private double leadingCoeff;
-    private Term leadingTerm;
+    private static final double[] ZERO_COEFFICIENTS = {0};
+    /* Polynomials of at least this degree are stored sparsely if at most this fraction of their coefficients are non-zero */
+    static final int SPARSE_MIN_DEGREE = 64;
+    static final double SPARSE_FILL_RATIO = 0.125;
+
+    /* The dense storage, or null if the polynomial is stored sparsely */
+    private final double[] coefficients;
+    /* The sparse storage, or null if the polynomial is stored densely */
+    private final SparseCoefficients sparse;
+    private final int degree;
+    private final double leadingCoeff;
+
+    /**
+     * Lazily computed values. They are volatile so that a value computed by one thread is seen fully built by
+     * the others, and computing one twice in a race is harmless since the result is always equal.
+     */
+    private volatile Term leadingTerm;
+    /* The non-zero terms in standard form */
+    private volatile List<Term> termView;
+    private volatile Polynomial derivative;
+    /* The dense coefficients of a sparse polynomial, for evaluation with Horner's scheme and the dense engines */
+    private volatile double[] denseView;
+    /* The evaluator whose bytecode is specialized to the coefficients, made by compile() */
+    private volatile DoubleUnaryOperator compiled;
+    private volatile int hash;
 
     /** The construction of a polynomial as a combination of Terms */
     public Polynomial(Term ... polyTerms) {
-        if (polyTerms.length >= 1) {
-            for (Term term : polyTerms) {
-                terms.add(term);
-            }
-        } 
-        else {
-            throw new IllegalArgumentException("A polynomial must have at least 1 term.");
-        }
-        updatePolynomial();
+        this(SparseCoefficients.fromTerms(nonEmpty(Arrays.asList(polyTerms))));
     }
 
     /** The construction of a polynomial using an array of Terms */
     public Polynomial(ArrayList<Term> polyTerms) {
-        if (polyTerms.size() >= 1) {
-            for (Term term : polyTerms) {
-                terms.add(term);
-            }
-        } 
+        this(SparseCoefficients.fromTerms(nonEmpty(polyTerms)));
+    }
+
+    /**
+     * The construction of a polynomial from its leading coefficient and its roots. The linear factors (x - root)
+     * are multiplied together in a balanced subproduct tree, so that large products use fast multiplication.
+     * @see SubproductTree
+     */
+    public Polynomial(double coefficient, double... roots) {
+        this(coefficient, roots.length == 0 ? null : new SubproductTree(roots));
+    }
+
+    /**
+     * The construction of a polynomial from its leading coefficient and a subproduct tree over its roots, which
+     * can be kept for evaluating or interpolating at the same points.
+     */
+    public Polynomial(double coefficient, SubproductTree rootTree) {
+        this(scaledProduct(coefficient, rootTree));
+    }
+
+    /**
+     * The construction of a polynomial directly from an array of coefficients, which is taken
+     * over without copying. Only used internally, where the array is known to not be modified
+     * afterwards. Leading zero coefficients don't contribute anything meaningful, so they are
+     * trimmed off, and the storage is picked from the number of non-zero coefficients.
+     */
+    Polynomial(double[] polyCoefficients) {
+        int highest = polyCoefficients.length - 1;
+        while (highest > 0 && polyCoefficients[highest] == 0) highest--;
+
+        if (highest < 0) {
+            coefficients = ZERO_COEFFICIENTS;
+            sparse = null;
+        }
+        else if (highest >= SPARSE_MIN_DEGREE && prefersSparse(countNonZero(polyCoefficients, highest), highest)) {
+            coefficients = null;
+            sparse = SparseCoefficients.fromDense(polyCoefficients, highest);
+        }
         else {
-            throw new IllegalArgumentException("A polynomial must have at least 1 term.");
+            coefficients = highest < polyCoefficients.length - 1 ? Arrays.copyOf(polyCoefficients, highest + 1) : polyCoefficients;
+            sparse = null;
         }
-        updatePolynomial();
+        degree = Math.max(highest, 0);
+        leadingCoeff = highest < 0 ? 0 : polyCoefficients[highest];
     }
 
-    public Polynomial(double coefficient, double... roots) {
-        /** Initialize the output with the coefficient as the first factor */
-        Polynomial output = new Polynomial(new Term(coefficient, 0));
-        for (double root : roots) {
-            /** For each root, multiply the polynomial by the factor form of the root */
-            output = output.multiply(new Polynomial(new Term(1, 1), new Term(-root, 0)));
+    /** The construction of a polynomial from sparse storage, which is converted to dense storage if it is too full */
+    Polynomial(SparseCoefficients polyTerms) {
+        if (prefersSparse(polyTerms.size(), polyTerms.degree())) {
+            coefficients = null;
+            sparse = polyTerms;
+        }
+        else {
+            coefficients = polyTerms.toDense();
+            sparse = null;
         }
-        terms = output.terms();
-        updatePolynomial();
+        degree = polyTerms.degree();
+        leadingCoeff = polyTerms.size() == 0 ? 0 : polyTerms.coefficients[polyTerms.size() - 1];
+    }
+
+    /**
+     * Produces a polynomial from its coefficients, given from the constant term upwards.
+     * @param coefficients the coefficients, such that coefficients[i] is the coefficient of x^i
+     * @return the polynomial with those coefficients
+     */
+    public static Polynomial fromCoefficients(double... coefficients) {
+        return new Polynomial(coefficients.clone());
     }
 
     public int getDegree() {
@@ -62,290 +144,703 @@ public class Polynomial {
     }
 
     public Term getLeadingTerm() {
-        return leadingTerm;
+        Term term = leadingTerm;
+        if (term == null) leadingTerm = term = new Term(leadingCoeff, degree);
+        return term;
+    }
+
+    /**
+     * Produces the coefficient of the term with a certain degree.
+     * @param termDegree the degree of the term
+     * @return the coefficient of x^termDegree, which is 0 if the polynomial has no such term
+     */
+    public double getCoefficient(int termDegree) {
+        if (termDegree < 0 || termDegree > degree) return 0;
+        return sparse != null ? sparse.get(termDegree) : coefficients[termDegree];
+    }
+
+    /**
+     * Produces a copy of the coefficients of the polynomial.
+     * @return an array such that the element at index i is the coefficient of x^i
+     */
+    public double[] getCoefficients() {
+        return coefficients().clone();
+    }
+
+    /**
+     * Asserts if the polynomial is stored sparsely, as the degrees and coefficients of its non-zero terms only.
+     * @return whether or not the polynomial is stored sparsely
+     */
+    public boolean isSparse() {
+        return sparse != null;
+    }
+
+    /**
+     * Produces the number of terms of the polynomial with a non-zero coefficient.
+     * @return the number of non-zero terms, which is 0 for the zero polynomial
+     */
+    public int getTermCount() {
+        return sparse != null ? sparse.size() : countNonZero(coefficients, degree);
+    }
+
+    /**
+     * The dense coefficients, ready for Horner's scheme and the arithmetic engines in this package. This is the
+     * backing array itself for densely stored polynomials, and a cached expansion for sparse ones. It must not be
+     * modified.
+     */
+    double[] coefficients() {
+        if (sparse == null) return coefficients;
+        double[] dense = denseView;
+        if (dense == null) denseView = dense = sparse.toDense();
+        return dense;
+    }
+
+    /* The non-zero terms in sparse form, built from the dense array for densely stored polynomials */
+    SparseCoefficients sparseCoefficients() {
+        return sparse != null ? sparse : SparseCoefficients.fromDense(coefficients, degree);
     }
 
     public ArrayList<Term> terms() {
-        return new ArrayList<Term>(terms);
+        return new ArrayList<Term>(termView());
     }
 
+    /**
+     * Produces this polynomial, which is immutable and can therefore be shared instead of copied.
+     * @return this polynomial
+     */
     public Polynomial clone() {
-        return new Polynomial(terms);
+        return this;
     }
 
     public Term getTerm(int index) {
-        return terms.get(index);
+        return termView().get(index);
     }
 
-    public void addTerm(Term Term) {
-        terms.add(Term);
-        updatePolynomial();
+    /**
+     * Produces the sum of the polynomial and a term.
+     * @param term the term that is added
+     * @return a new polynomial with the term added to it
+     */
+    public Polynomial withTerm(Term term) {
+        return sum(new Polynomial(term), 1);
     }
 
-    public void removeTerm(int index) {
-        terms.remove(index);
-        updatePolynomial();
+    /**
+     * Produces the polynomial without one of its terms.
+     * @param index the index of the term in standard form, as in getTerm
+     * @return a new polynomial without the term
+     */
+    public Polynomial withoutTerm(int index) {
+        return sum(new Polynomial(getTerm(index)), -1);
     }
 
     @Override
     public String toString() {
         ArrayList<String> stringRepresentations = new ArrayList<String>();
-        for (Term Term : terms) {
+        for (Term Term : termView()) {
             stringRepresentations.add(Term.toString());
         }
         return String.join( " + ", stringRepresentations);
     }
 
-    /* Update method, to be run upon initialization and when terms list is modified */
-    private void updatePolynomial() {
-        toStandardForm();
-        combineLikeTerms();
-        removeDuplicateZeroTerms();
-        /**
-         * To account for any operations that may add or remove a term, thereby possibly affecting the leading term
-         * and also the degree and leading coefficient of the polynomial. 
-         */
-        leadingTerm = terms.get(0);
-        degree = leadingTerm.getDegree();
-        leadingCoeff = leadingTerm.getCoefficient();
+    /* Checks that there is at least one term, before the terms are combined */
+    private static <T extends Iterable<Term>> T nonEmpty(T polyTerms) {
+        if (!polyTerms.iterator().hasNext()) throw new IllegalArgumentException("A polynomial must have at least 1 term.");
+        return polyTerms;
     }
 
-    /* Sort the list of terms by their degree */
-    private void toStandardForm() {
-        terms.sort(new SortByDegree());
+    /* The coefficients of the product at the root of a subproduct tree, multiplied by a leading coefficient */
+    private static double[] scaledProduct(double coefficient, SubproductTree rootTree) {
+        double[] product = rootTree == null ? new double[] {1} : rootTree.node(1);
+        /** Initialize the output with the coefficient as the first factor */
+        double[] output = new double[product.length];
+        for (int i = 0; i < product.length; i++) {
+            output[i] = coefficient * product[i];
+        }
+        return output;
     }
 
-    private ArrayList<Term> sumOfTermLists(ArrayList<Term> firstTerms, ArrayList<Term> secondTerms) {
-        ArrayList<Term> combinedTerms = new ArrayList<Term>();
-        combinedTerms.addAll(firstTerms);
-        combinedTerms.addAll(secondTerms);
-        return combinedTerms;
+    /* Whether a polynomial with a certain number of non-zero terms and a certain degree is better stored sparsely */
+    private static boolean prefersSparse(int termCount, int polyDegree) {
+        return polyDegree >= SPARSE_MIN_DEGREE && termCount <= SPARSE_FILL_RATIO * (polyDegree + 1);
     }
 
-    /* Removes any terms that have a coefficient of 0. Those terms don't contribute anything meaningful */
-    private void removeDuplicateZeroTerms() {
-        ArrayList<Term> redundantTerms = new ArrayList<Term>();
-        Term zero = new Term(0, 0);
-
-        for (Term term : terms) {
-            if (term.getCoefficient() == 0) redundantTerms.add(term);
+    private static int countNonZero(double[] polyCoefficients, int polyDegree) {
+        int count = 0;
+        for (int i = 0; i <= polyDegree; i++) {
+            if (polyCoefficients[i] != 0) count++;
         }
-        terms.removeAll(redundantTerms);
-        
-        /* Add a zero term to indicate that the polynomial is 0 if there are no other terms */
-        if (terms.isEmpty()) terms.add(zero);
-    }
-
-    private void combineLikeTerms() {
-        /* No need to invoke toStandardForm() here, because updatePolynomial() calls it before this method. */
-        ArrayList<Term> combinedLikeTerms = new ArrayList<Term>();
-        /* Create a copy of the terms,  */
-        ArrayList<Term> termsCopy = new ArrayList<Term>(terms);
-
-        /* The idea here is to repeatedly check for like terms, and remove terms that have already been checked. */
-        while (!termsCopy.isEmpty()) {
-            Term firstTerm = termsCopy.get(0); 
-            Term sumOfLikeTerms = termsCopy.get(0); /* sum is different from firstTerm, as terms may be added to it. */
-
-            /* We check the term AFTER the current term, to prevent duplication and terms getting doubled. */
-            for (int i = terms.indexOf(firstTerm) + 1; i < terms.size(); i++) {
-                /* If they are like terms (that is, they have the same degree), then combine the like terms.  */
-                if (firstTerm.getDegree() == terms.get(i).getDegree()) {
-                    sumOfLikeTerms = sumOfLikeTerms.add(terms.get(i));
-                    /* Remove the other like term from the termsCopy list so there is no duplication. */
-                    termsCopy.remove(terms.get(i));
-                } 
+        return count;
+    }
+
+    /* Builds the terms of the polynomial in standard form, leaving out the terms with a coefficient of 0 */
+    private List<Term> termView() {
+        List<Term> view = termView;
+        if (view == null) {
+            ArrayList<Term> built = new ArrayList<Term>();
+            if (sparse != null) {
+                for (int i = sparse.size() - 1; i >= 0; i--) built.add(new Term(sparse.coefficients[i], sparse.degrees[i]));
             }
-            /* Remove the first term, so that terms that have not been checked can proceed. */
-            termsCopy.remove(0);
-            combinedLikeTerms.add(sumOfLikeTerms);
+            else {
+                for (int i = degree; i >= 0; i--) {
+                    if (coefficients[i] != 0) built.add(new Term(coefficients[i], i));
+                }
+            }
+            /* Add a zero term to indicate that the polynomial is 0 if there are no other terms */
+            if (built.isEmpty()) built.add(new Term(0, 0));
+            termView = view = List.copyOf(built);
         }
-
-        /* Replace the current list of terms with the updated list of terms. */
-        terms = combinedLikeTerms;
+        return view;
     }
 
     /**
-     * Produces the evaluation of the Polynomial at a certain x value.
+     * Produces the evaluation of the Polynomial at a certain x value, using Horner's scheme.
      * @param a the value at which the Polynomial should be evaluated
      * @return the value of the Polynomial at x = a
+     * @see HornerEvaluator
      */
     public double valueAt(double a) {
-        double value = 0;
-        for (Term term : terms) {
-            value += term.valueAt(a);
+        if (sparse != null) return sparse.valueAt(a);
+        return HornerEvaluator.evaluate(coefficients, degree, a);
+    }
+
+    /**
+     * Produces an evaluator that is specialized to the exact coefficients of the Polynomial. Its bytecode is generated
+     * at runtime as Horner's scheme fully unrolled, with the coefficients as constants, so the JIT compiler can optimize
+     * it like handwritten code. It does the same arithmetic in the same order as valueAt(double), down to adding the
+     * zero coefficients, so the results are identical, including the sign of a zero. It is worth it for a Polynomial
+     * that is evaluated very many times. Polynomials too large to be unrolled get an evaluator that calls
+     * valueAt(double). The evaluator is generated once and then cached.
+     * @return the evaluator, whose applyAsDouble(a) is the value of the Polynomial at x = a
+     * @see PolynomialCompiler
+     */
+    public DoubleUnaryOperator compile() {
+        DoubleUnaryOperator evaluator = compiled;
+        if (evaluator == null) compiled = evaluator = PolynomialCompiler.compile(this);
+        return evaluator;
+    }
+
+    /**
+     * Produces the evaluation of the Polynomial at many x values at once, without allocating anything per value.
+     * The input and output may be the same array.
+     * @param xs the values at which the Polynomial should be evaluated
+     * @param out the array that the value of the Polynomial at xs[i] is written to, at index i
+     * @throws IllegalArgumentException if out is shorter than xs
+     */
+    public void valueAt(double[] xs, double[] out) {
+        if (out.length < xs.length) throw new IllegalArgumentException("The output array is shorter than the input array.");
+        if (sparse != null) {
+            for (int i = 0; i < xs.length; i++) out[i] = sparse.valueAt(xs[i]);
+            return;
+        }
+        double[] block = new double[Math.min(xs.length, HornerEvaluator.BLOCK_SIZE)];
+        HornerEvaluator.evaluate(coefficients, degree, xs, 0, out, 0, xs.length, block);
+    }
+
+    /**
+     * Produces the evaluation of the Polynomial at every remaining x value of a buffer, which may be direct or
+     * heap based. The positions of both buffers are advanced past the values that were read and written.
+     * @param xs the buffer holding the values at which the Polynomial should be evaluated
+     * @param out the buffer that the values of the Polynomial are written to, in the same order
+     * @throws IllegalArgumentException if out has fewer remaining elements than xs
+     */
+    public void valueAt(DoubleBuffer xs, DoubleBuffer out) {
+        int length = xs.remaining();
+        if (out.remaining() < length) throw new IllegalArgumentException("The output buffer has less room than the input buffer has values.");
+        if (sparse != null) {
+            while (xs.hasRemaining()) out.put(sparse.valueAt(xs.get()));
+            return;
+        }
+
+        double[] block = new double[Math.min(length, HornerEvaluator.BLOCK_SIZE)];
+        if (xs.hasArray() && out.hasArray() && !out.isReadOnly()) {
+            /* Heap buffers are evaluated straight from their backing arrays */
+            HornerEvaluator.evaluate(coefficients, degree, xs.array(), xs.arrayOffset() + xs.position(),
+                                     out.array(), out.arrayOffset() + out.position(), length, block);
+            xs.position(xs.position() + length);
+            out.position(out.position() + length);
+        }
+        else {
+            /* Other buffers are copied through the block in bulk, one block at a time */
+            double[] points = new double[block.length];
+            while (xs.hasRemaining()) {
+                int blockLength = Math.min(points.length, xs.remaining());
+                xs.get(points, 0, blockLength);
+                HornerEvaluator.evaluate(coefficients, degree, points, 0, points, 0, blockLength, block);
+                out.put(points, 0, blockLength);
+            }
+        }
+    }
+
+    /**
+     * Produces the Taylor coefficients of the Polynomial around a certain x value, p(a), p'(a), p''(a) / 2!, and so
+     * on, as many as fit in the output array. They are found in a single Horner style pass over the coefficients,
+     * without building any derivative Polynomials or allocating anything. If the array has more than degree + 1
+     * elements, the Polynomial is the sum of out[k] (x - a)^k, and the rest of the array is 0.
+     * @param a the value around which the Polynomial should be expanded
+     * @param out the array that p^(k)(a) / k! is written to, at index k
+     * @throws IllegalArgumentException if out is empty
+     * @see HornerEvaluator
+     */
+    public void taylorCoefficientsAt(double a, double[] out) {
+        if (out.length == 0) throw new IllegalArgumentException("The output array must not be empty.");
+        if (sparse != null) sparse.taylor(a, out, 0, out.length);
+        else HornerEvaluator.taylor(coefficients, 0, degree, a, out, 0, out.length);
+    }
+
+    /**
+     * Produces the value of the Polynomial and its first derivatives at a certain x value, p(a), p'(a), p''(a), and
+     * so on, as many as fit in the output array, in a single pass and without allocating anything. This gives
+     * everything a Newton or Halley step needs at once.
+     * @param a the value at which the Polynomial and its derivatives should be evaluated
+     * @param out the array that p^(k)(a) is written to, at index k
+     * @throws IllegalArgumentException if out is empty
+     */
+    public void derivativesAt(double a, double[] out) {
+        taylorCoefficientsAt(a, out);
+        HornerEvaluator.toDerivatives(out, 0, out.length);
+    }
+
+    /**
+     * Produces the first Taylor coefficients of the Polynomial around many x values at once, as above. The points are
+     * processed in blocks, so that the inner loops run over adjacent points.
+     * @param xs the values around which the Polynomial should be expanded
+     * @param count the number of Taylor coefficients per value
+     * @param out the array that p^(k)(xs[i]) / k! is written to, at index i * count + k
+     * @throws IllegalArgumentException if count is not positive, or out is shorter than count * xs.length
+     */
+    public void taylorCoefficientsAt(double[] xs, int count, double[] out) {
+        expandAt(xs, count, out, false);
+    }
+
+    /**
+     * Produces the value of the Polynomial and its first derivatives at many x values at once, as above.
+     * @param xs the values at which the Polynomial and its derivatives should be evaluated
+     * @param count the number of values per point, the value of the Polynomial and count - 1 derivatives
+     * @param out the array that p^(k)(xs[i]) is written to, at index i * count + k
+     * @throws IllegalArgumentException if count is not positive, or out is shorter than count * xs.length
+     */
+    public void derivativesAt(double[] xs, int count, double[] out) {
+        expandAt(xs, count, out, true);
+    }
+
+    /* The Taylor coefficients or the derivatives at many points */
+    private void expandAt(double[] xs, int count, double[] out, boolean derivatives) {
+        if (count < 1) throw new IllegalArgumentException("The number of values per point must be positive.");
+        if (out.length < (long) count * xs.length) throw new IllegalArgumentException("The output array is shorter than count values per input value.");
+        if (sparse != null) {
+            for (int i = 0; i < xs.length; i++) {
+                sparse.taylor(xs[i], out, i * count, count);
+                if (derivatives) HornerEvaluator.toDerivatives(out, i * count, count);
+            }
+            return;
         }
-        return value;
+        double[] block = new double[count * Math.min(xs.length, HornerEvaluator.BLOCK_SIZE)];
+        HornerEvaluator.taylor(coefficients, 0, degree, xs, 0, out, 0, xs.length, count, derivatives, block);
     }
-    
+
     /**
-     * Produces the general derivative of the Polynomial.
+     * Produces the general derivative of the Polynomial. It is computed once and then cached.
      * @return the Polynomial that is the general derivative of the Polynomial
      * @see Term.derivative
      */
     public Polynomial derivative() {
-        ArrayList<Term> derivativeTerms = new ArrayList<Term>();
-        for (Term term : terms) {
-            derivativeTerms.add(term.derivative());
+        Polynomial cached = derivative;
+        if (cached == null) derivative = cached = computeDerivative();
+        return cached;
+    }
+
+    private Polynomial computeDerivative() {
+        if (sparse != null) return new Polynomial(sparse.derivative());
+        if (degree == 0) return new Polynomial(ZERO_COEFFICIENTS);
+        double[] derivativeCoefficients = new double[degree];
+        for (int i = 1; i <= degree; i++) {
+            derivativeCoefficients[i - 1] = coefficients[i] * i;
         }
-        return new Polynomial(derivativeTerms);
+        return new Polynomial(derivativeCoefficients);
     }
 
-    /** 
+    /**
      * Produces the negation of the Polynomial (all the terms are just negated).
      * @return a Polynomial that represents the negation of this Polynomial
      */
     public Polynomial negation() {
-        ArrayList<Term> negatedTerms = new ArrayList<Term>();
-        for (Term term : terms) {
-            negatedTerms.add(term.negation());
+        if (sparse != null) return new Polynomial(sparse.scaled(-1));
+        double[] negatedCoefficients = new double[degree + 1];
+        for (int i = 0; i <= degree; i++) {
+            negatedCoefficients[i] = -coefficients[i];
         }
-        return new Polynomial(negatedTerms);
+        return new Polynomial(negatedCoefficients);
     }
 
-    /** 
+    /**
      * Produces the sum of two Polynomials.
      * @param addend the Polynomial that is being added
      * @return the sum of the Polynomials
-     * @see sumOfTermLists 
-     * @see combineLikeTerms
      */
-    public Polynomial add(Polynomial addend) {        
-        return new Polynomial(sumOfTermLists( terms, addend.terms() ));
+    public Polynomial add(Polynomial addend) {
+        return sum(addend, 1);
     }
 
-    /** 
+    /**
      * Produces the difference of two Polynomials.
      * @param subtrahend the Polynomial that is the subtrahend
      * @return the difference of the Polynomials
-     * @see sumOfTermLists 
-     * @see combineLikeTerms
      */
     public Polynomial subtract(Polynomial subtrahend) {
-        return new Polynomial(sumOfTermLists(terms, subtrahend.negation().terms()));
+        return sum(subtrahend, -1);
+    }
+
+    /* Adds a multiple of another polynomial, merging the terms if either of the two is stored sparsely */
+    private Polynomial sum(Polynomial other, double otherFactor) {
+        if (sparse == null && other.sparse == null) {
+            return new Polynomial(sumOfCoefficients(coefficients, other.coefficients, otherFactor));
+        }
+        return new Polynomial(SparseCoefficients.sum(sparseCoefficients(), other.sparseCoefficients(), otherFactor));
+    }
+
+    /* Adds like terms of two coefficient arrays together, with the second array scaled by a factor */
+    private static double[] sumOfCoefficients(double[] first, double[] second, double secondFactor) {
+        double[] sum = Arrays.copyOf(first, Math.max(first.length, second.length));
+        for (int i = 0; i < second.length; i++) {
+            sum[i] += secondFactor * second[i];
+        }
+        return sum;
     }
 
-    /** 
-     * Produces the product of two Polynomials.
+    /**
+     * Produces the product of two Polynomials. If either factor is stored sparsely and the number of term products
+     * is small compared to the dense size of the product, the terms are multiplied with Johnson's heap method.
+     * Otherwise the dense coefficients are multiplied with the fastest method for their size.
      * @param multiplicand the other factor
      * @return the product of the two Polynomials
+     * @see PolynomialMultiplier
+     * @see SparseCoefficients
      */
     public Polynomial multiply(Polynomial multiplicand) {
-        ArrayList<Term> multiplierTerms = terms;
-        ArrayList<Term> multiplicandTerms = multiplicand.terms();
-        ArrayList<Term> productPolynomialTerms = new ArrayList<Term>();
+        long start = PolynomialMetrics.start();
+        Polynomial product = product(multiplicand);
+        PolynomialMetrics.record(PolynomialMetrics.Operation.MULTIPLY, product.degree, start);
+        return product;
+    }
 
-        for (Term thisTerm : multiplierTerms) {
-            for (Term multiplicandTerm : multiplicandTerms) {
-                productPolynomialTerms.add(thisTerm.multiply(multiplicandTerm));
+    private Polynomial product(Polynomial multiplicand) {
+        if (sparse != null || multiplicand.sparse != null) {
+            SparseCoefficients first = sparseCoefficients();
+            SparseCoefficients second = multiplicand.sparseCoefficients();
+            long productLength = (long) degree + multiplicand.degree + 1;
+            long denseCost = productLength * (64 - Long.numberOfLeadingZeros(productLength));
+            if ((long) first.size() * second.size() <= denseCost || productLength > Integer.MAX_VALUE - 8) {
+                return new Polynomial(SparseCoefficients.multiply(first, second));
             }
         }
-        return new Polynomial(productPolynomialTerms);
+        return new Polynomial(PolynomialMultiplier.multiply(coefficients(), multiplicand.coefficients()));
     }
 
-    /** 
+    /**
      * Produces the quotient and remainder of the division of two Polynomials.
      * @param divisor the Polynomial that this is being divided by
      * @return PolyQuotientRemainder a key-value pair type object. This object has the methods getQuotient() and getRemainder()
      * to access the respective parts. The quotient and the remainder are also Polynomials
+     * @throws IllegalArgumentException if the divisor is the zero polynomial
      * @see PolyQuotientRemainder
+     * @see PolynomialDivider
      */
     public PolyQuotientRemainder divide(Polynomial divisor) {
-        ArrayList<Term> quotientTerms = new ArrayList<Term>();
-        Polynomial dividend = clone();
-
-        /** Use the division algorithm to multiply the divisor by a factor (which is a term of the quotient) such that the 
-         * leading terms of the dividend and the new divisor cancel out, and repeat until this isn't possible. */
-        while (dividend.getDegree() >= divisor.getDegree()) {
-            double quotientTermCoeff = dividend.getLeadingCoeff() / divisor.getLeadingCoeff();
-            int quotientTermDegree = dividend.getDegree() - divisor.getDegree();
-            Term quotientTerm = new Term(quotientTermCoeff, quotientTermDegree); 
-
-            quotientTerms.add(quotientTerm);
-            dividend = dividend.subtract(divisor.multiply(new Polynomial(quotientTerm)));
+        if (divisor.degree == 0 && divisor.leadingCoeff == 0) {
+            throw new IllegalArgumentException("Division by the zero polynomial is undefined.");
         }
+        if (degree < divisor.degree) {
+            return new PolyQuotientRemainder(new Polynomial(ZERO_COEFFICIENTS), this);
+        }
+
+        long start = PolynomialMetrics.start();
+        double[][] quotientRemainder = PolynomialDivider.divide(coefficients(), divisor.coefficients());
+        PolyQuotientRemainder result = new PolyQuotientRemainder(new Polynomial(quotientRemainder[0]), new Polynomial(quotientRemainder[1]));
+        PolynomialMetrics.record(PolynomialMetrics.Operation.DIVIDE, degree, start);
+        return result;
+    }
 
-        return new PolyQuotientRemainder(new Polynomial(quotientTerms), dividend);
+    /**
+     * Produces the approximate greatest common divisor of two Polynomials, with the default tolerance.
+     * @param other the other Polynomial
+     * @return the monic greatest common divisor, 1 if the Polynomials are coprime, or 0 if both are 0
+     * @see PolynomialGcd
+     */
+    public Polynomial gcd(Polynomial other) {
+        return gcd(other, PolynomialGcd.DEFAULT_TOLERANCE);
     }
 
-    /** 
-     * Produces the result of the assertion that this Polynomial is equal to the other Polynomial.
+    /**
+     * Produces the approximate greatest common divisor of two Polynomials, with the Euclidean algorithm. The
+     * coefficients are floating point values, so a remainder is taken to be 0 once it is small relative to the
+     * division and its divisor divides both Polynomials to within the tolerance. For exact results on integer
+     * coefficients, use ModularPolynomial.gcd.
+     * @param other the other Polynomial
+     * @param tolerance the tolerance of the remainders, relative to the scale of each division
+     * @return the monic greatest common divisor, 1 if the Polynomials are coprime, or 0 if both are 0
+     * @throws IllegalArgumentException if the tolerance is not positive
+     * @see PolynomialGcd
+     */
+    public Polynomial gcd(Polynomial other, double tolerance) {
+        if (!(tolerance > 0)) throw new IllegalArgumentException("The tolerance must be positive.");
+        return new Polynomial(PolynomialGcd.gcd(coefficients(), other.coefficients(), tolerance));
+    }
+
+    /**
+     * Produces the square-free decomposition of the Polynomial with Yun's algorithm, using approximate greatest
+     * common divisors with the default tolerance. The Polynomial is its leading coefficient times f1 f2^2 f3^3 ...,
+     * where the factors are monic, square-free and pairwise coprime, so that the roots of fi are exactly the roots of
+     * the Polynomial with multiplicity i.
+     * @return the factors, where the factor at index i is f(i + 1), which is 1 if there are no roots of that
+     * multiplicity. The list is empty for a constant Polynomial
+     * @see PolynomialGcd
+     */
+    public ArrayList<Polynomial> squareFreeDecomposition() {
+        ArrayList<Polynomial> factors = new ArrayList<Polynomial>();
+        if (degree < 1) return factors;
+        for (double[] factor : PolynomialGcd.squareFree(coefficients(), PolynomialGcd.DEFAULT_TOLERANCE)) {
+            factors.add(new Polynomial(factor));
+        }
+        return factors;
+    }
+
+    /**
+     * Produces the result of the assertion that this Polynomial is equal to the other Polynomial, allowing for
+     * a small difference between the coefficients of like terms.
      * @param otherPolynomial the Polynomial that this Polynomial is being compared to
-     * @return whether or not the two Polynomials are equal
+     * @return whether or not the two Polynomials are equal, up to a tolerance of MathConstants.EPSILON
      * @see Term.equals
      */
     public boolean equals(Polynomial otherPolynomial) {
-        if (terms.size() == otherPolynomial.terms().size()) {
-            ArrayList<Term> otherPolynomialTerms = otherPolynomial.terms();
+        return matches(otherPolynomial, false);
+    }
 
-            for (int i = 0; i < terms.size(); i++) {
-                if (!(terms.get(i).equals(otherPolynomialTerms.get(i)))) return false;
+    /**
+     * Asserts if an object is a polynomial with exactly the same coefficients. Unlike equals(Polynomial) there
+     * is no tolerance, so that equal polynomials have equal hash codes and can be used as keys in hash tables.
+     * @param other the object that this Polynomial is being compared to
+     * @return whether or not the object is a Polynomial with the same degree and coefficients
+     */
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) return true;
+        if (!(other instanceof Polynomial)) return false;
+        Polynomial otherPolynomial = (Polynomial) other;
+        return hashCode() == otherPolynomial.hashCode() && matches(otherPolynomial, true);
+    }
+
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0) {
+            /* Only the non-zero terms contribute, so that 0 and -0 coefficients hash the same */
+            h = 1;
+            if (sparse != null) {
+                for (int i = 0; i < sparse.size(); i++) h = 31 * (31 * h + sparse.degrees[i]) + Double.hashCode(sparse.coefficients[i]);
+            }
+            else {
+                for (int i = 0; i <= degree; i++) {
+                    if (coefficients[i] != 0) h = 31 * (31 * h + i) + Double.hashCode(coefficients[i]);
+                }
+            }
+            hash = h;
+        }
+        return h;
+    }
+
+    /* Compares the coefficients of like terms, either exactly or within MathConstants.EPSILON */
+    private boolean matches(Polynomial otherPolynomial, boolean exact) {
+        if (degree != otherPolynomial.degree) return false;
+        if (sparse == null && otherPolynomial.sparse == null) {
+            for (int i = 0; i <= degree; i++) {
+                if (!sameCoefficient(coefficients[i], otherPolynomial.coefficients[i], exact)) return false;
             }
             return true;
         }
-        else return false;
+        /* Walk the non-zero terms of both in order of degree, where a term missing from one side counts as 0 */
+        SparseCoefficients first = sparseCoefficients();
+        SparseCoefficients second = otherPolynomial.sparseCoefficients();
+        int i = 0;
+        int j = 0;
+        while (i < first.size() || j < second.size()) {
+            double a = 0;
+            double b = 0;
+            if (j == second.size() || (i < first.size() && first.degrees[i] < second.degrees[j])) a = first.coefficients[i++];
+            else if (i == first.size() || second.degrees[j] < first.degrees[i]) b = second.coefficients[j++];
+            else {
+                a = first.coefficients[i++];
+                b = second.coefficients[j++];
+            }
+            if (!sameCoefficient(a, b, exact)) return false;
+        }
+        return true;
+    }
+
+    /* Exact comparison treats 0 and -0 as equal, and NaN as equal to itself, to stay consistent with hashCode */
+    private static boolean sameCoefficient(double a, double b, boolean exact) {
+        if (exact) return a == b || (a != a && b != b);
+        return MathUtil.isClose(a, b, MathConstants.EPSILON);
     }
 
     /**
-     * Produces the result of the polynomial raised to a power.
-     * @param power by what the degree the polynomial is raised 
+     * Produces the result of the polynomial raised to a power. Monomials and binomials are expanded directly
+     * with the binomial theorem, and any other polynomial is raised by repeated squaring.
+     * @param power by what the degree the polynomial is raised
      * @return a polynomial that is this polynomial raised to the power
+     * @throws IllegalArgumentException if the power is negative
      */
     public Polynomial pow(int power) {
-        /* Currently, this method is run iteratively. This is really slow for higher powers, but I suppose there isn't anyway to circumnavigate that */
-        Polynomial result = clone();
-        for (int i = 1; i < power; i++) {
-            result = result.multiply(this);
+        if (power < 0) throw new IllegalArgumentException("A polynomial can only be raised to a whole number power.");
+        if (power == 0) return new Polynomial(new double[] {1});
+
+        if ((long) degree * power > Integer.MAX_VALUE - 8) throw new IllegalArgumentException("The degree of the power is too large.");
+
+        /* Check for the closed form cases of (at most two) non-zero terms */
+        SparseCoefficients polyTerms = sparseCoefficients();
+        if (polyTerms.size() <= 1) return monomialPow(power);
+        if (polyTerms.size() == 2) return binomialPow(polyTerms.degrees[0], power);
+
+        /** Exponentiation by squaring: the bits of the power decide whether the current square of the
+         * polynomial is a factor of the result, so only O(log(power)) multiplications are needed. */
+        Polynomial result = null;
+        Polynomial square = this;
+        int remaining = power;
+        while (true) {
+            if ((remaining & 1) == 1) {
+                result = result == null ? square : result.multiply(square);
+            }
+            remaining >>= 1;
+            if (remaining == 0) break;
+            square = square.multiply(square);
         }
         return result;
     }
 
+    /* (cx^d)^k = c^k x^(dk) */
+    private Polynomial monomialPow(int power) {
+        double coefficient = Math.pow(leadingCoeff, power);
+        if (coefficient == 0) return new Polynomial(ZERO_COEFFICIENTS);
+        return new Polynomial(new SparseCoefficients(new int[] {degree * power}, new double[] {coefficient}));
+    }
+
     /**
-     * Produces a list of doubles containing approximations of the real roots of the polynomial.
-     * This method uses Newton's Method to approximate the real roots, and does so recursively.
-     * This function's time complexity is based on A. the degree of the polynomial and B. how far
-     * the roots are from 0. 
-     * @return a list of the real roots of the polynomial
+     * (ax^m + bx^n)^k is the sum of C(k, i) a^(k-i) b^i x^(m(k-i) + ni), for i from 0 to k, so each of the
+     * k + 1 coefficients is produced directly instead of through k multiplications. The terms are built in sparse
+     * form, which is converted to dense storage if the gap between m and n is small enough.
      */
-    public ArrayList<Double> realRoots() {
-        ArrayList<Double> roots = new ArrayList<Double>();
+    private Polynomial binomialPow(int lowDegree, int power) {
+        double high = leadingCoeff;
+        double low = getCoefficient(lowDegree);
+        int[] termDegrees = new int[power + 1];
+        double[] termCoefficients = new double[power + 1];
+        int length = 0;
+        /** The binomial coefficients and the powers of a and b overflow or underflow long before the terms do, so each
+         * term follows from the previous one, t(i + 1) = t(i) * (k - i) / (i + 1) * b / a, starting from t(0) = a^k.
+         * The running term is kept as a mantissa near 1 and a separate binary exponent, which can't overflow. */
+        double mantissa = 1;
+        long exponent = 0;
+        for (int i = 0; i < power; i++) {
+            mantissa *= high;
+            exponent += Math.getExponent(mantissa);
+            mantissa = Math.scalb(mantissa, -Math.getExponent(mantissa));
+        }
+        for (int i = 0; i <= power; i++) {
+            double coefficient = Math.scalb(mantissa, (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, exponent)));
+            /* The degrees decrease with i, so the terms are stored from the back to keep them in increasing order */
+            if (coefficient != 0) {
+                length++;
+                termDegrees[power + 1 - length] = degree * (power - i) + lowDegree * i;
+                termCoefficients[power + 1 - length] = coefficient;
+            }
+            mantissa = mantissa * (power - i) / (i + 1) * low;
+            exponent += Math.getExponent(mantissa);
+            mantissa = Math.scalb(mantissa, -Math.getExponent(mantissa)) / high;
+            exponent += Math.getExponent(mantissa);
+            mantissa = Math.scalb(mantissa, -Math.getExponent(mantissa));
+        }
+        int start = power + 1 - length;
+        return new Polynomial(new SparseCoefficients(Arrays.copyOfRange(termDegrees, start, power + 1),
+                                                     Arrays.copyOfRange(termCoefficients, start, power + 1)));
+    }
+
+    /**
+     * Produces the composition of the Polynomial with another, p(q(x)) where p is this Polynomial. The outer
+     * Polynomial is split in halves, p(q) = low(q) + q^k high(q), on top of fast multiplication, instead of expanding
+     * every power of q. Inner Polynomials that are linear or a single term have direct formulas.
+     * @param inner the Polynomial q that is substituted for x
+     * @return the Polynomial p(q(x)), of degree deg p * deg q
+     * @throws IllegalArgumentException if the degree of the composition is too large to be stored
+     * @see PolynomialComposer
+     */
+    public Polynomial compose(Polynomial inner) {
+        return new Polynomial(PolynomialComposer.compose(coefficients(), inner.coefficients()));
+    }
+
+    /**
+     * Produces the Taylor shift of the Polynomial, p(x + a), which re-centers it so that the coefficients of the result
+     * are the Taylor coefficients of p around a. They are found in a single pass of interleaved synthetic divisions,
+     * in O(n^2) multiply-adds, that allocates nothing but the result.
+     * @param a the shift, such that the value of the result at x is the value of the Polynomial at x + a
+     * @return the Polynomial p(x + a)
+     * @see PolynomialComposer
+     */
+    public Polynomial shift(double a) {
+        if (a == 0) return this;
+        return new Polynomial(PolynomialComposer.shift(coefficients(), a));
+    }
 
-        /* The root of a linear function ax+b is given by the formula -b/a */
-        if (degree == 1) {
-            roots.add(-terms.get(1).getCoefficient() / terms.get(0).getCoefficient());
+    /**
+     * Produces a list of approximations of all the complex roots of the polynomial, counted with multiplicity.
+     * All the roots are found at once with the Aberth-Ehrlich method, which converges in a bounded number of passes.
+     * @return a list of the roots of the polynomial, sorted by their real parts and then their imaginary parts
+     * @see AberthRootFinder
+     */
+    public ArrayList<Complex> complexRoots() {
+        ArrayList<Complex> roots = new ArrayList<Complex>();
+        RootSearchStats stats = PolynomialMetrics.startRootSearch();
+        double[][] parts = AberthRootFinder.roots(coefficients(), degree, stats);
+        for (int i = 0; i < degree; i++) {
+            roots.add(new Complex(parts[0][i], parts[1][i]));
         }
-        else {
-            /* For now, an initial guess of 0 will be taken. If the derivative at the guess is 0, then guess again */
-            double guess = 0;
+        roots.sort(Comparator.comparingDouble(Complex::getReal).thenComparingDouble(Complex::getImaginary));
+        PolynomialMetrics.record(PolynomialMetrics.Operation.COMPLEX_ROOTS, degree, stats);
+        return roots;
+    }
 
-            /** The reason we don't use a guess at which the derivative is zero is because f'(x) is a denominator 
-             * when finding the next x value. So, we choose a different value to prevent a divison by zero error */
-            while (derivative().valueAt(guess) == 0) guess++;
-            double x = guess;
+    /**
+     * Produces disjoint intervals that each hold exactly one distinct real root of the polynomial, found by bisection
+     * with the root counts of a Sturm sequence.
+     * @return the isolating intervals, in increasing order
+     * @throws IllegalArgumentException if a coefficient is infinite or NaN
+     * @see RootIsolator
+     */
+    public ArrayList<RootInterval> realRootIntervals() {
+        return new RootIsolator(coefficients(), degree).isolate();
+    }
 
-            /* The core of Newton's method; we find an x value closer to the root using the previous x value */
-            for (int i = 0; i < MathConstants.MAX_ITER; i++) {
-                x = x - valueAt(x) / derivative().valueAt(x);
+    /**
+     * Produces a list of doubles containing approximations of the real roots of the polynomial, counted with
+     * multiplicity. The polynomial is split into square-free factors, whose roots are all simple and have a known
+     * multiplicity. The roots of each factor are isolated into intervals with a Sturm sequence, and each interval is
+     * then refined on its own, in parallel for higher degrees. If the Sturm sequence breaks down and finds fewer roots
+     * than Aberth's method, as it can on ill-conditioned polynomials, the roots are bracketed with the derivatives instead.
+     * @return a list of the real roots of the polynomial
+     * @throws IllegalArgumentException if a coefficient is infinite or NaN
+     * @see RootIsolator
+     */
+    public ArrayList<Double> realRoots() {
+        ArrayList<Double> roots = new ArrayList<Double>();
+        RootSearchStats stats = PolynomialMetrics.startRootSearch();
 
-                /* If the value of the function at x is sufficiently close to 0, we can stop interating */
-                if (MathUtil.isClose(valueAt(x), 0, MathConstants.EPSILON)) break;
-            }
+        for (double x : RootIsolator.realRoots(coefficients(), degree, stats)) {
             /* Some values may be extremely close to the root (i.e. 2.99999999...), so they'll just be rounded off */
             if (MathUtil.isClose(x, MathUtil.roundToInt(x), MathConstants.ROUNDING_THRESHOLD)) x = MathUtil.roundToInt(x);
             roots.add(x);
-
-            /** According to the factor theorem, the roots of a polynomial are also the factor when expressed as a linear factor
-             * such that a root r of p(x) means that (x-r) is a factor of p(x) */
-            Polynomial rootAsLinearFactor = new Polynomial(new Term(1, 1), new Term(-x, 0));
-
-            /** We will recursively find the roots of the polynomial divided by the linear factor we found. We keep doing this until
-             * the resulting polynomial has a degree of 1. A first degree polynomial is the base case, allowing us to find the root
-             * by formula. The division allows us to exclude the root we just found, so there are no duplicates. */
-            roots.addAll(this.divide(rootAsLinearFactor).getQuotient().realRoots());
         }
-        /* If the function is a linear function, then nothing else is executed and an empty list is returned */
         Collections.sort(roots);
+        PolynomialMetrics.record(PolynomialMetrics.Operation.REAL_ROOTS, degree, stats);
         return roots;
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,218 @@
+package polynomial.src;
+
+import java.util.Arrays;
+
+/**
+ * A mutable running sum of terms and polynomials. Unlike the arithmetic of Polynomial, which produces a new
+ * polynomial for every operation, the accumulator adds into a primitive buffer of coefficients in place. The buffer
+ * grows as needed and is only trimmed when toPolynomial is called, so that a loop of additions produces no garbage
+ * once the buffer is large enough. An accumulator is not safe for use by multiple threads at once.
+ */
+public class PolynomialAccumulator {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /* coefficients[i] is the coefficient of x^i, for i below length. Everything from length upwards is 0. */
+    private double[] coefficients;
+    private int length;
+
+    /** The construction of an accumulator that starts at 0 */
+    public PolynomialAccumulator() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * The construction of an accumulator that starts at 0, with room for the terms up to a certain degree.
+     * @param expectedDegree the degree up to which the buffer is allocated in advance
+     */
+    public PolynomialAccumulator(int expectedDegree) {
+        if (expectedDegree < 0) throw new IllegalArgumentException("The expected degree can't be negative.");
+        coefficients = new double[expectedDegree + 1];
+        length = 0;
+    }
+
+    /** The construction of an accumulator that starts at a polynomial */
+    public PolynomialAccumulator(Polynomial initial) {
+        this(initial.getDegree());
+        add(initial);
+    }
+
+    /**
+     * Produces the coefficient of the term with a certain degree in the running sum.
+     * @param termDegree the degree of the term
+     * @return the coefficient of x^termDegree
+     */
+    public double getCoefficient(int termDegree) {
+        if (termDegree < 0 || termDegree >= length) return 0;
+        return coefficients[termDegree];
+    }
+
+    /**
+     * Produces the degree of the running sum, ignoring leading coefficients that have cancelled out to 0.
+     * @return the degree, which is 0 for the zero polynomial
+     */
+    public int getDegree() {
+        int highest = length - 1;
+        while (highest > 0 && coefficients[highest] == 0) highest--;
+        return Math.max(highest, 0);
+    }
+
+    /**
+     * Adds a term to the running sum.
+     * @param term the term that is added
+     * @return this accumulator
+     */
+    public PolynomialAccumulator addTerm(Term term) {
+        return addTerm(term.getCoefficient(), term.getDegree());
+    }
+
+    /**
+     * Adds the term coefficient * x^termDegree to the running sum.
+     * @param coefficient the coefficient of the term
+     * @param termDegree the degree of the term, which must be a whole number
+     * @return this accumulator
+     */
+    public PolynomialAccumulator addTerm(double coefficient, int termDegree) {
+        if (termDegree < 0) throw new IllegalArgumentException("A term can only have a degree/exponent within the set of whole numbers.");
+        if (coefficient == 0) return this;
+        ensureLength(termDegree + 1);
+        coefficients[termDegree] += coefficient;
+        return this;
+    }
+
+    public PolynomialAccumulator add(Polynomial addend) {
+        return addScaled(addend, 1);
+    }
+
+    public PolynomialAccumulator subtract(Polynomial subtrahend) {
+        return addScaled(subtrahend, -1);
+    }
+
+    /**
+     * Adds a multiple of a polynomial to the running sum, as in an axpy operation.
+     * @param polynomial the polynomial that is added
+     * @param factor the factor by which the polynomial is multiplied before it is added
+     * @return this accumulator
+     */
+    public PolynomialAccumulator addScaled(Polynomial polynomial, double factor) {
+        if (polynomial.isSparse()) {
+            /* Only the non-zero terms are added, without building the dense coefficients */
+            SparseCoefficients polyTerms = polynomial.sparseCoefficients();
+            ensureLength(polyTerms.degree() + 1);
+            for (int i = 0; i < polyTerms.size(); i++) {
+                coefficients[polyTerms.degrees[i]] += factor * polyTerms.coefficients[i];
+            }
+            return this;
+        }
+        double[] other = polynomial.coefficients();
+        int otherLength = polynomial.getDegree() + 1;
+        ensureLength(otherLength);
+        for (int i = 0; i < otherLength; i++) {
+            coefficients[i] += factor * other[i];
+        }
+        return this;
+    }
+
+    /**
+     * Adds the product of two polynomials to the running sum, as in a fused multiply-add. Products whose smaller
+     * factor is below the Karatsuba threshold are added in place term by term, without building the product first.
+     * Larger products are built with fast multiplication and then added.
+     * @param first the first factor
+     * @param second the second factor
+     * @return this accumulator
+     * @see PolynomialMultiplier
+     */
+    public PolynomialAccumulator addProduct(Polynomial first, Polynomial second) {
+        double[] a = first.coefficients();
+        double[] b = second.coefficients();
+        int aLength = first.getDegree() + 1;
+        int bLength = second.getDegree() + 1;
+        ensureLength(aLength + bLength - 1);
+
+        if (Math.min(aLength, bLength) < PolynomialMultiplier.getKaratsubaThreshold()) {
+            for (int i = 0; i < aLength; i++) {
+                double coefficient = a[i];
+                if (coefficient == 0) continue;
+                for (int j = 0; j < bLength; j++) {
+                    coefficients[i + j] += coefficient * b[j];
+                }
+            }
+        }
+        else {
+            double[] product = PolynomialMultiplier.multiply(Arrays.copyOf(a, aLength), Arrays.copyOf(b, bLength));
+            for (int i = 0; i < product.length; i++) coefficients[i] += product[i];
+        }
+        return this;
+    }
+
+    /**
+     * Multiplies the running sum by a term in place, shifting every coefficient up by the degree of the term.
+     * @param term the term by which the running sum is multiplied
+     * @return this accumulator
+     */
+    public PolynomialAccumulator mulByTerm(Term term) {
+        return mulByTerm(term.getCoefficient(), term.getDegree());
+    }
+
+    /**
+     * Multiplies the running sum by the term coefficient * x^termDegree in place.
+     * @param coefficient the coefficient of the term
+     * @param termDegree the degree of the term, which must be a whole number
+     * @return this accumulator
+     */
+    public PolynomialAccumulator mulByTerm(double coefficient, int termDegree) {
+        if (termDegree < 0) throw new IllegalArgumentException("A term can only have a degree/exponent within the set of whole numbers.");
+        if (coefficient == 0) return clear();
+        if (termDegree > 0 && length > 0) {
+            int oldLength = length;
+            ensureLength(oldLength + termDegree);
+            /* The ranges overlap, which arraycopy handles as if through a temporary copy */
+            System.arraycopy(coefficients, 0, coefficients, termDegree, oldLength);
+            Arrays.fill(coefficients, 0, termDegree, 0);
+        }
+        if (coefficient != 1) scale(coefficient);
+        return this;
+    }
+
+    /**
+     * Multiplies the running sum by a constant in place.
+     * @param factor the constant
+     * @return this accumulator
+     */
+    public PolynomialAccumulator scale(double factor) {
+        for (int i = 0; i < length; i++) coefficients[i] *= factor;
+        return this;
+    }
+
+    /**
+     * Resets the running sum to 0, keeping the buffer so that it can be reused.
+     * @return this accumulator
+     */
+    public PolynomialAccumulator clear() {
+        Arrays.fill(coefficients, 0, length, 0);
+        length = 0;
+        return this;
+    }
+
+    /**
+     * Produces the running sum as a polynomial. This is the only point at which leading zero coefficients are
+     * trimmed, and the accumulator can keep being used afterwards without affecting the polynomial.
+     * @return the polynomial that holds a copy of the running sum
+     */
+    public Polynomial toPolynomial() {
+        return new Polynomial(Arrays.copyOf(coefficients, getDegree() + 1));
+    }
+
+    @Override
+    public String toString() {
+        return toPolynomial().toString();
+    }
+
+    /* Grows the buffer, at least doubling it, so that it holds a certain number of coefficients */
+    private void ensureLength(int required) {
+        if (required > coefficients.length) {
+            coefficients = Arrays.copyOf(coefficients, Math.max(required, 2 * coefficients.length));
+        }
+        if (required > length) length = required;
+    }
+}
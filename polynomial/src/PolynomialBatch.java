@@ -0,0 +1,456 @@
+package polynomial.src;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * An immutable batch of independent polynomials, which are operated on all at once in parallel. The polynomials are
+ * stored in a structure of arrays layout: the coefficients of all of them are packed one after the other into a
+ * single array, with an array of the index that each polynomial starts at, so a batch of a million polynomials is a
+ * handful of arrays instead of a million objects, and each polynomial is read from one contiguous range. Sparse
+ * polynomials keep their sparse storage, with the degrees of their terms packed into a second pair of arrays.
+ *
+ * Every operation splits the batch into chunks of polynomials, which are run as fork-join tasks with work stealing,
+ * so chunks of expensive polynomials don't hold up the other threads. The number of threads and the number of
+ * polynomials per chunk can be configured per batch. Alternatively, every chunk can be run on a virtual thread of its
+ * own, for pipelines that mix I/O with computation, on Java versions that have virtual threads; elsewhere the batch
+ * falls back to the fork-join pool.
+ */
+public final class PolynomialBatch {
+
+    private static volatile int defaultChunkSize = Integer.getInteger("polynomial.batchChunkSize", 64);
+
+    /* The fork-join pools for parallelisms other than the one of the common pool, created when first used */
+    private static final ConcurrentHashMap<Integer, ForkJoinPool> POOLS = new ConcurrentHashMap<Integer, ForkJoinPool>();
+    /* Executors.newVirtualThreadPerTaskExecutor, or null if the runtime has no virtual threads */
+    private static final Method VIRTUAL_THREAD_EXECUTOR = virtualThreadExecutorFactory();
+
+    private final int size;
+    private final int[] degrees;
+    /* The coefficients of polynomial i are at starts[i] until starts[i + 1]: all of them for dense polynomials, and
+       those of the non-zero terms for sparse ones */
+    private final int[] starts;
+    private final double[] coefficients;
+    /* The degrees of the terms of sparse polynomial i are at termStarts[i] until termStarts[i + 1], and the range is
+       empty for dense polynomials */
+    private final int[] termStarts;
+    private final int[] termDegrees;
+
+    private final int parallelism;
+    private final int chunkSize;
+    private final boolean virtualThreads;
+
+    /**
+     * Packs polynomials into a batch, which runs on the common fork-join pool with the default chunk size.
+     * @param polynomials the polynomials, in the order that they are indexed in the batch
+     * @throws IllegalArgumentException if the polynomials have too many coefficients in total to be packed
+     */
+    public PolynomialBatch(Polynomial ... polynomials) {
+        this(Arrays.asList(polynomials));
+    }
+
+    /**
+     * Packs polynomials into a batch, which runs on the common fork-join pool with the default chunk size.
+     * @param polynomials the polynomials, in the order that they are indexed in the batch
+     * @throws IllegalArgumentException if the polynomials have too many coefficients in total to be packed
+     */
+    public PolynomialBatch(List<Polynomial> polynomials) {
+        this(polynomials, ForkJoinPool.getCommonPoolParallelism(), defaultChunkSize, false);
+    }
+
+    /* Packs polynomials into a batch with a certain configuration, copying their coefficients in parallel */
+    private PolynomialBatch(List<Polynomial> polynomials, int argParallelism, int argChunkSize, boolean argVirtualThreads) {
+        Polynomial[] packed = polynomials.toArray(new Polynomial[0]);
+        size = packed.length;
+        degrees = new int[size];
+        starts = new int[size + 1];
+        termStarts = new int[size + 1];
+        try {
+            for (int i = 0; i < size; i++) {
+                Polynomial polynomial = packed[i];
+                degrees[i] = polynomial.getDegree();
+                int termCount = polynomial.isSparse() ? polynomial.getTermCount() : 0;
+                starts[i + 1] = Math.addExact(starts[i], polynomial.isSparse() ? termCount : polynomial.getDegree() + 1);
+                termStarts[i + 1] = termStarts[i] + termCount;
+            }
+        }
+        catch (ArithmeticException e) {
+            throw new IllegalArgumentException("The polynomials have too many coefficients to be packed into a batch.");
+        }
+        coefficients = new double[starts[size]];
+        termDegrees = new int[termStarts[size]];
+        parallelism = argParallelism;
+        chunkSize = argChunkSize;
+        virtualThreads = argVirtualThreads;
+
+        run((from, to) -> {
+            for (int i = from; i < to; i++) {
+                if (packed[i].isSparse()) {
+                    SparseCoefficients polyTerms = packed[i].sparseCoefficients();
+                    System.arraycopy(polyTerms.coefficients, 0, coefficients, starts[i], polyTerms.size());
+                    System.arraycopy(polyTerms.degrees, 0, termDegrees, termStarts[i], polyTerms.size());
+                }
+                else {
+                    System.arraycopy(packed[i].coefficients(), 0, coefficients, starts[i], degrees[i] + 1);
+                }
+            }
+        });
+    }
+
+    /* Takes over arrays that are already packed */
+    private PolynomialBatch(int[] argDegrees, int[] argStarts, double[] argCoefficients, int[] argTermStarts,
+                            int[] argTermDegrees, int argParallelism, int argChunkSize, boolean argVirtualThreads) {
+        size = argDegrees.length;
+        degrees = argDegrees;
+        starts = argStarts;
+        coefficients = argCoefficients;
+        termStarts = argTermStarts;
+        termDegrees = argTermDegrees;
+        parallelism = argParallelism;
+        chunkSize = argChunkSize;
+        virtualThreads = argVirtualThreads;
+    }
+
+    public static int getDefaultChunkSize() {
+        return defaultChunkSize;
+    }
+
+    /**
+     * Sets the number of polynomials per chunk of the batches that are created from now on.
+     * @param polynomialsPerChunk the new default chunk size
+     * @throws IllegalArgumentException if the chunk size is less than 1
+     */
+    public static void setDefaultChunkSize(int polynomialsPerChunk) {
+        if (polynomialsPerChunk < 1) throw new IllegalArgumentException("The chunk size must be at least 1.");
+        defaultChunkSize = polynomialsPerChunk;
+    }
+
+    /**
+     * Produces whether virtual threads are available in this runtime.
+     * @return true if withVirtualThreads(true) runs the chunks on virtual threads
+     */
+    public static boolean virtualThreadsAvailable() {
+        return VIRTUAL_THREAD_EXECUTOR != null;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public boolean usesVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * Produces the same batch with a different number of threads, sharing the packed polynomials.
+     * @param threads the number of threads of the fork-join pool that the operations run on
+     * @return the batch that runs on a fork-join pool with that many threads
+     * @throws IllegalArgumentException if the number of threads is less than 1 or too large for a fork-join pool
+     */
+    public PolynomialBatch withParallelism(int threads) {
+        if (threads < 1 || threads > 0x7fff) throw new IllegalArgumentException("The parallelism must be between 1 and 32767.");
+        return new PolynomialBatch(degrees, starts, coefficients, termStarts, termDegrees, threads, chunkSize, virtualThreads);
+    }
+
+    /**
+     * Produces the same batch with a different chunk size, sharing the packed polynomials.
+     * @param polynomialsPerChunk the number of polynomials that are operated on by a single task
+     * @return the batch that splits its operations into chunks of that many polynomials
+     * @throws IllegalArgumentException if the chunk size is less than 1
+     */
+    public PolynomialBatch withChunkSize(int polynomialsPerChunk) {
+        if (polynomialsPerChunk < 1) throw new IllegalArgumentException("The chunk size must be at least 1.");
+        return new PolynomialBatch(degrees, starts, coefficients, termStarts, termDegrees, parallelism, polynomialsPerChunk, virtualThreads);
+    }
+
+    /**
+     * Produces the same batch with virtual threads switched on or off, sharing the packed polynomials. With virtual
+     * threads every chunk runs on a new virtual thread, and the parallelism is left to the scheduler of the runtime.
+     * If the runtime has no virtual threads, the operations keep running on the fork-join pool.
+     * @param enabled whether the chunks run on virtual threads
+     * @return the batch that runs its chunks on virtual threads, or on the fork-join pool
+     * @see #virtualThreadsAvailable
+     */
+    public PolynomialBatch withVirtualThreads(boolean enabled) {
+        return new PolynomialBatch(degrees, starts, coefficients, termStarts, termDegrees, parallelism, chunkSize, enabled);
+    }
+
+    public int getDegree(int index) {
+        checkIndex(index);
+        return degrees[index];
+    }
+
+    /**
+     * Produces a polynomial of the batch, copying its coefficients out of the packed arrays.
+     * @param index the index of the polynomial
+     * @return the polynomial
+     * @throws IndexOutOfBoundsException if there is no polynomial with that index
+     */
+    public Polynomial get(int index) {
+        checkIndex(index);
+        double[] polyCoefficients = Arrays.copyOfRange(coefficients, starts[index], starts[index + 1]);
+        if (!isSparse(index)) return new Polynomial(polyCoefficients);
+        int[] polyDegrees = Arrays.copyOfRange(termDegrees, termStarts[index], termStarts[index + 1]);
+        return new Polynomial(new SparseCoefficients(polyDegrees, polyCoefficients));
+    }
+
+    /**
+     * Produces all the polynomials of the batch, copied out in parallel.
+     * @return the polynomials, in the order that they are indexed in the batch
+     */
+    public Polynomial[] toArray() {
+        Polynomial[] polynomials = new Polynomial[size];
+        run((from, to) -> {
+            for (int i = from; i < to; i++) polynomials[i] = get(i);
+        });
+        return polynomials;
+    }
+
+    /**
+     * Produces the evaluation of every polynomial of the batch at a certain x value.
+     * @param a the value at which the polynomials should be evaluated
+     * @return the values, with the value of polynomial i at index i
+     */
+    public double[] valueAt(double a) {
+        double[] values = new double[size];
+        run((from, to) -> {
+            for (int i = from; i < to; i++) values[i] = valueAt(i, a);
+        });
+        return values;
+    }
+
+    /**
+     * Produces the evaluation of every polynomial of the batch at every one of a set of x values, with the points
+     * evaluated in blocks as in Polynomial.valueAt(double[], double[]).
+     * @param xs the values at which the polynomials should be evaluated
+     * @return the values in row-major order, with the value of polynomial i at xs[j] at index i * xs.length + j
+     * @throws IllegalArgumentException if there are too many values to fit in an array
+     */
+    public double[] valueAt(double[] xs) {
+        int pointCount = xs.length;
+        if ((long) size * pointCount > Integer.MAX_VALUE - 8) throw new IllegalArgumentException("The batch has too many values to fit in an array.");
+        double[] values = new double[size * pointCount];
+        run((from, to) -> {
+            double[] block = new double[Math.min(pointCount, HornerEvaluator.BLOCK_SIZE)];
+            for (int i = from; i < to; i++) {
+                int row = i * pointCount;
+                if (isSparse(i)) {
+                    for (int j = 0; j < pointCount; j++) values[row + j] = valueAt(i, xs[j]);
+                }
+                else {
+                    HornerEvaluator.evaluate(coefficients, starts[i], degrees[i], xs, 0, values, row, pointCount, block);
+                }
+            }
+        });
+        return values;
+    }
+
+    /**
+     * Produces the general derivatives of all the polynomials of the batch, which are written straight into the
+     * packed arrays of the new batch.
+     * @return the batch of the derivatives, with the same configuration
+     */
+    public PolynomialBatch derivative() {
+        int[] newDegrees = new int[size];
+        int[] newStarts = new int[size + 1];
+        int[] newTermStarts = new int[size + 1];
+        for (int i = 0; i < size; i++) {
+            int count;
+            int termCount = 0;
+            if (isSparse(i)) {
+                /* A constant term disappears, and a sparse polynomial that was only a constant becomes a dense 0 */
+                termCount = termStarts[i + 1] - termStarts[i] - (termDegrees[termStarts[i]] == 0 ? 1 : 0);
+                count = Math.max(termCount, 1);
+            }
+            else {
+                count = Math.max(degrees[i], 1);
+            }
+            newDegrees[i] = Math.max(degrees[i] - 1, 0);
+            newStarts[i + 1] = newStarts[i] + count;
+            newTermStarts[i + 1] = newTermStarts[i] + termCount;
+        }
+        double[] newCoefficients = new double[newStarts[size]];
+        int[] newTermDegrees = new int[newTermStarts[size]];
+
+        run((from, to) -> {
+            for (int i = from; i < to; i++) {
+                int start = starts[i];
+                int newStart = newStarts[i];
+                if (isSparse(i)) {
+                    int firstTerm = termStarts[i];
+                    int skipped = termDegrees[firstTerm] == 0 ? 1 : 0;
+                    int newTerm = newTermStarts[i];
+                    for (int k = skipped; k < termStarts[i + 1] - firstTerm; k++) {
+                        int termDegree = termDegrees[firstTerm + k];
+                        newCoefficients[newStart++] = termDegree * coefficients[start + k];
+                        newTermDegrees[newTerm++] = termDegree - 1;
+                    }
+                }
+                else {
+                    for (int k = 1; k <= degrees[i]; k++) {
+                        newCoefficients[newStart + k - 1] = k * coefficients[start + k];
+                    }
+                }
+            }
+        });
+        return new PolynomialBatch(newDegrees, newStarts, newCoefficients, newTermStarts, newTermDegrees,
+                                   parallelism, chunkSize, virtualThreads);
+    }
+
+    /**
+     * Produces the products of the polynomials of this batch with those of another batch, pair by pair, with the
+     * same choice of algorithm as Polynomial.multiply.
+     * @param multiplicands the batch of the polynomials that the polynomials of this batch are multiplied by
+     * @return the batch of the products, with the configuration of this batch
+     * @throws IllegalArgumentException if the batches have different sizes
+     */
+    public PolynomialBatch multiply(PolynomialBatch multiplicands) {
+        if (multiplicands.size != size) throw new IllegalArgumentException("A batch of " + size + " polynomials can't be multiplied with a batch of " + multiplicands.size + ".");
+        Polynomial[] products = new Polynomial[size];
+        run((from, to) -> {
+            for (int i = from; i < to; i++) products[i] = get(i).multiply(multiplicands.get(i));
+        });
+        return new PolynomialBatch(Arrays.asList(products), parallelism, chunkSize, virtualThreads);
+    }
+
+    /**
+     * Produces the real roots of every polynomial of the batch, as in Polynomial.realRoots. The polynomials are
+     * solved in parallel with each other, and the roots of a single polynomial are refined in parallel as well.
+     * @return the real roots, counted with multiplicity and in increasing order, of polynomial i at index i
+     */
+    public double[][] realRoots() {
+        double[][] roots = new double[size][];
+        run((from, to) -> {
+            for (int i = from; i < to; i++) {
+                ArrayList<Double> polyRoots = get(i).realRoots();
+                roots[i] = new double[polyRoots.size()];
+                for (int k = 0; k < roots[i].length; k++) roots[i][k] = polyRoots.get(k);
+            }
+        });
+        return roots;
+    }
+
+    private boolean isSparse(int index) {
+        return termStarts[index + 1] != termStarts[index];
+    }
+
+    private double valueAt(int index, double a) {
+        if (isSparse(index)) {
+            return SparseCoefficients.valueAt(termDegrees, termStarts[index], coefficients, starts[index],
+                                              termStarts[index + 1] - termStarts[index], a);
+        }
+        return HornerEvaluator.evaluate(coefficients, starts[index], degrees[index], a);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Index " + index + " is out of bounds for a batch of " + size + " polynomials.");
+    }
+
+    /* The work on a range of polynomials, from (inclusive) to to (exclusive) */
+    @FunctionalInterface
+    private interface ChunkTask {
+        void run(int from, int to);
+    }
+
+    /* Runs a task over all the polynomials of the batch, in chunks of at most chunkSize polynomials */
+    private void run(ChunkTask task) {
+        if (size <= chunkSize) {
+            task.run(0, size);
+        }
+        else if (virtualThreads && VIRTUAL_THREAD_EXECUTOR != null) {
+            runOnVirtualThreads(task);
+        }
+        else {
+            ForkJoinPool pool = parallelism == ForkJoinPool.getCommonPoolParallelism()
+                              ? ForkJoinPool.commonPool()
+                              : POOLS.computeIfAbsent(parallelism, ForkJoinPool::new);
+            pool.invoke(new ChunkAction(task, 0, size, chunkSize));
+        }
+    }
+
+    private void runOnVirtualThreads(ChunkTask task) {
+        ExecutorService executor;
+        try {
+            executor = (ExecutorService) VIRTUAL_THREAD_EXECUTOR.invoke(null);
+        }
+        catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("The virtual thread executor could not be created.", e);
+        }
+        try {
+            List<Future<?>> chunks = new ArrayList<Future<?>>();
+            for (int from = 0; from < size; from += chunkSize) {
+                int chunkFrom = from;
+                int chunkTo = Math.min(size, from + chunkSize);
+                chunks.add(executor.submit(() -> task.run(chunkFrom, chunkTo)));
+            }
+            for (Future<?> chunk : chunks) chunk.get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("The batch operation was interrupted.", e);
+        }
+        catch (ExecutionException e) {
+            /* Rethrow the failure of a chunk as if it had happened on this thread */
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new IllegalStateException(cause);
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static Method virtualThreadExecutorFactory() {
+        try {
+            return java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        }
+        catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    /* Runs a task over a range of polynomials, splitting it in halves as separate tasks until it is one chunk */
+    private static final class ChunkAction extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient ChunkTask task;
+        private final int from;
+        private final int to;
+        private final int chunkSize;
+
+        ChunkAction(ChunkTask argTask, int argFrom, int argTo, int argChunkSize) {
+            task = argTask;
+            from = argFrom;
+            to = argTo;
+            chunkSize = argChunkSize;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= chunkSize) {
+                task.run(from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new ChunkAction(task, from, middle, chunkSize), new ChunkAction(task, middle, to, chunkSize));
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package polynomial.src;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded, concurrent memoization cache for derivatives, quotients and parsed expressions. Polynomials are
+ * immutable and compare by their exact coefficients, so equal polynomials built separately share one entry.
+ *
+ * The cache is bounded both by its number of entries and by its total weight, which is the number of coefficients
+ * held by the cached entries, so that a few very large polynomials can't crowd out memory. An entry holds its operands
+ * in its key as well as its result, so both are counted, and an expression counts a coefficient for every 8 bytes of
+ * its characters. When either bound is exceeded, entries are evicted with the CLOCK policy: entries are visited in
+ * insertion order, and an entry that was read since the last visit gets a second chance instead of being evicted. An
+ * entry heavier than the whole weight bound is returned without being cached, since it would only evict everything
+ * else and then itself. Reads take no locks,
+ * while storing a result takes the same lock as eviction and clear, so that an entry is always in the map and the
+ * clock together. Two threads that miss on the same key at the same time may both compute the result, and either one
+ * is kept.
+ *
+ * Hits, misses and evictions are counted, so that the bounds can be sized from the observed hit rate.
+ */
+public class PolynomialCache {
+
+    private static final String DERIVATIVE = "derivative";
+    private static final String DIVIDE = "divide";
+    private static final String PARSE = "parse";
+
+    private final int maxEntries;
+    private final long maxWeight;
+
+    private final ConcurrentHashMap<Key, Entry> entries = new ConcurrentHashMap<Key, Entry>();
+    /* The keys in insertion order, which the eviction clock hand runs over */
+    private final ConcurrentLinkedQueue<Key> clock = new ConcurrentLinkedQueue<Key>();
+    private final AtomicLong weight = new AtomicLong();
+    private final Object evictionLock = new Object();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * The construction of an empty cache with bounds on its size.
+     * @param argMaxEntries the maximum number of cached results
+     * @param argMaxWeight the maximum total number of coefficients held by the cached operands and results
+     * @throws IllegalArgumentException if either bound is not positive
+     */
+    public PolynomialCache(int argMaxEntries, long argMaxWeight) {
+        if (argMaxEntries < 1) throw new IllegalArgumentException("A cache must be able to hold at least 1 entry.");
+        if (argMaxWeight < 1) throw new IllegalArgumentException("The maximum weight of a cache must be positive.");
+        maxEntries = argMaxEntries;
+        maxWeight = argMaxWeight;
+    }
+
+    /**
+     * Produces the derivative of a polynomial, computing it only if no equal polynomial was differentiated before.
+     * @param polynomial the polynomial that is differentiated
+     * @return the general derivative of the polynomial
+     * @see Polynomial.derivative
+     */
+    public Polynomial derivative(Polynomial polynomial) {
+        Key key = new Key(DERIVATIVE, polynomial, null);
+        Polynomial cached = (Polynomial) lookup(key);
+        if (cached != null) return cached;
+
+        Polynomial result = polynomial.derivative();
+        store(key, result, weightOf(polynomial) + weightOf(result));
+        return result;
+    }
+
+    /**
+     * Produces the quotient and remainder of the division of two polynomials, computing them only if the same
+     * division was not done before.
+     * @param dividend the polynomial that is divided
+     * @param divisor the polynomial that the dividend is divided by
+     * @return the quotient and remainder
+     * @throws IllegalArgumentException if the divisor is the zero polynomial
+     * @see Polynomial.divide
+     */
+    public PolyQuotientRemainder divide(Polynomial dividend, Polynomial divisor) {
+        Key key = new Key(DIVIDE, dividend, divisor);
+        PolyQuotientRemainder cached = (PolyQuotientRemainder) lookup(key);
+        if (cached != null) return cached;
+
+        PolyQuotientRemainder result = dividend.divide(divisor);
+        store(key, result, weightOf(dividend) + weightOf(divisor) + weightOf(result.getQuotient()) + weightOf(result.getRemainder()));
+        return result;
+    }
+
+    /**
+     * Produces the polynomial that an expression describes, parsing it only if the same expression was not parsed
+     * before.
+     * @param expression the expression, in the format accepted by PolynomialParser.parseExpression
+     * @return the parsed polynomial
+     * @see PolynomialParser.parseExpression
+     */
+    public Polynomial parseExpression(String expression) {
+        Key key = new Key(PARSE, expression, null);
+        Polynomial cached = (Polynomial) lookup(key);
+        if (cached != null) return cached;
+
+        Polynomial result = PolynomialParser.parseExpression(expression);
+        store(key, result, weightOf(expression) + weightOf(result));
+        return result;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * Produces the fraction of lookups that were answered from the cache.
+     * @return the hit rate, which is 0 if there were no lookups
+     */
+    public double getHitRate() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Produces the total weight of the cached entries.
+     * @return the total number of coefficients held by the cached operands and results
+     */
+    public long getWeight() {
+        return weight.get();
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public long getMaxWeight() {
+        return maxWeight;
+    }
+
+    /** Removes every cached result. The counters are kept. */
+    public void clear() {
+        synchronized (evictionLock) {
+            Key key;
+            while ((key = clock.poll()) != null) {
+                Entry entry = entries.remove(key);
+                if (entry != null) weight.addAndGet(-entry.weight);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "PolynomialCache[size=" + size() + ", weight=" + getWeight() + ", hits=" + getHitCount()
+               + ", misses=" + getMissCount() + ", evictions=" + getEvictionCount() + "]";
+    }
+
+    /* The cached value of a key, marking it as recently used, or null on a miss */
+    private Object lookup(Key key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        if (!entry.referenced) entry.referenced = true;
+        return entry.value;
+    }
+
+    private void store(Key key, Object value, long entryWeight) {
+        if (entryWeight > maxWeight) return;
+        Entry entry = new Entry(value, entryWeight);
+        synchronized (evictionLock) {
+            /* The map and the clock change together, since a clear in between could leave an entry the clock never reaches */
+            if (entries.putIfAbsent(key, entry) != null) return;
+            weight.addAndGet(entryWeight);
+            clock.offer(key);
+            if (entries.size() > maxEntries || weight.get() > maxWeight) evict();
+        }
+    }
+
+    /* Runs the clock hand until both bounds hold again */
+    private void evict() {
+        synchronized (evictionLock) {
+            while (entries.size() > maxEntries || weight.get() > maxWeight) {
+                Key key = clock.poll();
+                if (key == null) return;
+                Entry entry = entries.get(key);
+                if (entry == null) continue;
+                if (entry.referenced) {
+                    /* Recently used, so it gets a second chance at the back of the queue */
+                    entry.referenced = false;
+                    clock.offer(key);
+                }
+                else if (entries.remove(key, entry)) {
+                    weight.addAndGet(-entry.weight);
+                    evictions.increment();
+                }
+            }
+        }
+    }
+
+    /* The number of coefficients that a polynomial holds in its storage */
+    private static long weightOf(Polynomial polynomial) {
+        return polynomial.isSparse() ? polynomial.getTermCount() : polynomial.getDegree() + 1;
+    }
+
+    /* The number of coefficients that take up as much memory as the characters of an expression, 4 to each */
+    private static long weightOf(String expression) {
+        return (expression.length() + 3) / 4;
+    }
+
+    /* An operation together with its operands, which are compared by their exact structure */
+    private static final class Key {
+
+        private final String operation;
+        private final Object first;
+        private final Object second;
+        private final int hash;
+
+        Key(String argOperation, Object argFirst, Object argSecond) {
+            operation = argOperation;
+            first = argFirst;
+            second = argSecond;
+            hash = 31 * (31 * operation.hashCode() + first.hashCode()) + Objects.hashCode(second);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) return true;
+            if (!(other instanceof Key)) return false;
+            Key key = (Key) other;
+            return hash == key.hash && operation.equals(key.operation) && first.equals(key.first)
+                   && Objects.equals(second, key.second);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final class Entry {
+
+        final Object value;
+        final long weight;
+        /* Set when the entry is read, and cleared when the clock hand passes it */
+        volatile boolean referenced;
+
+        Entry(Object argValue, long argWeight) {
+            value = argValue;
+            weight = argWeight;
+        }
+    }
+}
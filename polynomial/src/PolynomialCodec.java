@@ -0,0 +1,151 @@
+package polynomial.src;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * A compact binary format for polynomials. Every polynomial is written as a record with a 16 byte header, followed by
+ * its coefficients as primitive arrays in little endian order:
+ *
+ *     byte 0       the storage: 0 for dense, 1 for sparse
+ *     bytes 1-3    reserved, always 0
+ *     bytes 4-7    the degree, as an int
+ *     bytes 8-11   the number of non-zero terms, as an int
+ *     bytes 12-15  reserved, always 0
+ *
+ * A dense record then holds the degree + 1 coefficients as doubles, from the constant term upwards. A sparse record
+ * holds the coefficients of its non-zero terms as doubles, then their degrees in increasing order as ints, padded with
+ * zeros to a multiple of 8 bytes. Records therefore always have a length that is a multiple of 8, so the coefficients
+ * of records written one after the other stay aligned, and can be read in place from a memory mapping.
+ *
+ * @see PolynomialStore
+ */
+public class PolynomialCodec {
+
+    static final int HEADER_SIZE = 16;
+    static final byte DENSE = 0;
+    static final byte SPARSE = 1;
+    static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    /**
+     * Produces the number of bytes that a polynomial takes up when it is encoded.
+     * @param polynomial the polynomial
+     * @return the length of the record, a multiple of 8
+     */
+    public static long encodedSize(Polynomial polynomial) {
+        if (polynomial.isSparse()) return HEADER_SIZE + sparseBodySize(polynomial.getTermCount());
+        return HEADER_SIZE + 8L * (polynomial.getDegree() + 1);
+    }
+
+    /**
+     * Encodes a polynomial into a new array.
+     * @param polynomial the polynomial
+     * @return the bytes of its record
+     */
+    public static byte[] encode(Polynomial polynomial) {
+        ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(encodedSize(polynomial)));
+        encode(polynomial, buffer);
+        return buffer.array();
+    }
+
+    /**
+     * Encodes a polynomial at the position of a buffer, and advances the position past the record. The byte order
+     * of the buffer is ignored, the record is always little endian.
+     * @param polynomial the polynomial
+     * @param out the buffer the record is written to
+     * @throws java.nio.BufferOverflowException if the buffer has less room than the length of the record
+     */
+    public static void encode(Polynomial polynomial, ByteBuffer out) {
+        int size = Math.toIntExact(encodedSize(polynomial));
+        if (out.remaining() < size) throw new java.nio.BufferOverflowException();
+        ByteBuffer record = out.slice(out.position(), size).order(ORDER);
+
+        boolean sparse = polynomial.isSparse();
+        record.put(0, sparse ? SPARSE : DENSE);
+        record.putInt(4, polynomial.getDegree());
+        record.putInt(8, polynomial.getTermCount());
+
+        if (sparse) {
+            SparseCoefficients polyTerms = polynomial.sparseCoefficients();
+            int count = polyTerms.size();
+            record.position(HEADER_SIZE);
+            record.asDoubleBuffer().put(polyTerms.coefficients);
+            record.position(HEADER_SIZE + 8 * count);
+            record.asIntBuffer().put(polyTerms.degrees);
+        }
+        else {
+            record.position(HEADER_SIZE);
+            record.asDoubleBuffer().put(polynomial.coefficients(), 0, polynomial.getDegree() + 1);
+        }
+        out.position(out.position() + size);
+    }
+
+    /**
+     * Decodes a polynomial from an array.
+     * @param record the bytes of the record
+     * @return the polynomial
+     * @throws IllegalArgumentException if the bytes don't hold a valid record
+     */
+    public static Polynomial decode(byte[] record) {
+        return decode(ByteBuffer.wrap(record));
+    }
+
+    /**
+     * Decodes a polynomial at the position of a buffer, and advances the position past the record.
+     * @param in the buffer the record is read from
+     * @return the polynomial
+     * @throws IllegalArgumentException if the buffer doesn't hold a valid record at its position
+     */
+    public static Polynomial decode(ByteBuffer in) {
+        int start = in.position();
+        int size = recordSize(in, start);
+        ByteBuffer record = in.slice(start, size).order(ORDER);
+        int degree = record.getInt(4);
+        int count = record.getInt(8);
+        Polynomial polynomial;
+
+        record.position(HEADER_SIZE);
+        if (record.get(0) == SPARSE) {
+            double[] termCoefficients = new double[count];
+            int[] termDegrees = new int[count];
+            record.asDoubleBuffer().get(termCoefficients);
+            record.position(HEADER_SIZE + 8 * count);
+            record.asIntBuffer().get(termDegrees);
+            /* The terms were written in order, so this only checks them and drops any zero coefficients */
+            polynomial = new Polynomial(SparseCoefficients.fromTerms(termDegrees, termCoefficients, count));
+        }
+        else {
+            double[] coefficients = new double[degree + 1];
+            record.asDoubleBuffer().get(coefficients);
+            polynomial = new Polynomial(coefficients);
+        }
+        in.position(start + size);
+        return polynomial;
+    }
+
+    /**
+     * Checks the header of a record, and produces its length.
+     * @param in the buffer holding the record
+     * @param start the index of the record in the buffer
+     * @return the length of the record in bytes
+     * @throws IllegalArgumentException if the header is not valid, or the record doesn't fit in the buffer
+     */
+    static int recordSize(ByteBuffer in, int start) {
+        if (in.limit() - start < HEADER_SIZE) throw new IllegalArgumentException("The buffer is too short to hold a polynomial record.");
+        ByteBuffer header = in.slice(start, HEADER_SIZE).order(ORDER);
+        byte storage = header.get(0);
+        int degree = header.getInt(4);
+        int count = header.getInt(8);
+        if ((storage != DENSE && storage != SPARSE) || degree < 0 || count < 0 || count > (long) degree + 1) {
+            throw new IllegalArgumentException("The buffer doesn't hold a valid polynomial record at index " + start + ".");
+        }
+        long size = HEADER_SIZE + (storage == SPARSE ? sparseBodySize(count) : 8L * (degree + 1));
+        if (size > in.limit() - start) throw new IllegalArgumentException("The polynomial record at index " + start + " is truncated.");
+        return (int) size;
+    }
+
+    /* The coefficients and degrees of a sparse record, padded to a multiple of 8 bytes */
+    static long sparseBodySize(int count) {
+        return 8L * count + ((4L * count + 7) & ~7L);
+    }
+}
@@ -0,0 +1,289 @@
+package polynomial.src;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.HashMap;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Compiles a polynomial into a DoubleUnaryOperator whose bytecode is specialized to its exact coefficients. The class
+ * file is written out by hand and defined as a hidden class, so that no bytecode library is needed, and the class can
+ * be unloaded once the operator is no longer reachable. Its applyAsDouble method is Horner's scheme fully unrolled,
+ * with every coefficient loaded as a constant:
+ *
+ *     ((c3 * x + c2) * x + c1) * x + c0
+ *
+ * Sparse polynomials multiply by x raised to the gap between consecutive degrees instead of by x once for every skipped
+ * degree. The zero coefficients of dense polynomials are still added, since adding 0 turns a product of -0.0 into 0.0,
+ * and the JIT compiler can't leave it out either. The arithmetic is done in the same order as Polynomial.valueAt, so
+ * the results are identical, but there is no loop, array access or bounds check left for the JIT compiler to deal
+ * with, and it can fold the constants into the machine code.
+ *
+ * Methods longer than 8000 bytes of bytecode are never compiled by HotSpot, so polynomials whose unrolled code would
+ * be longer than that are not compiled, and evaluate with Horner's scheme over their coefficient array instead.
+ */
+final class PolynomialCompiler {
+
+    /* HotSpot doesn't JIT compile methods longer than this many bytes (-XX:HugeMethodLimit) */
+    static final int MAX_CODE_LENGTH = 8000;
+
+    private static final int CLASS_FILE_MAGIC = 0xCAFEBABE;
+    /* Java 8 class files, which need no stack map frames for code without branches */
+    private static final int CLASS_FILE_VERSION = 52;
+    private static final int ACC_PUBLIC = 0x0001;
+    private static final int ACC_FINAL = 0x0010;
+    private static final int ACC_SUPER = 0x0020;
+
+    private static final int DCONST_0 = 0x0e;
+    private static final int DCONST_1 = 0x0f;
+    private static final int BIPUSH = 0x10;
+    private static final int SIPUSH = 0x11;
+    private static final int LDC_W = 0x13;
+    private static final int LDC2_W = 0x14;
+    private static final int DLOAD_1 = 0x27;
+    private static final int ALOAD_0 = 0x2a;
+    private static final int DADD = 0x63;
+    private static final int DMUL = 0x6b;
+    private static final int DRETURN = 0xaf;
+    private static final int RETURN = 0xb1;
+    private static final int INVOKESPECIAL = 0xb7;
+    private static final int INVOKESTATIC = 0xb8;
+
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_INTEGER = 3;
+    private static final int CONSTANT_DOUBLE = 6;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_METHODREF = 10;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+
+    private PolynomialCompiler() {}
+
+    /**
+     * Compiles a polynomial into an evaluator.
+     * @param polynomial the polynomial
+     * @return an operator that produces the value of the polynomial at its operand
+     */
+    static DoubleUnaryOperator compile(Polynomial polynomial) {
+        byte[] classFile = new ClassWriter().write(polynomial);
+        if (classFile == null) {
+            /* Too long to be JIT compiled, so the regular evaluation is faster */
+            return polynomial::valueAt;
+        }
+        try {
+            MethodHandles.Lookup hidden = MethodHandles.lookup().defineHiddenClass(classFile, true);
+            return (DoubleUnaryOperator) hidden.findConstructor(hidden.lookupClass(), MethodType.methodType(void.class)).invoke();
+        }
+        catch (Throwable e) {
+            throw new IllegalStateException("The evaluator of a polynomial could not be defined.", e);
+        }
+    }
+
+    /* Writes the class file of a single evaluator */
+    private static final class ClassWriter {
+
+        private final ByteArrayOutputStream pool = new ByteArrayOutputStream();
+        private final DataOutputStream poolOut = new DataOutputStream(pool);
+        /* Constant pool indices start at 1, and doubles take up two of them */
+        private int poolCount = 1;
+        private final HashMap<Object, Integer> poolIndices = new HashMap<Object, Integer>();
+
+        private final ByteArrayOutputStream code = new ByteArrayOutputStream();
+        private int powerMethod;
+
+        byte[] write(Polynomial polynomial) {
+            try {
+                int thisClass = classConstant("polynomial/src/CompiledPolynomial");
+                int superClass = classConstant("java/lang/Object");
+                int operatorInterface = classConstant("java/util/function/DoubleUnaryOperator");
+                int objectConstructor = methodConstant(superClass, "<init>", "()V");
+                int initName = utf8Constant("<init>");
+                int initType = utf8Constant("()V");
+                int applyName = utf8Constant("applyAsDouble");
+                int applyType = utf8Constant("(D)D");
+                int codeName = utf8Constant("Code");
+
+                if (!writeHorner(polynomial)) return null;
+
+                ByteArrayOutputStream classFile = new ByteArrayOutputStream();
+                DataOutputStream out = new DataOutputStream(classFile);
+                out.writeInt(CLASS_FILE_MAGIC);
+                out.writeShort(0);
+                out.writeShort(CLASS_FILE_VERSION);
+                out.writeShort(poolCount);
+                pool.writeTo(out);
+                out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+                out.writeShort(thisClass);
+                out.writeShort(superClass);
+                out.writeShort(1);
+                out.writeShort(operatorInterface);
+                /* No fields */
+                out.writeShort(0);
+
+                out.writeShort(2);
+                /* public CompiledPolynomial() { super(); } */
+                byte[] constructorCode = {(byte) ALOAD_0, (byte) INVOKESPECIAL, (byte) (objectConstructor >> 8), (byte) objectConstructor, (byte) RETURN};
+                writeMethod(out, ACC_PUBLIC, initName, initType, codeName, 1, 1, constructorCode);
+                /* public final double applyAsDouble(double x), where x is in local slots 1 and 2 */
+                writeMethod(out, ACC_PUBLIC | ACC_FINAL, applyName, applyType, codeName, 6, 3, code.toByteArray());
+
+                /* No class attributes */
+                out.writeShort(0);
+                return classFile.toByteArray();
+            }
+            catch (IOException e) {
+                /* Writing to an array never fails */
+                throw new IllegalStateException(e);
+            }
+        }
+
+        /* The unrolled Horner chain, or false if it would be too long to be JIT compiled */
+        private boolean writeHorner(Polynomial polynomial) throws IOException {
+            if (polynomial.isSparse()) {
+                SparseCoefficients polyTerms = polynomial.sparseCoefficients();
+                int last = polyTerms.size() - 1;
+                pushDouble(polyTerms.coefficients[last]);
+                for (int i = last - 1; i >= 0; i--) {
+                    multiplyByPower(polyTerms.degrees[i + 1] - polyTerms.degrees[i]);
+                    addCoefficient(polyTerms.coefficients[i]);
+                    if (code.size() > MAX_CODE_LENGTH) return false;
+                }
+                multiplyByPower(polyTerms.degrees[0]);
+            }
+            else {
+                double[] coefficients = polynomial.coefficients();
+                int degree = polynomial.getDegree();
+                pushDouble(coefficients[degree]);
+                for (int i = degree - 1; i >= 0; i--) {
+                    code.write(DLOAD_1);
+                    code.write(DMUL);
+                    addCoefficient(coefficients[i]);
+                    if (code.size() > MAX_CODE_LENGTH) return false;
+                }
+            }
+            code.write(DRETURN);
+            return code.size() <= MAX_CODE_LENGTH;
+        }
+
+        /* Multiplies the value on the stack by x^gap, calling the same power function as Polynomial.valueAt */
+        private void multiplyByPower(int gap) throws IOException {
+            if (gap == 0) return;
+            code.write(DLOAD_1);
+            if (gap > 1) {
+                pushInt(gap);
+                if (powerMethod == 0) powerMethod = methodConstant(classConstant("polynomial/src/SparseCoefficients"), "power", "(DI)D");
+                code.write(INVOKESTATIC);
+                writeShort(powerMethod);
+            }
+            code.write(DMUL);
+        }
+
+        private void addCoefficient(double coefficient) throws IOException {
+            pushDouble(coefficient);
+            code.write(DADD);
+        }
+
+        private void pushDouble(double value) throws IOException {
+            if (Double.doubleToRawLongBits(value) == 0) code.write(DCONST_0);
+            else if (value == 1) code.write(DCONST_1);
+            else {
+                code.write(LDC2_W);
+                writeShort(doubleConstant(value));
+            }
+        }
+
+        private void pushInt(int value) throws IOException {
+            if (value <= Byte.MAX_VALUE) {
+                code.write(BIPUSH);
+                code.write(value);
+            }
+            else if (value <= Short.MAX_VALUE) {
+                code.write(SIPUSH);
+                writeShort(value);
+            }
+            else {
+                code.write(LDC_W);
+                writeShort(intConstant(value));
+            }
+        }
+
+        private void writeShort(int value) {
+            code.write(value >> 8);
+            code.write(value);
+        }
+
+        private void writeMethod(DataOutputStream out, int access, int name, int type, int codeName, int maxStack,
+                                 int maxLocals, byte[] methodCode) throws IOException {
+            out.writeShort(access);
+            out.writeShort(name);
+            out.writeShort(type);
+            out.writeShort(1);
+            out.writeShort(codeName);
+            /* max_stack, max_locals, code_length, the code, and empty exception and attribute tables */
+            out.writeInt(2 + 2 + 4 + methodCode.length + 2 + 2);
+            out.writeShort(maxStack);
+            out.writeShort(maxLocals);
+            out.writeInt(methodCode.length);
+            out.write(methodCode);
+            out.writeShort(0);
+            out.writeShort(0);
+        }
+
+        private int utf8Constant(String value) throws IOException {
+            Integer index = poolIndices.get(value);
+            if (index != null) return index;
+            poolOut.writeByte(CONSTANT_UTF8);
+            poolOut.writeUTF(value);
+            return register(value, 1);
+        }
+
+        private int classConstant(String name) throws IOException {
+            String key = "class " + name;
+            Integer index = poolIndices.get(key);
+            if (index != null) return index;
+            int nameIndex = utf8Constant(name);
+            poolOut.writeByte(CONSTANT_CLASS);
+            poolOut.writeShort(nameIndex);
+            return register(key, 1);
+        }
+
+        private int methodConstant(int owner, String name, String type) throws IOException {
+            int nameIndex = utf8Constant(name);
+            int typeIndex = utf8Constant(type);
+            poolOut.writeByte(CONSTANT_NAME_AND_TYPE);
+            poolOut.writeShort(nameIndex);
+            poolOut.writeShort(typeIndex);
+            int nameAndType = register(new Object(), 1);
+            poolOut.writeByte(CONSTANT_METHODREF);
+            poolOut.writeShort(owner);
+            poolOut.writeShort(nameAndType);
+            return register(new Object(), 1);
+        }
+
+        private int doubleConstant(double value) throws IOException {
+            Long key = Double.doubleToRawLongBits(value);
+            Integer index = poolIndices.get(key);
+            if (index != null) return index;
+            poolOut.writeByte(CONSTANT_DOUBLE);
+            poolOut.writeLong(key);
+            return register(key, 2);
+        }
+
+        private int intConstant(int value) throws IOException {
+            Integer index = poolIndices.get(value);
+            if (index != null) return index;
+            poolOut.writeByte(CONSTANT_INTEGER);
+            poolOut.writeInt(value);
+            return register(value, 1);
+        }
+
+        private int register(Object key, int slots) {
+            int index = poolCount;
+            poolIndices.put(key, index);
+            poolCount += slots;
+            return index;
+        }
+    }
+}
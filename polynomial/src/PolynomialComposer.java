@@ -0,0 +1,160 @@
+package polynomial.src;
+
+import java.util.ArrayList;
+
+/**
+ * The composition engine behind Polynomial.compose and Polynomial.shift. Coefficient arrays are given from the constant
+ * term upwards, with a non-zero leading coefficient.
+ *
+ * A composition p(q(x)) is split in halves, p = low + x^k high with k a power of 2, so that
+ * p(q) = low(q) + q^k high(q). The powers q^(2^j) are found once by repeated squaring, and each level of the recursion
+ * costs a constant number of fast multiplications of its total size, so the whole composition costs O(log n) of them
+ * instead of the n multiplications of expanding every power of q. Below a threshold, the halves are composed with
+ * Horner's scheme, p(q) = c0 + q(c1 + q(c2 + ...)).
+ *
+ * A Taylor shift p(x + a) is the composition with x + a, and the composition with any linear inner polynomial a + bx
+ * is a shift followed by scaling the kth coefficient by b^k. The shifted coefficients are the Taylor coefficients of p
+ * at a, found in a single O(n^2) pass of interleaved synthetic divisions that allocates nothing but the result. The
+ * divide and conquer composition would be faster for large degrees, but the coefficients of (x + a)^(2^j) span too many
+ * orders of magnitude for the rounding of fast multiplication, which is relative to the largest of them, and the small
+ * ones are lost. The crossover point of the composition can be tuned with the "polynomial.compositionThreshold" system
+ * property, or at runtime.
+ */
+public class PolynomialComposer {
+
+    private static volatile int compositionThreshold = Integer.getInteger("polynomial.compositionThreshold", 16);
+
+    /* Compositions whose degree would not fit in an array are rejected */
+    private static final long MAX_DEGREE = Integer.MAX_VALUE - 8;
+
+    public static int getCompositionThreshold() {
+        return compositionThreshold;
+    }
+
+    /**
+     * Sets the number of outer coefficients below which a composition is done with Horner's scheme instead of being
+     * split in halves.
+     * @param threshold the number of coefficients, at least 2
+     */
+    public static void setCompositionThreshold(int threshold) {
+        if (threshold < 2) throw new IllegalArgumentException("The composition threshold must be at least 2.");
+        compositionThreshold = threshold;
+    }
+
+    /**
+     * Produces the composition of two coefficient arrays, using the algorithm that suits their size.
+     * @param outer the coefficients of p
+     * @param inner the coefficients of q
+     * @return the coefficients of p(q(x)), with deg p * deg q + 1 of them
+     * @throws IllegalArgumentException if the degree of the composition is too large for an array
+     */
+    public static double[] compose(double[] outer, double[] inner) {
+        int outerDegree = outer.length - 1;
+        int innerDegree = inner.length - 1;
+        if ((long) outerDegree * innerDegree > MAX_DEGREE) throw new IllegalArgumentException("The degree of the composition is too large.");
+
+        if (outerDegree == 0 || innerDegree == 0) return new double[] {HornerEvaluator.evaluate(outer, outerDegree, inner[0])};
+        if (innerDegree == 1) return linear(outer, inner[0], inner[1]);
+        if (isMonomial(inner)) return monomial(outer, innerDegree, inner[innerDegree]);
+        return divideAndConquer(outer, inner);
+    }
+
+    /**
+     * Produces the Taylor shift of a coefficient array in a single pass, as the Taylor coefficients of p at a. The
+     * pass takes n^2 / 2 multiply-adds, and allocates nothing but the result.
+     * @param coefficients the coefficients of p
+     * @param a the shift
+     * @return the coefficients of p(x + a)
+     * @see HornerEvaluator
+     */
+    public static double[] shift(double[] coefficients, double a) {
+        if (a == 0) return coefficients.clone();
+        double[] shifted = new double[coefficients.length];
+        HornerEvaluator.taylor(coefficients, 0, coefficients.length - 1, a, shifted, 0, shifted.length);
+        return shifted;
+    }
+
+    /**
+     * Produces the composition of two coefficient arrays by splitting the outer one in halves, on top of fast
+     * multiplication, as described above.
+     * @param outer the coefficients of p
+     * @param inner the coefficients of q, of degree at least 1
+     * @return the coefficients of p(q(x))
+     */
+    public static double[] divideAndConquer(double[] outer, double[] inner) {
+        /* powers.get(j) is q^(2^j), up to the largest power of 2 below the number of coefficients */
+        ArrayList<double[]> powers = new ArrayList<double[]>();
+        powers.add(inner);
+        int threshold = compositionThreshold;
+        if (outer.length >= threshold) {
+            for (int half = 2; half < outer.length; half *= 2) {
+                double[] last = powers.get(powers.size() - 1);
+                powers.add(PolynomialMultiplier.multiply(last, last));
+            }
+        }
+        double[] result = compose(outer, 0, outer.length, inner, powers, threshold);
+        /* The rounding of fast multiplication is relative to the largest coefficient, so a much smaller leading
+           coefficient may be lost in it. It is known exactly, as the leading coefficient of p times that of q to the deg p */
+        int outerDegree = outer.length - 1;
+        result[result.length - 1] = outer[outerDegree] * SparseCoefficients.power(inner[inner.length - 1], outerDegree);
+        return result;
+    }
+
+    /* The composition with the coefficients from start, up to but not including end */
+    private static double[] compose(double[] outer, int start, int end, double[] inner, ArrayList<double[]> powers, int threshold) {
+        int length = end - start;
+        if (length < threshold || length <= 2) return horner(outer, start, end, inner);
+
+        /* Split at the largest power of 2 below the length, whose power of q is in the table */
+        int level = 31 - Integer.numberOfLeadingZeros(length - 1);
+        int half = 1 << level;
+        double[] low = compose(outer, start, start + half, inner, powers, threshold);
+        double[] high = compose(outer, start + half, end, inner, powers, threshold);
+        /* The low half has a lower degree than the product, since deg q^half is above deg low */
+        double[] result = PolynomialMultiplier.multiply(high, powers.get(level));
+        for (int i = 0; i < low.length; i++) result[i] += low[i];
+        return result;
+    }
+
+    /* Horner's scheme over whole polynomials, r = r q + c(i), for short pieces of the outer polynomial */
+    private static double[] horner(double[] outer, int start, int end, double[] inner) {
+        double[] result = {outer[end - 1]};
+        for (int i = end - 2; i >= start; i--) {
+            result = PolynomialMultiplier.multiply(result, inner);
+            result[0] += outer[i];
+        }
+        return result;
+    }
+
+    /* p(a + bx) = sum of p^(k)(a) / k! (bx)^k */
+    private static double[] linear(double[] outer, double a, double b) {
+        double[] result = shift(outer, a);
+        if (b != 1) {
+            double power = b;
+            for (int k = 1; k < result.length; k++) {
+                result[k] *= power;
+                power *= b;
+            }
+        }
+        return result;
+    }
+
+    /* p(b x^m) = sum of c(i) b^i x^(im), with no multiplications of polynomials at all */
+    private static double[] monomial(double[] outer, int innerDegree, double b) {
+        int outerDegree = outer.length - 1;
+        double[] result = new double[outerDegree * innerDegree + 1];
+        double power = 1;
+        for (int i = 0; i <= outerDegree; i++) {
+            result[i * innerDegree] = outer[i] * power;
+            power *= b;
+        }
+        return result;
+    }
+
+    private static boolean isMonomial(double[] coefficients) {
+        for (int i = 0; i < coefficients.length - 1; i++) {
+            if (coefficients[i] != 0) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,164 @@
+package polynomial.src;
+
+import java.util.Arrays;
+
+/**
+ * The division engine behind Polynomial.divide. Coefficient arrays are given from the constant term upwards, with
+ * a non-zero leading coefficient. Linear divisors use synthetic division, and other divisors use long division done
+ * in place in a single work array, unless both the quotient and the divisor are large. Then the quotient comes from
+ * a power series reciprocal of the reversed divisor, computed with Newton's iteration, so that the division costs a
+ * constant number of fast multiplications. The crossover point can be tuned with the "polynomial.newtonDivisionThreshold"
+ * system property, or at runtime.
+ */
+public class PolynomialDivider {
+
+    private static volatile int newtonThreshold = Integer.getInteger("polynomial.newtonDivisionThreshold", 2048);
+
+    public static int getNewtonThreshold() {
+        return newtonThreshold;
+    }
+
+    /**
+     * Sets the length from which a quotient and divisor are divided with a Newton reciprocal instead of long division.
+     * @param threshold the number of coefficients of both the quotient and the divisor, at least 1
+     */
+    public static void setNewtonThreshold(int threshold) {
+        if (threshold < 1) throw new IllegalArgumentException("The Newton division threshold must be at least 1.");
+        newtonThreshold = threshold;
+    }
+
+    /**
+     * Produces the quotient and remainder of two coefficient arrays, using the algorithm that suits their size.
+     * @param dividend the coefficients of the dividend
+     * @param divisor the coefficients of the divisor, whose leading coefficient must not be 0
+     * @return an array holding the quotient and then the remainder. The remainder has one less coefficient than
+     * the divisor, or a single coefficient for a constant divisor
+     */
+    public static double[][] divide(double[] dividend, double[] divisor) {
+        int divisorDegree = divisor.length - 1;
+        int quotientLength = dividend.length - divisorDegree;
+        if (quotientLength <= 0) return dividendTooSmall(dividend, divisorDegree);
+
+        if (divisorDegree == 1) return syntheticDivide(dividend, divisor);
+        else if (quotientLength >= newtonThreshold && divisor.length >= newtonThreshold) return newtonDivide(dividend, divisor);
+        else return longDivide(dividend, divisor);
+    }
+
+    /**
+     * Divides by a linear divisor ax + b with synthetic division, which is Horner's scheme at the root -b/a. The
+     * running values are the quotient coefficients, and the final value is the remainder.
+     * @param dividend the coefficients of the dividend
+     * @param divisor the two coefficients of the divisor
+     * @return an array holding the quotient and then the remainder
+     */
+    public static double[][] syntheticDivide(double[] dividend, double[] divisor) {
+        if (dividend.length < 2) return dividendTooSmall(dividend, 1);
+        double lead = divisor[1];
+        double root = -divisor[0] / lead;
+        int n = dividend.length - 1;
+
+        double[] quotient = new double[n];
+        double carry = dividend[n];
+        for (int i = n - 1; i >= 0; i--) {
+            quotient[i] = carry;
+            carry = carry * root + dividend[i];
+        }
+        /* The recurrence divides by (x - root), so the quotient is scaled to account for the leading coefficient */
+        if (lead != 1) for (int i = 0; i < n; i++) quotient[i] /= lead;
+        return new double[][] {quotient, new double[] {carry}};
+    }
+
+    /**
+     * Divides with the long division algorithm, done in place in a copy of the dividend: each quotient coefficient
+     * replaces the dividend coefficient that it cancels, so the top of the array ends up holding the quotient and the
+     * bottom holds the remainder. Monic divisors skip the division in every step.
+     * @param dividend the coefficients of the dividend
+     * @param divisor the coefficients of the divisor
+     * @return an array holding the quotient and then the remainder
+     */
+    public static double[][] longDivide(double[] dividend, double[] divisor) {
+        int divisorDegree = divisor.length - 1;
+        if (dividend.length <= divisorDegree) return dividendTooSmall(dividend, divisorDegree);
+        double lead = divisor[divisorDegree];
+        double[] work = dividend.clone();
+
+        for (int k = dividend.length - 1 - divisorDegree; k >= 0; k--) {
+            double quotientCoeff = lead == 1 ? work[k + divisorDegree] : work[k + divisorDegree] / lead;
+            work[k + divisorDegree] = quotientCoeff;
+            if (quotientCoeff == 0) continue;
+            for (int i = 0; i < divisorDegree; i++) {
+                work[k + i] -= quotientCoeff * divisor[i];
+            }
+        }
+        double[] quotient = Arrays.copyOfRange(work, divisorDegree, work.length);
+        double[] remainder = Arrays.copyOf(work, Math.max(divisorDegree, 1));
+        if (divisorDegree == 0) remainder[0] = 0;
+        return new double[][] {quotient, remainder};
+    }
+
+    /**
+     * Divides using a power series reciprocal. With rev(f) the coefficients of f in reverse order, the quotient of
+     * a dividend of degree n by a divisor of degree m satisfies rev(q) = rev(a) / rev(b) mod x^(n-m+1), and the
+     * remainder is a - bq, of which only the m lowest coefficients are kept.
+     * @param dividend the coefficients of the dividend
+     * @param divisor the coefficients of the divisor
+     * @return an array holding the quotient and then the remainder
+     */
+    public static double[][] newtonDivide(double[] dividend, double[] divisor) {
+        int divisorDegree = divisor.length - 1;
+        int quotientLength = dividend.length - divisorDegree;
+        if (quotientLength <= 0) return dividendTooSmall(dividend, divisorDegree);
+
+        double[] reversedDividend = reversed(dividend, quotientLength);
+        double[] reciprocal = reciprocal(reversed(divisor, Math.min(divisor.length, quotientLength)), quotientLength);
+        double[] reversedQuotient = Arrays.copyOf(PolynomialMultiplier.multiply(reversedDividend, reciprocal), quotientLength);
+
+        double[] quotient = new double[quotientLength];
+        for (int i = 0; i < quotientLength; i++) quotient[i] = reversedQuotient[quotientLength - 1 - i];
+
+        double[] remainder = Arrays.copyOf(dividend, Math.max(divisorDegree, 1));
+        if (divisorDegree > 0) {
+            /* Only the low coefficients of the product b * q are needed, so both factors are cut down to them first */
+            double[] product = PolynomialMultiplier.multiply(Arrays.copyOf(divisor, Math.min(divisor.length, divisorDegree)),
+                                                             Arrays.copyOf(quotient, Math.min(quotientLength, divisorDegree)));
+            for (int i = 0; i < divisorDegree && i < product.length; i++) remainder[i] -= product[i];
+        }
+        else {
+            remainder[0] = 0;
+        }
+        return new double[][] {quotient, remainder};
+    }
+
+    /**
+     * Produces the power series reciprocal of f modulo x^length with Newton's iteration g = g(2 - fg), which doubles
+     * the number of correct coefficients in every step.
+     * @param f the coefficients of the series, whose constant term must not be 0
+     * @param length the number of coefficients of the reciprocal
+     * @return the coefficients of g such that fg = 1 mod x^length
+     */
+    public static double[] reciprocal(double[] f, int length) {
+        double[] g = {1 / f[0]};
+        int precision = 1;
+        while (precision < length) {
+            precision = Math.min(2 * precision, length);
+            double[] fg = Arrays.copyOf(PolynomialMultiplier.multiply(Arrays.copyOf(f, Math.min(f.length, precision)), g), precision);
+            /* 2 - fg, where fg = 1 + O(x^(precision / 2)) */
+            for (int i = 0; i < precision; i++) fg[i] = -fg[i];
+            fg[0] += 2;
+            g = Arrays.copyOf(PolynomialMultiplier.multiply(g, fg), precision);
+        }
+        return g;
+    }
+
+    /* When the dividend has a lower degree than the divisor, the quotient is 0 and the dividend is the remainder */
+    private static double[][] dividendTooSmall(double[] dividend, int divisorDegree) {
+        return new double[][] {new double[] {0}, Arrays.copyOf(dividend, Math.max(divisorDegree, 1))};
+    }
+
+    /* The coefficients in reverse order, cut down to the lowest coefficients of the reversed polynomial */
+    private static double[] reversed(double[] coefficients, int length) {
+        double[] reversed = new double[length];
+        for (int i = 0; i < length; i++) reversed[i] = coefficients[coefficients.length - 1 - i];
+        return reversed;
+    }
+}
@@ -0,0 +1,374 @@
+package polynomial.src;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * The greatest common divisor engine behind Polynomial.gcd and ModularPolynomial.gcd, and the square-free
+ * decomposition built on it.
+ *
+ * Over Z/pZ the arithmetic is exact, so the Euclidean algorithm gives the exact greatest common divisor. It takes a
+ * quadratic number of operations, so for large inputs the half-GCD algorithm is used instead: the quotients of the
+ * first half of the remainder sequence only depend on the upper halves of the coefficients, so they are found
+ * recursively from them, as a 2x2 matrix of polynomials that is then applied to the whole inputs with fast
+ * multiplication. The crossover point can be tuned with the "polynomial.halfGcdThreshold" system property, or at
+ * runtime.
+ *
+ * Over the doubles, rounding errors leave tiny remainders where exact ones would be 0, so the Euclidean algorithm is
+ * run with a tolerance, and the result is an approximate greatest common divisor: the last remainder that divides
+ * both inputs to within the tolerance. Half-GCD is not used here, since skipping the intermediate remainders leaves
+ * no way to check them against the tolerance, and its errors grow too quickly in floating point.
+ *
+ * The square-free decomposition of f is the sequence of pairwise coprime, square-free factors f1, f2, ... such that
+ * f = c f1 f2^2 f3^3 ..., found with Yun's algorithm. Every root of fi is a root of f with multiplicity exactly i.
+ */
+public class PolynomialGcd {
+
+    /** The default tolerance of the approximate greatest common divisor, relative to the scale of the division */
+    public static final double DEFAULT_TOLERANCE = 1e-8;
+
+    private static volatile int halfGcdThreshold = Integer.getInteger("polynomial.halfGcdThreshold", 128);
+
+    /* Remainder coefficients within this multiple of the division's scale are rounding errors, and taken to be 0 */
+    static final double ROUNDING_TOLERANCE = 64 * Math.ulp(1.0);
+    /* A candidate divisor must divide the inputs to within this multiple of the tolerance */
+    static final double DIVISIBILITY_FACTOR = 100;
+    /* The range of tolerances that are tried when the factors don't have the degrees of the exact decomposition */
+    private static final double MIN_TOLERANCE = 1e-14;
+    private static final double MAX_TOLERANCE = 1e-3;
+    private static final double TOLERANCE_STEP = 100;
+    /* Integers up to this magnitude are exact in doubles */
+    private static final double EXACT_INTEGER_BOUND = 0x1p53;
+
+    public static int getHalfGcdThreshold() {
+        return halfGcdThreshold;
+    }
+
+    /**
+     * Sets the degree from which the greatest common divisor of modular polynomials uses the half-GCD algorithm
+     * instead of the Euclidean algorithm.
+     * @param threshold the degree, at least 2
+     */
+    public static void setHalfGcdThreshold(int threshold) {
+        if (threshold < 2) throw new IllegalArgumentException("The half-GCD threshold must be at least 2.");
+        halfGcdThreshold = threshold;
+    }
+
+    /**
+     * Produces the approximate greatest common divisor of two coefficient arrays, with the Euclidean algorithm. A
+     * remainder is taken to be 0 once it is within the tolerance and the divisor also divides both inputs to within
+     * a hundred times the tolerance, so that remainders that are merely small because of roots that are close
+     * together are not mistaken for 0.
+     * @param first the coefficients of the first polynomial
+     * @param second the coefficients of the second polynomial
+     * @param tolerance the tolerance of the remainders, relative to the scale of the division
+     * @return the monic greatest common divisor, {1} if the polynomials are coprime, or {0} if both are 0
+     */
+    public static double[] gcd(double[] first, double[] second, double tolerance) {
+        double[] a = normalized(first);
+        double[] b = normalized(second);
+        if (isZero(b)) return monic(a);
+        if (isZero(a)) return monic(b);
+        if (a.length < b.length) {
+            double[] swap = a;
+            a = b;
+            b = swap;
+        }
+        double[] firstNormalized = a;
+        double[] secondNormalized = b;
+        while (b.length > 1) {
+            double[] remainder = remainder(a, b, ROUNDING_TOLERANCE);
+            if (remainder == null) return monic(b);
+            if (remainder(a, b, tolerance) == null &&
+                remainder(firstNormalized, b, DIVISIBILITY_FACTOR * tolerance) == null &&
+                remainder(secondNormalized, b, DIVISIBILITY_FACTOR * tolerance) == null) return monic(b);
+            a = b;
+            b = normalized(remainder);
+        }
+        return new double[] {1};
+    }
+
+    /**
+     * Produces the square-free decomposition of a coefficient array with Yun's algorithm. With a = gcd(f, f'),
+     * b = f / a and d = f' / a - b', every step splits off f(i) = gcd(b, d), then continues with b = b / f(i) and
+     * d = d / f(i) - b'. If the degrees of the factors don't add up to the degree of f, the greatest common divisors
+     * were not consistent within the tolerance, and f is returned as the only factor.
+     *
+     * No single tolerance suits every input, since the rounding errors of the remainders grow with the spread of the
+     * roots. If the coefficients are all integers that are exact in doubles, such as those of a product of (x - r)
+     * over integers r, the degrees of the exact factors are found first with Yun's algorithm over Z/pZ, modulo two
+     * large primes. The decomposition is then repeated with tolerances further and further from the given one until
+     * its factors have those degrees.
+     * @param coefficients the coefficients of f, of degree at least 1
+     * @param tolerance the tolerance of the greatest common divisors
+     * @return the monic factors, where the factor at index i has the roots of multiplicity i + 1, and is {1} if there
+     * are none
+     */
+    public static double[][] squareFree(double[] coefficients, double tolerance) {
+        double[][] factors = yun(coefficients, tolerance);
+        int[] exactDegrees = exactFactorDegrees(coefficients);
+        if (exactDegrees == null || hasDegrees(factors, exactDegrees)) return factors;
+
+        for (double t = tolerance * TOLERANCE_STEP; t <= MAX_TOLERANCE; t *= TOLERANCE_STEP) {
+            double[][] candidate = yun(coefficients, t);
+            if (hasDegrees(candidate, exactDegrees)) return candidate;
+        }
+        for (double t = tolerance / TOLERANCE_STEP; t >= MIN_TOLERANCE; t /= TOLERANCE_STEP) {
+            double[][] candidate = yun(coefficients, t);
+            if (hasDegrees(candidate, exactDegrees)) return candidate;
+        }
+        return factors;
+    }
+
+    /* Yun's algorithm with approximate greatest common divisors */
+    private static double[][] yun(double[] coefficients, double tolerance) {
+        double[] f = monic(normalized(coefficients));
+        int degree = f.length - 1;
+        if (degree < 1) return new double[0][];
+
+        double[] fDerivative = derivative(f);
+        double[] a = gcd(f, fDerivative, tolerance);
+        double[] b = quotient(f, a);
+        double[] d = difference(quotient(fDerivative, a), derivative(b), tolerance);
+
+        ArrayList<double[]> factors = new ArrayList<double[]>();
+        int degreeSum = 0;
+        while (b.length > 1 && factors.size() < degree) {
+            /* d vanishes once every factor left in b has the current multiplicity */
+            double[] factor = d == null ? monic(b) : gcd(b, d, tolerance);
+            factors.add(factor);
+            degreeSum += factors.size() * (factor.length - 1);
+            b = quotient(b, factor);
+            d = d == null ? null : difference(quotient(d, factor), derivative(b), tolerance);
+        }
+        if (degreeSum != degree) return new double[][] {f};
+        return factors.toArray(new double[0][]);
+    }
+
+    /**
+     * The degrees of the exact square-free factors of a polynomial with integer coefficients, or null if it has other
+     * coefficients. Yun's algorithm is exact over Z/pZ for p above the degree, and the decomposition modulo p only
+     * differs from the one over the rationals for the few primes that divide the leading coefficient or the
+     * discriminant of one of the factors, so it is done modulo two primes and only trusted if both agree.
+     */
+    private static int[] exactFactorDegrees(double[] coefficients) {
+        int highest = coefficients.length - 1;
+        while (highest > 0 && coefficients[highest] == 0) highest--;
+        long[] integers = new long[highest + 1];
+        for (int i = 0; i <= highest; i++) {
+            double c = coefficients[i];
+            if (c != Math.rint(c) || !(Math.abs(c) < EXACT_INTEGER_BOUND)) return null;
+            integers[i] = (long) c;
+        }
+        long prime = ModularPolynomial.MAX_MODULUS;
+        int[] first = modularFactorDegrees(integers, prime);
+        do prime -= 2; while (!ModularMultiplier.isPrime(prime));
+        int[] second = modularFactorDegrees(integers, prime);
+        return first != null && Arrays.equals(first, second) ? first : null;
+    }
+
+    /* The degrees of the square-free factors modulo a prime, with Yun's algorithm, or null if the degree drops */
+    private static int[] modularFactorDegrees(long[] integers, long prime) {
+        ModularPolynomial f = ModularPolynomial.fromCoefficients(prime, integers);
+        if (f.getDegree() != integers.length - 1) return null;
+        ModularPolynomial a = f.gcd(f.derivative());
+        ModularPolynomial b = f.divide(a).getQuotient();
+        ModularPolynomial d = f.derivative().divide(a).getQuotient().subtract(b.derivative());
+        int[] degrees = new int[f.getDegree()];
+        int count = 0;
+        while (b.getDegree() > 0) {
+            ModularPolynomial factor = b.gcd(d);
+            degrees[count++] = factor.getDegree();
+            b = b.divide(factor).getQuotient();
+            d = d.divide(factor).getQuotient().subtract(b.derivative());
+        }
+        return Arrays.copyOf(degrees, count);
+    }
+
+    private static boolean hasDegrees(double[][] factors, int[] degrees) {
+        if (factors.length != degrees.length) return false;
+        for (int i = 0; i < degrees.length; i++) {
+            if (factors[i].length - 1 != degrees[i]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Produces the monic greatest common divisor of two polynomials over Z/pZ, with the Euclidean algorithm for low
+     * degrees and the half-GCD algorithm for high ones.
+     * @param first the first polynomial
+     * @param second the second polynomial, with the same modulus
+     * @return the monic greatest common divisor, or 0 if both polynomials are 0
+     */
+    static ModularPolynomial gcd(ModularPolynomial first, ModularPolynomial second) {
+        ModularPolynomial a = first;
+        ModularPolynomial b = second;
+        if (degree(a) < degree(b)) {
+            ModularPolynomial swap = a;
+            a = b;
+            b = swap;
+        }
+        while (degree(b) >= 0) {
+            if (degree(b) >= halfGcdThreshold && degree(a) > degree(b)) {
+                ModularPolynomial[] reduced = apply(halfGcd(a, b), a, b);
+                a = reduced[0];
+                b = reduced[1];
+                if (degree(b) < 0) break;
+            }
+            ModularPolynomial remainder = a.divide(b).getRemainder();
+            a = b;
+            b = remainder;
+        }
+        return degree(a) < 0 ? a : a.scaled(ModularMultiplier.inverse(a.getLeadingCoeff(), a.getModulus()));
+    }
+
+    /**
+     * The half-GCD of a and b, with deg a > deg b: the matrix M of the quotients of the remainder sequence such that
+     * M (a, b) = (r(i), r(i + 1)), the first consecutive remainders with deg r(i + 1) < m = ceil(deg a / 2). The
+     * first half of the quotients comes from the upper coefficients of a and b, above x^m, and the second half from
+     * the upper coefficients of the remainders that are left after one more division.
+     */
+    private static ModularPolynomial[] halfGcd(ModularPolynomial a, ModularPolynomial b) {
+        int m = (degree(a) + 1) / 2;
+        if (degree(b) < m) return identity(a.getModulus());
+        if (degree(a) < halfGcdThreshold) return euclideanHalfGcd(a, b, m);
+
+        ModularPolynomial[] r = halfGcd(a.shiftedDown(m), b.shiftedDown(m));
+        ModularPolynomial[] reduced = apply(r, a, b);
+        a = reduced[0];
+        b = reduced[1];
+        if (degree(b) < m) return r;
+
+        ModularQuotientRemainder division = a.divide(b);
+        r = quotientStep(division.getQuotient(), r);
+        a = b;
+        b = division.getRemainder();
+        if (degree(b) < m) return r;
+
+        /* deg a < 2m here, so the second half works on the top 2 (deg a - m) coefficients */
+        int k = 2 * m - degree(a);
+        return multiply(halfGcd(a.shiftedDown(k), b.shiftedDown(k)), r);
+    }
+
+    /* The half-GCD matrix from plain division steps, for low degrees */
+    private static ModularPolynomial[] euclideanHalfGcd(ModularPolynomial a, ModularPolynomial b, int m) {
+        ModularPolynomial[] r = identity(a.getModulus());
+        while (degree(b) >= m) {
+            ModularQuotientRemainder division = a.divide(b);
+            r = quotientStep(division.getQuotient(), r);
+            a = b;
+            b = division.getRemainder();
+        }
+        return r;
+    }
+
+    /* The matrices are stored as {m00, m01, m10, m11}. One division step is (a, b) -> (b, a - qb), the matrix [0 1; 1 -q] */
+    private static ModularPolynomial[] quotientStep(ModularPolynomial q, ModularPolynomial[] r) {
+        return new ModularPolynomial[] {r[2], r[3], r[0].subtract(q.multiply(r[2])), r[1].subtract(q.multiply(r[3]))};
+    }
+
+    private static ModularPolynomial[] multiply(ModularPolynomial[] s, ModularPolynomial[] r) {
+        return new ModularPolynomial[] {s[0].multiply(r[0]).add(s[1].multiply(r[2])), s[0].multiply(r[1]).add(s[1].multiply(r[3])),
+                                        s[2].multiply(r[0]).add(s[3].multiply(r[2])), s[2].multiply(r[1]).add(s[3].multiply(r[3]))};
+    }
+
+    private static ModularPolynomial[] apply(ModularPolynomial[] r, ModularPolynomial a, ModularPolynomial b) {
+        return new ModularPolynomial[] {r[0].multiply(a).add(r[1].multiply(b)), r[2].multiply(a).add(r[3].multiply(b))};
+    }
+
+    private static ModularPolynomial[] identity(long modulus) {
+        ModularPolynomial zero = new ModularPolynomial(modulus, new long[] {0});
+        ModularPolynomial one = new ModularPolynomial(modulus, new long[] {1});
+        return new ModularPolynomial[] {one, zero, zero, one};
+    }
+
+    /* The degree of a modular polynomial, taking the degree of 0 to be -1 */
+    private static int degree(ModularPolynomial polynomial) {
+        return polynomial.getDegree() == 0 && polynomial.getLeadingCoeff() == 0 ? -1 : polynomial.getDegree();
+    }
+
+    private static boolean isZero(double[] coefficients) {
+        return coefficients.length == 1 && coefficients[0] == 0;
+    }
+
+    private static double[] monic(double[] coefficients) {
+        double[] monic = coefficients.clone();
+        double lead = monic[monic.length - 1];
+        if (lead != 0) for (int i = 0; i < monic.length; i++) monic[i] /= lead;
+        return monic;
+    }
+
+    private static double[] derivative(double[] coefficients) {
+        if (coefficients.length == 1) return new double[] {0};
+        double[] derivative = new double[coefficients.length - 1];
+        for (int i = 1; i < coefficients.length; i++) derivative[i - 1] = coefficients[i] * i;
+        return derivative;
+    }
+
+    /* The quotient of a division that is exact up to rounding, whose remainder is dropped */
+    private static double[] quotient(double[] dividend, double[] divisor) {
+        return PolynomialDivider.divide(dividend, divisor)[0];
+    }
+
+    /* The difference of two arrays, unscaled, or null if it is 0 to within the divisibility tolerance relative to their scale */
+    private static double[] difference(double[] first, double[] second, double tolerance) {
+        double[] difference = Arrays.copyOf(first, Math.max(first.length, second.length));
+        double scale = 0;
+        double largest = 0;
+        for (int i = 0; i < difference.length; i++) {
+            double s = i < second.length ? second[i] : 0;
+            scale = Math.max(scale, Math.max(Math.abs(difference[i]), Math.abs(s)));
+            difference[i] -= s;
+            largest = Math.max(largest, Math.abs(difference[i]));
+        }
+        if (largest <= DIVISIBILITY_FACTOR * tolerance * scale) return null;
+        int highest = difference.length - 1;
+        while (highest > 0 && difference[highest] == 0) highest--;
+        return Arrays.copyOf(difference, highest + 1);
+    }
+
+    /**
+     * Scales the coefficients so that the largest magnitude is 1, and trims leading zeros.
+     * @param coefficients the coefficients from the constant term upwards
+     * @return the scaled coefficients, or {0} for the zero polynomial
+     */
+    static double[] normalized(double[] coefficients) {
+        int highest = coefficients.length - 1;
+        while (highest > 0 && coefficients[highest] == 0) highest--;
+        if (highest < 0) return new double[] {0};
+        double max = 0;
+        for (int i = 0; i <= highest; i++) max = Math.max(max, Math.abs(coefficients[i]));
+        double[] result = Arrays.copyOf(coefficients, highest + 1);
+        if (max > 0) for (int i = 0; i <= highest; i++) result[i] /= max;
+        return result;
+    }
+
+    /**
+     * The remainder of the long division of two normalized polynomials, or null if it is 0 to within a tolerance
+     * relative to the scale of the division. Leading coefficients within the tolerance are rounding errors of the
+     * cancellation, and are trimmed off, but the coefficients below the first significant one are kept as they are:
+     * small is not the same as meaningless there, and zeroing them changes the signs of the remainder away from 0.
+     * @param dividend the coefficients of the dividend
+     * @param divisor the coefficients of the divisor, with a non-zero leading coefficient
+     * @param relativeTolerance the tolerance, relative to 1 plus the largest magnitude of the quotient coefficients
+     * @return the coefficients of the remainder, or null if it is taken to be 0
+     */
+    static double[] remainder(double[] dividend, double[] divisor, double relativeTolerance) {
+        int divisorDegree = divisor.length - 1;
+        if (divisorDegree == 0 || dividend.length <= divisorDegree) return divisorDegree == 0 ? null : dividend.clone();
+        double[] remainder = dividend.clone();
+        double largestQuotient = 0;
+
+        for (int k = dividend.length - 1 - divisorDegree; k >= 0; k--) {
+            double quotient = remainder[k + divisorDegree] / divisor[divisorDegree];
+            largestQuotient = Math.max(largestQuotient, Math.abs(quotient));
+            for (int i = 0; i < divisorDegree; i++) remainder[k + i] -= quotient * divisor[i];
+            remainder[k + divisorDegree] = 0;
+        }
+
+        double tolerance = relativeTolerance * (1 + largestQuotient);
+        int highest = divisorDegree - 1;
+        while (highest >= 0 && Math.abs(remainder[highest]) <= tolerance) highest--;
+        return highest < 0 ? null : Arrays.copyOf(remainder, highest + 1);
+    }
+}
@@ -0,0 +1,291 @@
+package polynomial.src;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Runtime instrumentation of the expensive operations: multiplication, division, root finding and parsing. While
+ * it is enabled, every operation is timed and counted, its latency is added to a histogram, the listeners are
+ * called, and JDK Flight Recorder events are committed if a recording has them enabled. Root searches also report
+ * their iteration count, the depth of the bisection that isolated the roots, and whether an iteration limit was hit.
+ *
+ * It is disabled by default, unless the system property polynomial.metrics is true. While it is disabled, an
+ * operation only reads a single volatile flag, and no clock is read and nothing is allocated. The counts are kept in
+ * LongAdders, so recording from many threads at once doesn't contend.
+ *
+ * The histograms have a bucket for every power of 2: bucket i counts the operations that took from 2^i up to
+ * 2^(i + 1) - 1 nanoseconds, and bucket 0 also counts those that took 0.
+ *
+ * @see PolynomialMetricsListener
+ */
+public final class PolynomialMetrics {
+
+    /** The operations that are recorded */
+    public enum Operation {
+        MULTIPLY,
+        DIVIDE,
+        REAL_ROOTS,
+        COMPLEX_ROOTS,
+        PARSE
+    }
+
+    static final int BUCKETS = 64;
+    /* The start time of an operation that isn't recorded */
+    static final long NOT_TIMED = Long.MIN_VALUE;
+
+    private static volatile boolean enabled = Boolean.getBoolean("polynomial.metrics");
+    private static final CopyOnWriteArrayList<PolynomialMetricsListener> LISTENERS = new CopyOnWriteArrayList<PolynomialMetricsListener>();
+
+    private static final LongAdder[] COUNTS = adders(Operation.values().length);
+    private static final LongAdder[] TOTAL_NANOS = adders(Operation.values().length);
+    /* The histogram of operation o is at o.ordinal() * BUCKETS until (o.ordinal() + 1) * BUCKETS */
+    private static final LongAdder[] HISTOGRAMS = adders(Operation.values().length * BUCKETS);
+
+    private PolynomialMetrics() {}
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Turns the recording of operations on or off. Operations that are running when it is changed may or may not
+     * be recorded.
+     * @param on whether operations are recorded
+     */
+    public static void setEnabled(boolean on) {
+        enabled = on;
+    }
+
+    /**
+     * Adds a listener, which is called for every operation that is recorded from now on.
+     * @param listener the listener
+     */
+    public static void addListener(PolynomialMetricsListener listener) {
+        if (listener == null) throw new IllegalArgumentException("The listener must not be null.");
+        LISTENERS.add(listener);
+    }
+
+    /**
+     * Removes a listener that was added before.
+     * @param listener the listener
+     * @return whether the listener had been added
+     */
+    public static boolean removeListener(PolynomialMetricsListener listener) {
+        return LISTENERS.remove(listener);
+    }
+
+    /**
+     * Produces the number of times an operation was recorded.
+     * @param operation the operation
+     * @return the count since the start or the last reset
+     */
+    public static long getCount(Operation operation) {
+        return COUNTS[operation.ordinal()].sum();
+    }
+
+    /**
+     * Produces the total time spent in an operation.
+     * @param operation the operation
+     * @return the sum of the latencies in nanoseconds since the start or the last reset
+     */
+    public static long getTotalNanos(Operation operation) {
+        return TOTAL_NANOS[operation.ordinal()].sum();
+    }
+
+    /**
+     * Produces the mean latency of an operation.
+     * @param operation the operation
+     * @return the mean latency in nanoseconds, or 0 if it was never recorded
+     */
+    public static double getMeanNanos(Operation operation) {
+        long count = getCount(operation);
+        return count == 0 ? 0 : (double) getTotalNanos(operation) / count;
+    }
+
+    /**
+     * Produces the latency histogram of an operation.
+     * @param operation the operation
+     * @return a new array of BUCKETS counts, where index i counts the latencies from 2^i to 2^(i + 1) - 1 nanoseconds
+     */
+    public static long[] getLatencyHistogram(Operation operation) {
+        long[] histogram = new long[BUCKETS];
+        int offset = operation.ordinal() * BUCKETS;
+        for (int i = 0; i < BUCKETS; i++) histogram[i] = HISTOGRAMS[offset + i].sum();
+        return histogram;
+    }
+
+    /**
+     * Produces an upper bound of a percentile of the latency of an operation, from its histogram. The bound is the
+     * upper end of the bucket that holds the percentile, so it is at most twice the exact latency.
+     * @param operation the operation
+     * @param quantile the fraction of the operations, from 0 to 1, such as 0.99 for the 99th percentile
+     * @return the latency in nanoseconds that at least that fraction of the operations took at most, or 0 if the
+     *         operation was never recorded
+     * @throws IllegalArgumentException if the quantile is not between 0 and 1
+     */
+    public static long getPercentileNanos(Operation operation, double quantile) {
+        if (!(quantile >= 0 && quantile <= 1)) throw new IllegalArgumentException("The quantile must be between 0 and 1.");
+        long[] histogram = getLatencyHistogram(operation);
+        long total = 0;
+        for (long count : histogram) total += count;
+        if (total == 0) return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS - 1; i++) {
+            seen += histogram[i];
+            if (seen >= rank) return (1L << (i + 1)) - 1;
+        }
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * Sets all the counts, totals and histograms back to 0. Operations that are recorded at the same time may or may
+     * not be kept.
+     */
+    public static void reset() {
+        for (LongAdder adder : COUNTS) adder.reset();
+        for (LongAdder adder : TOTAL_NANOS) adder.reset();
+        for (LongAdder adder : HISTOGRAMS) adder.reset();
+    }
+
+    /**
+     * Produces the counts, mean latencies and 99th percentiles of all the operations, one line each.
+     * @return the summary
+     */
+    public static String summary() {
+        StringBuilder summary = new StringBuilder();
+        for (Operation operation : Operation.values()) {
+            summary.append(String.format("%-13s count=%d mean=%.0fns p99<=%dns%n", operation, getCount(operation),
+                                         getMeanNanos(operation), getPercentileNanos(operation, 0.99)));
+        }
+        return summary.toString();
+    }
+
+    /* The start time of an operation, or NOT_TIMED if it isn't recorded */
+    static long start() {
+        return enabled ? System.nanoTime() : NOT_TIMED;
+    }
+
+    /* The statistics for a root search to collect, or null if it isn't recorded */
+    static RootSearchStats startRootSearch() {
+        return enabled ? new RootSearchStats(System.nanoTime()) : null;
+    }
+
+    /**
+     * Records an operation that was started with start().
+     * @param operation the operation
+     * @param degree the degree of the largest polynomial involved
+     * @param start the value of start() before the operation
+     */
+    static void record(Operation operation, int degree, long start) {
+        if (start == NOT_TIMED) return;
+        long nanos = Math.max(0, System.nanoTime() - start);
+        count(operation, nanos);
+
+        OperationEvent event = new OperationEvent();
+        if (event.shouldCommit()) {
+            event.operation = operation.name();
+            event.degree = degree;
+            event.elapsed = nanos;
+            event.commit();
+        }
+        for (PolynomialMetricsListener listener : LISTENERS) listener.operationCompleted(operation, degree, nanos);
+    }
+
+    /**
+     * Records a root search that was started with startRootSearch().
+     * @param operation REAL_ROOTS or COMPLEX_ROOTS
+     * @param degree the degree of the polynomial
+     * @param stats the value of startRootSearch() before the search, with the statistics that were collected
+     */
+    static void record(Operation operation, int degree, RootSearchStats stats) {
+        if (stats == null) return;
+        long nanos = Math.max(0, System.nanoTime() - stats.start);
+        long iterations = stats.iterations.sum();
+        count(operation, nanos);
+
+        RootSearchEvent event = new RootSearchEvent();
+        if (event.shouldCommit()) {
+            event.operation = operation.name();
+            event.degree = degree;
+            event.iterations = iterations;
+            event.depth = stats.depth;
+            event.converged = stats.converged;
+            event.elapsed = nanos;
+            event.commit();
+        }
+        for (PolynomialMetricsListener listener : LISTENERS) {
+            listener.operationCompleted(operation, degree, nanos);
+            listener.rootSearchCompleted(operation, degree, iterations, stats.depth, stats.converged);
+        }
+    }
+
+    private static void count(Operation operation, long nanos) {
+        int index = operation.ordinal();
+        COUNTS[index].increment();
+        TOTAL_NANOS[index].add(nanos);
+        int bucket = nanos == 0 ? 0 : 63 - Long.numberOfLeadingZeros(nanos);
+        HISTOGRAMS[index * BUCKETS + bucket].increment();
+    }
+
+    private static LongAdder[] adders(int count) {
+        LongAdder[] adders = new LongAdder[count];
+        for (int i = 0; i < count; i++) adders[i] = new LongAdder();
+        return adders;
+    }
+
+    @Name("polynomial.Operation")
+    @Label("Polynomial Operation")
+    @Category("Polynomial")
+    @Description("A multiplication, division, root search or parse of a polynomial")
+    static final class OperationEvent extends Event {
+
+        @Label("Operation")
+        String operation;
+
+        @Label("Degree")
+        @Description("The degree of the largest polynomial involved")
+        int degree;
+
+        @Label("Elapsed")
+        @Timespan(Timespan.NANOSECONDS)
+        long elapsed;
+    }
+
+    @Name("polynomial.RootSearch")
+    @Label("Polynomial Root Search")
+    @Category("Polynomial")
+    @Description("The iterations and convergence of a search for the roots of a polynomial")
+    static final class RootSearchEvent extends Event {
+
+        @Label("Operation")
+        String operation;
+
+        @Label("Degree")
+        int degree;
+
+        @Label("Iterations")
+        @Description("Refinement steps over all the real roots, or Aberth passes for complex roots")
+        long iterations;
+
+        @Label("Depth")
+        @Description("The deepest bisection needed to isolate the real roots")
+        int depth;
+
+        @Label("Converged")
+        @Description("False if an iteration limit was hit before some root was found to full precision")
+        boolean converged;
+
+        @Label("Elapsed")
+        @Timespan(Timespan.NANOSECONDS)
+        long elapsed;
+    }
+}
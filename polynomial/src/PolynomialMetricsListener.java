@@ -0,0 +1,32 @@
+package polynomial.src;
+
+/**
+ * A listener for the operations that PolynomialMetrics records, for forwarding them to a metrics system of the
+ * application. Listeners are called on the thread that ran the operation, right after it completes, so they should
+ * return quickly and must be safe for use by multiple threads at once. Both methods do nothing by default.
+ *
+ * @see PolynomialMetrics#addListener
+ */
+public interface PolynomialMetricsListener {
+
+    /**
+     * Called after every recorded operation.
+     * @param operation the operation
+     * @param degree the degree of the largest polynomial involved: the product, the dividend, the polynomial whose
+     *               roots were found, or the parsed polynomial
+     * @param nanos the time the operation took, in nanoseconds
+     */
+    default void operationCompleted(PolynomialMetrics.Operation operation, int degree, long nanos) {}
+
+    /**
+     * Called after every root search, following the call of operationCompleted for it.
+     * @param operation REAL_ROOTS or COMPLEX_ROOTS
+     * @param degree the degree of the polynomial whose roots were found
+     * @param iterations the number of refinement steps for real roots, summed over all the roots, or the number of
+     *                   Aberth passes for complex roots
+     * @param depth the deepest bisection that was needed to isolate the real roots, and 0 for complex roots
+     * @param converged false if an iteration limit was hit before some root was found to full precision
+     */
+    default void rootSearchCompleted(PolynomialMetrics.Operation operation, int degree, long iterations, int depth,
+                                     boolean converged) {}
+}
@@ -0,0 +1,296 @@
+package polynomial.src;
+
+import java.util.Arrays;
+
+/**
+ * The multiplication engine behind Polynomial.multiply. Coefficient arrays are given from the
+ * constant term upwards, and the algorithm is picked by the size of the smaller factor:
+ * the schoolbook method for tiny inputs, Karatsuba for medium ones, and a convolution using the
+ * fast Fourier transform for large ones. The crossover points can be tuned with the
+ * "polynomial.karatsubaThreshold" and "polynomial.fftThreshold" system properties, or at runtime.
+ */
+public class PolynomialMultiplier {
+
+    private static volatile int karatsubaThreshold = Integer.getInteger("polynomial.karatsubaThreshold", 32);
+    private static volatile int fftThreshold = Integer.getInteger("polynomial.fftThreshold", 1024);
+
+    /** Integer valued products are rounded back to integers if max|a| max|b| min(m, n), times the log2 N passes of the
+     * transform, is below this bound. The rounding error of the transform grows with both, and the bound keeps it well
+     * under 1/2, so the nearest integer is the exact coefficient. */
+    private static final double EXACT_INTEGER_BOUND = 0x1p48;
+    /* The rounded product is checked at this point modulo this prime, whose residues multiply without overflowing a long */
+    private static final long CHECK_PRIME = 2147483647;
+    private static final long CHECK_POINT = 1000003;
+
+    public static int getKaratsubaThreshold() {
+        return karatsubaThreshold;
+    }
+
+    /**
+     * Sets the size of the smaller factor from which Karatsuba is used instead of the schoolbook method.
+     * @param threshold the number of coefficients, at least 2
+     */
+    public static void setKaratsubaThreshold(int threshold) {
+        if (threshold < 2) throw new IllegalArgumentException("The Karatsuba threshold must be at least 2.");
+        karatsubaThreshold = threshold;
+    }
+
+    public static int getFftThreshold() {
+        return fftThreshold;
+    }
+
+    /**
+     * Sets the size of the smaller factor from which the FFT convolution is used instead of Karatsuba.
+     * @param threshold the number of coefficients, at least 1
+     */
+    public static void setFftThreshold(int threshold) {
+        if (threshold < 1) throw new IllegalArgumentException("The FFT threshold must be at least 1.");
+        fftThreshold = threshold;
+    }
+
+    /**
+     * Produces the product of two coefficient arrays, using the algorithm that suits their size.
+     * @param first the coefficients of the first factor
+     * @param second the coefficients of the second factor
+     * @return the coefficients of the product, of length first.length + second.length - 1
+     */
+    public static double[] multiply(double[] first, double[] second) {
+        int smaller = Math.min(first.length, second.length);
+        if (smaller >= fftThreshold) return fft(first, second);
+        else if (smaller >= karatsubaThreshold) return karatsuba(first, second);
+        else return schoolbook(first, second);
+    }
+
+    /**
+     * Produces the product of two coefficient arrays by multiplying every pair of coefficients.
+     * @param first the coefficients of the first factor
+     * @param second the coefficients of the second factor
+     * @return the coefficients of the product
+     */
+    public static double[] schoolbook(double[] first, double[] second) {
+        double[] product = new double[first.length + second.length - 1];
+        schoolbookInto(first, 0, first.length, second, 0, second.length, product, 0);
+        return product;
+    }
+
+    /**
+     * Produces the product of two coefficient arrays with Karatsuba's method, which replaces the four
+     * half-size products of the schoolbook method by three. Unbalanced factors are split into blocks
+     * the size of the smaller factor.
+     * @param first the coefficients of the first factor
+     * @param second the coefficients of the second factor
+     * @return the coefficients of the product
+     */
+    public static double[] karatsuba(double[] first, double[] second) {
+        /* Make the first factor the longer one, so it is the one cut into blocks */
+        if (first.length < second.length) {
+            double[] swap = first;
+            first = second;
+            second = swap;
+        }
+        int blockLength = second.length;
+        double[] product = new double[first.length + second.length - 1];
+        double[] block = new double[blockLength];
+
+        for (int offset = 0; offset < first.length; offset += blockLength) {
+            int length = Math.min(blockLength, first.length - offset);
+            if (length == blockLength) {
+                karatsubaInto(first, offset, second, 0, blockLength, product, offset);
+            }
+            else {
+                /* The last block is padded with zeros, so both halves of the recursion have equal lengths */
+                Arrays.fill(block, 0);
+                System.arraycopy(first, offset, block, 0, length);
+                double[] partial = new double[2 * blockLength - 1];
+                karatsubaInto(block, 0, second, 0, blockLength, partial, 0);
+                for (int i = 0; i < length + blockLength - 1; i++) product[offset + i] += partial[i];
+            }
+        }
+        return product;
+    }
+
+    /**
+     * Produces the product of two coefficient arrays as a convolution computed with the fast Fourier transform.
+     * Both real inputs are packed into a single complex transform. If both factors have integer coefficients
+     * and the product is small enough to be exact, the result is rounded back to integers. The rounded result is
+     * checked against the factors modulo a prime, and the exact schoolbook product is used if it doesn't match.
+     * @param first the coefficients of the first factor
+     * @param second the coefficients of the second factor
+     * @return the coefficients of the product
+     */
+    public static double[] fft(double[] first, double[] second) {
+        int productLength = first.length + second.length - 1;
+        int n = Integer.highestOneBit(Math.max(productLength - 1, 1)) << 1;
+
+        double[] re = new double[n];
+        double[] im = new double[n];
+        System.arraycopy(first, 0, re, 0, first.length);
+        System.arraycopy(second, 0, im, 0, second.length);
+        transform(re, im, false);
+
+        /** With z = a + ib, the transform of the product is (Z[k]^2 - conj(Z[n-k])^2) / 4i, which is computed
+         * for k and n-k at the same time so the arrays can be overwritten in place. */
+        for (int k = 0; k <= n / 2; k++) {
+            int j = (n - k) & (n - 1);
+            double zkRe = re[k], zkIm = im[k];
+            double zjRe = re[j], zjIm = im[j];
+
+            double kSquareRe = zkRe * zkRe - zkIm * zkIm, kSquareIm = 2 * zkRe * zkIm;
+            double jSquareRe = zjRe * zjRe - zjIm * zjIm, jSquareIm = 2 * zjRe * zjIm;
+
+            /* conj(Z[j])^2 = conj(Z[j]^2), and dividing by 4i maps (u + iv) to (v - iu) / 4 */
+            double diffRe = kSquareRe - jSquareRe, diffIm = kSquareIm + jSquareIm;
+            re[k] = diffIm / 4;
+            im[k] = -diffRe / 4;
+
+            double otherDiffRe = jSquareRe - kSquareRe, otherDiffIm = jSquareIm + kSquareIm;
+            re[j] = otherDiffIm / 4;
+            im[j] = -otherDiffRe / 4;
+        }
+        transform(re, im, true);
+
+        double[] product = Arrays.copyOf(re, productLength);
+        if (isExactIntegerProduct(first, second, n)) {
+            for (int i = 0; i < productLength; i++) product[i] = Math.rint(product[i]);
+            if (residue(product) != residue(first) * residue(second) % CHECK_PRIME) return schoolbook(first, second);
+        }
+        return product;
+    }
+
+    /* Adds the schoolbook product of two slices into the result, starting at resultOffset */
+    private static void schoolbookInto(double[] first, int firstOffset, int firstLength,
+                                       double[] second, int secondOffset, int secondLength,
+                                       double[] result, int resultOffset) {
+        for (int i = 0; i < firstLength; i++) {
+            double coefficient = first[firstOffset + i];
+            if (coefficient == 0) continue;
+            int base = resultOffset + i;
+            for (int j = 0; j < secondLength; j++) {
+                result[base + j] += coefficient * second[secondOffset + j];
+            }
+        }
+    }
+
+    /* Adds the Karatsuba product of two slices of equal length into the result, starting at resultOffset */
+    private static void karatsubaInto(double[] first, int firstOffset, double[] second, int secondOffset,
+                                      int length, double[] result, int resultOffset) {
+        if (length < karatsubaThreshold || length < 2) {
+            schoolbookInto(first, firstOffset, length, second, secondOffset, length, result, resultOffset);
+            return;
+        }
+        /* Split both factors as low + x^low * high, where the high halves are at least as long as the low halves */
+        int low = length / 2;
+        int high = length - low;
+
+        double[] lowProduct = new double[2 * low - 1];
+        double[] highProduct = new double[2 * high - 1];
+        karatsubaInto(first, firstOffset, second, secondOffset, low, lowProduct, 0);
+        karatsubaInto(first, firstOffset + low, second, secondOffset + low, high, highProduct, 0);
+
+        double[] firstSum = new double[high];
+        double[] secondSum = new double[high];
+        for (int i = 0; i < high; i++) {
+            firstSum[i] = first[firstOffset + low + i];
+            secondSum[i] = second[secondOffset + low + i];
+        }
+        for (int i = 0; i < low; i++) {
+            firstSum[i] += first[firstOffset + i];
+            secondSum[i] += second[secondOffset + i];
+        }
+        double[] middleProduct = new double[2 * high - 1];
+        karatsubaInto(firstSum, 0, secondSum, 0, high, middleProduct, 0);
+
+        /* The cross terms are (a0 + a1)(b0 + b1) - a0*b0 - a1*b1 */
+        for (int i = 0; i < lowProduct.length; i++) {
+            result[resultOffset + i] += lowProduct[i];
+            middleProduct[i] -= lowProduct[i];
+        }
+        for (int i = 0; i < highProduct.length; i++) {
+            result[resultOffset + 2 * low + i] += highProduct[i];
+            middleProduct[i] -= highProduct[i];
+        }
+        for (int i = 0; i < middleProduct.length; i++) {
+            result[resultOffset + low + i] += middleProduct[i];
+        }
+    }
+
+    /* Whether both factors only have integer coefficients, and a transform of length n finds their product to within 1/2 */
+    private static boolean isExactIntegerProduct(double[] first, double[] second, int n) {
+        double firstMax = maxIntegerMagnitude(first);
+        double secondMax = maxIntegerMagnitude(second);
+        if (Double.isNaN(firstMax) || Double.isNaN(secondMax)) return false;
+        int passes = Math.max(1, Integer.numberOfTrailingZeros(n));
+        return firstMax * secondMax * Math.min(first.length, second.length) * passes < EXACT_INTEGER_BOUND;
+    }
+
+    /* The value at the check point modulo the check prime, of a polynomial whose coefficients are integers below 2^53 */
+    private static long residue(double[] coefficients) {
+        long residue = 0;
+        for (int i = coefficients.length - 1; i >= 0; i--) {
+            residue = (residue * CHECK_POINT + Math.floorMod((long) coefficients[i], CHECK_PRIME)) % CHECK_PRIME;
+        }
+        return residue;
+    }
+
+    /* The largest magnitude among the coefficients, or NaN if any of them is not an integer */
+    private static double maxIntegerMagnitude(double[] coefficients) {
+        double max = 0;
+        for (double coefficient : coefficients) {
+            if (coefficient != Math.rint(coefficient)) return Double.NaN;
+            max = Math.max(max, Math.abs(coefficient));
+        }
+        return max;
+    }
+
+    /**
+     * In-place iterative radix-2 fast Fourier transform. The length of the arrays must be a power of two.
+     * The inverse transform includes the division by the length.
+     */
+    static void transform(double[] re, double[] im, boolean inverse) {
+        int n = re.length;
+
+        /* Reorder the elements into bit-reversed order, so the butterflies can work in place */
+        for (int i = 1, j = 0; i < n; i++) {
+            int bit = n >> 1;
+            for (; (j & bit) != 0; bit >>= 1) j ^= bit;
+            j ^= bit;
+            if (i < j) {
+                double swap = re[i]; re[i] = re[j]; re[j] = swap;
+                swap = im[i]; im[i] = im[j]; im[j] = swap;
+            }
+        }
+
+        /* The roots of unity are computed directly rather than by repeated multiplication, to limit rounding error */
+        double[] cos = new double[n / 2];
+        double[] sin = new double[n / 2];
+        for (int k = 0; k < n / 2; k++) {
+            double angle = 2 * Math.PI * k / n;
+            cos[k] = Math.cos(angle);
+            sin[k] = inverse ? Math.sin(angle) : -Math.sin(angle);
+        }
+
+        for (int size = 2; size <= n; size <<= 1) {
+            int half = size >> 1;
+            int step = n / size;
+            for (int start = 0; start < n; start += size) {
+                for (int k = 0; k < half; k++) {
+                    double wRe = cos[k * step], wIm = sin[k * step];
+                    int even = start + k, odd = even + half;
+                    double oddRe = re[odd] * wRe - im[odd] * wIm;
+                    double oddIm = re[odd] * wIm + im[odd] * wRe;
+                    re[odd] = re[even] - oddRe;
+                    im[odd] = im[even] - oddIm;
+                    re[even] += oddRe;
+                    im[even] += oddIm;
+                }
+            }
+        }
+
+        if (inverse) {
+            for (int i = 0; i < n; i++) {
+                re[i] /= n;
+                im[i] /= n;
+            }
+        }
+    }
+}
@@ -1,30 +1,496 @@
 package polynomial.src;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A single pass scanner that parses polynomial expressions straight into the degrees and coefficients of their terms,
+ * without building any intermediate strings. Expressions are read from a CharSequence, or from the bytes of a
+ * ByteBuffer as ASCII text, and the accepted format is a sum of terms such as
+ *
+ *     3x^2 - x + 2.5e-3,   -x^2 + 1,   (3.0)x^2 + (2.0)x^1 + -5.0,   2 * x^3
+ *
+ * A term is an optional coefficient, which may be in scientific notation and may be put in parentheses, followed by
+ * an optional x with an optional exponent. A missing coefficient is 1, and a missing exponent is 1. Whitespace between
+ * the parts is ignored, and like terms are added together.
+ *
+ * A parser keeps its buffers between expressions, so reusing one instance for many expressions allocates nothing but
+ * the polynomials themselves. An instance is not safe for use by multiple threads at once, but the static methods are.
+ * Newline delimited files are parsed from a memory mapping of the file, either lazily one line at a time or in
+ * parallel chunks.
+ */
 public class PolynomialParser {
-    
-    public static Term parseTerm(String term) {
-        String[] parts = term.split("x\\^");
-        double coefficient = Double.parseDouble(parts[0]);
 
-        int degree;
+    /* Mapped regions are at most this large, and end at a line break */
+    private static final int MAX_REGION_SIZE = 1 << 30;
+    /* Chunks of a mapped file smaller than this are not split up any further for parallel parsing */
+    private static final int MIN_SPLIT_SIZE = 1 << 16;
+    /* The powers of ten that are exactly representable as doubles */
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    /* Integers up to 2^53 are exactly representable as doubles */
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    /* The input of the expression that is being parsed: exactly one of the two is set */
+    private CharSequence text;
+    private ByteBuffer bytes;
+    private int position;
+    private int end;
+
+    /* The terms parsed so far, reused between expressions */
+    private int[] termDegrees = new int[16];
+    private double[] termCoefficients = new double[16];
+    private int termCount;
+
+    /**
+     * Produces the term that a string describes, such as 3x^2, -x or 4.
+     * @param term the string holding a single term
+     * @return the term
+     * @throws IllegalArgumentException if the string is not a single term
+     */
+    public static Term parseTerm(CharSequence term) {
+        PolynomialParser parser = new PolynomialParser();
+        parser.begin(term, null, 0, term.length());
+        parser.skipWhitespace();
+        double sign = parser.parseSigns();
+        parser.parseTerm(sign);
+        parser.skipWhitespace();
+        if (parser.position != parser.end) throw parser.unexpected();
+        return new Term(parser.termCoefficients[0], parser.termDegrees[0]);
+    }
+
+    /**
+     * Produces the polynomial that an expression describes.
+     * @param expression the expression, a sum of terms
+     * @return the polynomial
+     * @throws IllegalArgumentException if the expression is not a valid sum of terms
+     */
+    public static Polynomial parseExpression(CharSequence expression) {
+        return new PolynomialParser().parse(expression);
+    }
+
+    /**
+     * Produces the polynomial that the remaining bytes of a buffer describe, as ASCII text. The position of the
+     * buffer is not changed.
+     * @param expression the buffer holding the expression
+     * @return the polynomial
+     * @throws IllegalArgumentException if the expression is not a valid sum of terms
+     */
+    public static Polynomial parseExpression(ByteBuffer expression) {
+        return new PolynomialParser().parse(expression);
+    }
+
+    /**
+     * Parses an expression, reusing the buffers of this parser.
+     * @param expression the expression, a sum of terms
+     * @return the polynomial
+     * @throws IllegalArgumentException if the expression is not a valid sum of terms
+     */
+    public Polynomial parse(CharSequence expression) {
+        return parse(expression, 0, expression.length());
+    }
+
+    /**
+     * Parses the expression in a range of a CharSequence, reusing the buffers of this parser.
+     * @param expression the characters holding the expression
+     * @param start the index of the first character of the expression
+     * @param stop the index after the last character of the expression
+     * @return the polynomial
+     * @throws IllegalArgumentException if the expression is not a valid sum of terms
+     */
+    public Polynomial parse(CharSequence expression, int start, int stop) {
+        long timer = PolynomialMetrics.start();
+        begin(expression, null, start, stop);
+        Polynomial polynomial = parseSum();
+        PolynomialMetrics.record(PolynomialMetrics.Operation.PARSE, polynomial.getDegree(), timer);
+        return polynomial;
+    }
+
+    /**
+     * Parses the remaining bytes of a buffer as an ASCII expression, reusing the buffers of this parser. The
+     * position of the buffer is not changed.
+     * @param expression the buffer holding the expression
+     * @return the polynomial
+     * @throws IllegalArgumentException if the expression is not a valid sum of terms
+     */
+    public Polynomial parse(ByteBuffer expression) {
+        return parse(expression, expression.position(), expression.limit());
+    }
+
+    /**
+     * Parses the expression in a range of a buffer as ASCII text, reusing the buffers of this parser. Only absolute
+     * reads are used, so the buffer may be shared with other threads that do the same.
+     * @param expression the buffer holding the expression
+     * @param start the index of the first byte of the expression
+     * @param stop the index after the last byte of the expression
+     * @return the polynomial
+     * @throws IllegalArgumentException if the expression is not a valid sum of terms
+     */
+    public Polynomial parse(ByteBuffer expression, int start, int stop) {
+        long timer = PolynomialMetrics.start();
+        begin(null, expression, start, stop);
+        Polynomial polynomial = parseSum();
+        PolynomialMetrics.record(PolynomialMetrics.Operation.PARSE, polynomial.getDegree(), timer);
+        return polynomial;
+    }
+
+    /**
+     * Produces a lazy stream of the polynomials on the lines of a file, one expression per line. The file is memory
+     * mapped, so lines are parsed straight from the page cache as the stream is consumed, and blank lines are skipped.
+     * The stream can be made parallel, in which case the file is split into chunks at line breaks that are parsed
+     * independently, while the order of the lines is kept.
+     * @param file the newline delimited file of expressions
+     * @return the stream of polynomials, in the order of the lines
+     * @throws IOException if the file can't be opened or mapped
+     * @throws IllegalArgumentException from the stream, if a line is not a valid expression
+     */
+    public static Stream<Polynomial> lines(Path file) throws IOException {
+        ArrayList<MappedByteBuffer> regions = new ArrayList<MappedByteBuffer>();
+        /* The mapping stays valid after the channel is closed */
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long start = 0;
+            while (start < size) {
+                long length = Math.min(MAX_REGION_SIZE, size - start);
+                MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+                if (start + length < size) {
+                    /* Cut the region after its last line break, so that no line is split between two regions */
+                    int cut = (int) length;
+                    while (cut > 0 && region.get(cut - 1) != '\n') cut--;
+                    if (cut == 0) throw new IOException("A line of " + file + " is longer than " + MAX_REGION_SIZE + " bytes.");
+                    length = cut;
+                }
+                region.limit((int) length);
+                regions.add(region);
+                start += length;
+            }
+        }
+
+        Stream<Polynomial> stream = null;
+        for (MappedByteBuffer region : regions) {
+            Stream<Polynomial> regionLines = StreamSupport.stream(new LineSpliterator(region, 0, region.limit()), false);
+            stream = stream == null ? regionLines : Stream.concat(stream, regionLines);
+        }
+        return stream == null ? Stream.empty() : stream;
+    }
+
+    /**
+     * Parses every line of a file in parallel chunks.
+     * @param file the newline delimited file of expressions
+     * @return the polynomials, in the order of the non-blank lines
+     * @throws IOException if the file can't be opened or mapped
+     * @throws IllegalArgumentException if a line is not a valid expression
+     * @see lines
+     */
+    public static Polynomial[] parseFile(Path file) throws IOException {
+        return lines(file).parallel().toArray(Polynomial[]::new);
+    }
+
+    private void begin(CharSequence argText, ByteBuffer argBytes, int start, int stop) {
+        text = argText;
+        bytes = argBytes;
+        position = start;
+        end = stop;
+        termCount = 0;
+    }
+
+    /* The character at an index of the input, with bytes read as ASCII */
+    private int charAt(int index) {
+        return text != null ? text.charAt(index) : bytes.get(index) & 0xFF;
+    }
+
+    /* expression := sign* term (('+' | '-') sign* term)* */
+    private Polynomial parseSum() {
+        skipWhitespace();
+        if (position == end) throw new IllegalArgumentException("A polynomial must have at least 1 term.");
+        while (true) {
+            double sign = parseSigns();
+            parseTerm(sign);
+            skipWhitespace();
+            if (position == end) break;
+            int c = charAt(position);
+            if (c != '+' && c != '-') throw unexpected();
+        }
+        return toPolynomial();
+    }
+
+    /* Low degree terms are added straight into a dense array, and only high degree ones are sorted into sparse storage */
+    private Polynomial toPolynomial() {
+        int maxDegree = 0;
+        for (int i = 0; i < termCount; i++) maxDegree = Math.max(maxDegree, termDegrees[i]);
+        if (maxDegree >= Polynomial.SPARSE_MIN_DEGREE) {
+            return new Polynomial(SparseCoefficients.fromTerms(termDegrees, termCoefficients, termCount));
+        }
+        double[] dense = new double[maxDegree + 1];
+        for (int i = 0; i < termCount; i++) dense[termDegrees[i]] += termCoefficients[i];
+        return new Polynomial(dense);
+    }
+
+    /* Any number of plus and minus signs, such as the "+ -" between the terms of Polynomial.toString */
+    private double parseSigns() {
+        double sign = 1;
+        while (position < end) {
+            int c = charAt(position);
+            if (c == '-') sign = -sign;
+            else if (c != '+') break;
+            position++;
+            skipWhitespace();
+        }
+        return sign;
+    }
+
+    /* term := [coefficient ['*']] ['x' ['^' degree]], where at least one of the two parts must be present */
+    private void parseTerm(double sign) {
+        double coefficient = 1;
+        boolean hasCoefficient = false;
+        int c = position < end ? charAt(position) : -1;
 
-        if (parts.length > 1) degree = Integer.parseInt(parts[1]);
-        else degree = 0;
+        if (c == '(') {
+            position++;
+            skipWhitespace();
+            double innerSign = parseSigns();
+            coefficient = innerSign * parseNumber();
+            skipWhitespace();
+            if (position == end || charAt(position) != ')') throw unexpected();
+            position++;
+            hasCoefficient = true;
+        }
+        else if (isDigit(c) || c == '.' || c == 'I' || c == 'N') {
+            coefficient = parseNumber();
+            hasCoefficient = true;
+        }
 
-        return new Term(coefficient, degree);
+        int termDegree = 0;
+        skipWhitespace();
+        if (hasCoefficient && position < end && charAt(position) == '*') {
+            position++;
+            skipWhitespace();
+            if (position == end || (charAt(position) | 0x20) != 'x') throw unexpected();
+        }
+        if (position < end && (charAt(position) | 0x20) == 'x') {
+            position++;
+            termDegree = 1;
+            skipWhitespace();
+            if (position < end && charAt(position) == '^') {
+                position++;
+                skipWhitespace();
+                termDegree = parseDegree();
+            }
+        }
+        else if (!hasCoefficient) {
+            throw unexpected();
+        }
+        addTerm(sign * coefficient, termDegree);
     }
 
-    public static Polynomial parseExpression(String expression) {
-        /* To account for negatives */
-        expression = expression.replace("-", "+-");
-        String[] expressionTerms = expression.split("\\+");
+    /* A non-negative integer exponent */
+    private int parseDegree() {
+        int start = position;
+        long value = 0;
+        while (position < end && isDigit(charAt(position))) {
+            value = 10 * value + (charAt(position) - '0');
+            if (value > Integer.MAX_VALUE) throw new IllegalArgumentException("The exponent at index " + start + " is too large.");
+            position++;
+        }
+        if (position == start) throw unexpected();
+        return (int) value;
+    }
+
+    /**
+     * An unsigned decimal number, with an optional fraction and exponent. The digits are accumulated into a long,
+     * and the value is exact whenever both the digits and the power of ten are exactly representable as doubles,
+     * which covers almost every number that is written by hand. Other numbers are rounded by Double.parseDouble,
+     * which is the only case where a string is built.
+     */
+    private double parseNumber() {
+        /* The infinite and undefined coefficients that Double.toString writes out */
+        if (matches("Infinity")) return Double.POSITIVE_INFINITY;
+        if (matches("NaN")) return Double.NaN;
 
-        Term[] terms = new Term[expressionTerms.length];
+        int start = position;
+        long mantissa = 0;
+        int exponent = 0;
+        int digits = 0;
+        boolean exact = true;
 
-        for (int i = 0; i < expressionTerms.length; i++)
-            terms[i] = parseTerm(expressionTerms[i]);
+        while (position < end && isDigit(charAt(position))) {
+            if (mantissa < MAX_EXACT_MANTISSA) mantissa = 10 * mantissa + (charAt(position) - '0');
+            else {
+                /* Digits beyond the precision of the mantissa only scale it, which is exact if they are 0 */
+                exponent++;
+                if (charAt(position) != '0') exact = false;
+            }
+            digits++;
+            position++;
+        }
+        if (position < end && charAt(position) == '.') {
+            position++;
+            while (position < end && isDigit(charAt(position))) {
+                if (mantissa < MAX_EXACT_MANTISSA) {
+                    mantissa = 10 * mantissa + (charAt(position) - '0');
+                    exponent--;
+                }
+                else if (charAt(position) != '0') {
+                    exact = false;
+                }
+                digits++;
+                position++;
+            }
+        }
+        if (digits == 0) {
+            position = start;
+            throw unexpected();
+        }
+        if (position < end && (charAt(position) | 0x20) == 'e') {
+            int exponentStart = position;
+            position++;
+            int exponentSign = 1;
+            if (position < end && (charAt(position) == '+' || charAt(position) == '-')) {
+                if (charAt(position) == '-') exponentSign = -1;
+                position++;
+            }
+            int explicitExponent = 0;
+            int exponentDigits = 0;
+            while (position < end && isDigit(charAt(position))) {
+                /* Saturate, since any exponent this large already overflows or underflows */
+                if (explicitExponent < 100000) explicitExponent = 10 * explicitExponent + (charAt(position) - '0');
+                exponentDigits++;
+                position++;
+            }
+            if (exponentDigits == 0) {
+                position = exponentStart;
+                throw unexpected();
+            }
+            exponent += exponentSign * explicitExponent;
+        }
+
+        if (exact && mantissa < MAX_EXACT_MANTISSA && Math.abs(exponent) < POWERS_OF_TEN.length) {
+            return exponent >= 0 ? mantissa * POWERS_OF_TEN[exponent] : mantissa / POWERS_OF_TEN[-exponent];
+        }
+        return Double.parseDouble(slice(start, position));
+    }
 
-        return new Polynomial(terms);
+    /* Consumes a word if the input continues with it */
+    private boolean matches(String word) {
+        if (end - position < word.length()) return false;
+        for (int i = 0; i < word.length(); i++) {
+            if (charAt(position + i) != word.charAt(i)) return false;
+        }
+        position += word.length();
+        return true;
     }
 
+    private void addTerm(double coefficient, int termDegree) {
+        if (termCount == termDegrees.length) {
+            termDegrees = Arrays.copyOf(termDegrees, 2 * termCount);
+            termCoefficients = Arrays.copyOf(termCoefficients, 2 * termCount);
+        }
+        termDegrees[termCount] = termDegree;
+        termCoefficients[termCount] = coefficient;
+        termCount++;
+    }
+
+    private void skipWhitespace() {
+        while (position < end) {
+            int c = charAt(position);
+            if (c != ' ' && c != '\t' && c != '\r' && c != '\n') break;
+            position++;
+        }
+    }
+
+    private static boolean isDigit(int c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /* The characters of a range of the input, only built for error messages and the slow path of parseNumber */
+    private String slice(int start, int stop) {
+        if (text != null) return text.subSequence(start, stop).toString();
+        byte[] range = new byte[stop - start];
+        for (int i = start; i < stop; i++) range[i - start] = bytes.get(i);
+        return new String(range, StandardCharsets.ISO_8859_1);
+    }
+
+    private IllegalArgumentException unexpected() {
+        if (position >= end) return new IllegalArgumentException("Unexpected end of the polynomial expression.");
+        return new IllegalArgumentException("Unexpected character '" + (char) charAt(position) + "' at index " + position
+                                            + " of the polynomial expression.");
+    }
+
+    /**
+     * Splits a mapped region of a file into lines, and parses them one at a time. Splitting for parallel streams
+     * cuts the remaining range in half at the nearest line break, and every split gets its own parser.
+     */
+    private static final class LineSpliterator implements Spliterator<Polynomial> {
+
+        /* A rough guess of the bytes per line, only used to estimate the number of lines left */
+        private static final int ESTIMATED_LINE_LENGTH = 32;
+
+        private final ByteBuffer region;
+        private final PolynomialParser parser = new PolynomialParser();
+        private int position;
+        private final int end;
+
+        LineSpliterator(ByteBuffer argRegion, int argPosition, int argEnd) {
+            region = argRegion;
+            position = argPosition;
+            end = argEnd;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Polynomial> action) {
+            while (position < end) {
+                int lineStart = position;
+                int lineEnd = lineStart;
+                while (lineEnd < end && region.get(lineEnd) != '\n') lineEnd++;
+                position = lineEnd + 1;
+
+                /* Blank lines, and lines with only whitespace, hold no expression */
+                int first = lineStart;
+                while (first < lineEnd && isBlank(region.get(first))) first++;
+                if (first == lineEnd) continue;
+
+                action.accept(parser.parse(region, first, lineEnd));
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public Spliterator<Polynomial> trySplit() {
+            if (end - position < 2 * MIN_SPLIT_SIZE) return null;
+            int middle = position + (end - position) / 2;
+            while (middle < end && region.get(middle - 1) != '\n') middle++;
+            if (middle >= end) return null;
+            LineSpliterator prefix = new LineSpliterator(region, position, middle);
+            position = middle;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return Math.max(0, end - position) / ESTIMATED_LINE_LENGTH;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | NONNULL | IMMUTABLE;
+        }
+
+        private static boolean isBlank(byte b) {
+            return b == ' ' || b == '\t' || b == '\r';
+        }
+    }
 }
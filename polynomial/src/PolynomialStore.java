@@ -0,0 +1,180 @@
+package polynomial.src;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * A read-only collection of polynomials in a file, which is memory mapped instead of read. Opening a store only maps
+ * the file, so it takes the same time for any number of polynomials, and the polynomials are read in place through
+ * views when they are used. The file holds a 32 byte header, the records of the polynomials one after the other in
+ * the format of PolynomialCodec, and then a table of the offsets of the records:
+ *
+ *     bytes 0-3    the magic number 0x504F4C59 ("POLY")
+ *     bytes 4-7    the version of the format, 1
+ *     bytes 8-15   the number of polynomials, as a long
+ *     bytes 16-23  the offset of the table, as a long
+ *     bytes 24-31  reserved, always 0
+ *
+ * All numbers are little endian. Files larger than a single mapping are mapped in overlapping windows, so that every
+ * record lies entirely within one window and can be viewed without copying. A store is safe for use by multiple
+ * threads at once.
+ *
+ * @see PolynomialCodec
+ * @see PolynomialView
+ */
+public class PolynomialStore {
+
+    static final int MAGIC = 0x504F4C59;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 32;
+    /* Windows start at every multiple of this size and are twice as long, so records of up to this size fit in one */
+    static final long WINDOW_STRIDE = 1L << 29;
+    private static final int WRITE_BUFFER_SIZE = 1 << 16;
+
+    private final long count;
+    private final LongBuffer offsets;
+    private final MappedByteBuffer[] windows;
+
+    private PolynomialStore(long argCount, LongBuffer argOffsets, MappedByteBuffer[] argWindows) {
+        count = argCount;
+        offsets = argOffsets;
+        windows = argWindows;
+    }
+
+    /**
+     * Writes a collection of polynomials to a file, replacing its contents.
+     * @param file the file that the store is written to
+     * @param polynomials the polynomials, in the order that they are indexed in the store
+     * @throws IOException if the file can't be written
+     * @throws IllegalArgumentException if a polynomial is too large to be stored
+     */
+    public static void write(Path file, Iterable<Polynomial> polynomials) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                    StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE).order(PolynomialCodec.ORDER);
+            long[] recordOffsets = new long[16];
+            long written = 0;
+            long position = HEADER_SIZE;
+            channel.position(HEADER_SIZE);
+
+            for (Polynomial polynomial : polynomials) {
+                long size = PolynomialCodec.encodedSize(polynomial);
+                if (size > WINDOW_STRIDE) throw new IllegalArgumentException("A polynomial of degree " + polynomial.getDegree() + " is too large to be stored.");
+                if (written == recordOffsets.length) recordOffsets = Arrays.copyOf(recordOffsets, 2 * recordOffsets.length);
+                recordOffsets[(int) written++] = position;
+                position += size;
+
+                if (size > buffer.remaining()) flush(channel, buffer);
+                if (size > buffer.capacity()) {
+                    /* A record larger than the buffer is written on its own */
+                    ByteBuffer record = ByteBuffer.wrap(PolynomialCodec.encode(polynomial));
+                    while (record.hasRemaining()) channel.write(record);
+                }
+                else {
+                    PolynomialCodec.encode(polynomial, buffer);
+                }
+            }
+
+            /* The table of offsets follows the records */
+            long tableOffset = position;
+            for (int i = 0; i < written; i++) {
+                if (buffer.remaining() < 8) flush(channel, buffer);
+                buffer.putLong(recordOffsets[i]);
+            }
+            flush(channel, buffer);
+
+            buffer.putInt(MAGIC).putInt(VERSION).putLong(written).putLong(tableOffset).putLong(0);
+            buffer.flip();
+            while (buffer.hasRemaining()) channel.write(buffer, buffer.position());
+        }
+    }
+
+    /**
+     * Opens a store by memory mapping its file. Nothing is read besides the header.
+     * @param file the file of the store
+     * @return the store
+     * @throws IOException if the file can't be mapped, or is not a valid store
+     */
+    public static PolynomialStore open(Path file) throws IOException {
+        /* The mappings stay valid after the channel is closed */
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE) throw new IOException(file + " is too short to be a polynomial store.");
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE).order(PolynomialCodec.ORDER);
+            if (header.getInt(0) != MAGIC) throw new IOException(file + " is not a polynomial store.");
+            if (header.getInt(4) != VERSION) throw new IOException(file + " has an unsupported version " + header.getInt(4) + ".");
+            long polyCount = header.getLong(8);
+            long tableOffset = header.getLong(16);
+            if (polyCount < 0 || polyCount > Integer.MAX_VALUE / 8 || tableOffset < HEADER_SIZE || tableOffset + 8 * polyCount > size) {
+                throw new IOException(file + " has a corrupt header.");
+            }
+
+            LongBuffer table = channel.map(FileChannel.MapMode.READ_ONLY, tableOffset, 8 * polyCount)
+                                      .order(PolynomialCodec.ORDER).asLongBuffer();
+            int windowCount = (int) ((tableOffset + WINDOW_STRIDE - 1) / WINDOW_STRIDE);
+            MappedByteBuffer[] mapped = new MappedByteBuffer[windowCount];
+            for (int i = 0; i < windowCount; i++) {
+                long start = i * WINDOW_STRIDE;
+                long length = Math.min(2 * WINDOW_STRIDE, tableOffset - start);
+                mapped[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+            }
+            return new PolynomialStore(polyCount, table, mapped);
+        }
+    }
+
+    /**
+     * Produces the number of polynomials in the store.
+     * @return the number of polynomials
+     */
+    public int size() {
+        return (int) count;
+    }
+
+    /**
+     * Produces a read-only view of a polynomial, which reads its coefficients in place from the mapping.
+     * @param index the index of the polynomial
+     * @return the view of the polynomial
+     * @throws IndexOutOfBoundsException if there is no polynomial with that index
+     * @throws IllegalArgumentException if the record of the polynomial is corrupt
+     */
+    public PolynomialView get(int index) {
+        ByteBuffer window = windowOf(index);
+        int start = window.position();
+        int size = PolynomialCodec.recordSize(window, start);
+        return new PolynomialView(window.slice(start, size));
+    }
+
+    /**
+     * Produces a polynomial of the store on the heap, copying its coefficients out of the mapping.
+     * @param index the index of the polynomial
+     * @return the polynomial
+     * @throws IndexOutOfBoundsException if there is no polynomial with that index
+     * @throws IllegalArgumentException if the record of the polynomial is corrupt
+     */
+    public Polynomial load(int index) {
+        return PolynomialCodec.decode(windowOf(index));
+    }
+
+    /* A duplicate of the window that holds a record, positioned at the start of the record */
+    private ByteBuffer windowOf(int index) {
+        if (index < 0 || index >= count) throw new IndexOutOfBoundsException("Index " + index + " is out of bounds for a store of " + count + " polynomials.");
+        long offset = offsets.get(index);
+        int window = (int) (offset / WINDOW_STRIDE);
+        if (offset < HEADER_SIZE || window >= windows.length) throw new IllegalArgumentException("The offset of polynomial " + index + " is corrupt.");
+        ByteBuffer duplicate = windows[window].duplicate();
+        duplicate.position((int) (offset - window * WINDOW_STRIDE));
+        return duplicate;
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) channel.write(buffer);
+        buffer.clear();
+    }
+}
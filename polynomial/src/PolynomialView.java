@@ -0,0 +1,126 @@
+package polynomial.src;
+
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * A read-only view of a polynomial that is encoded in a buffer, such as the memory mapping of a PolynomialStore. The
+ * coefficients are read in place every time they are used, so creating a view copies nothing onto the heap. A view
+ * is safe for use by multiple threads at once.
+ *
+ * @see PolynomialCodec
+ * @see PolynomialStore
+ */
+public final class PolynomialView {
+
+    private final int degree;
+    private final boolean sparse;
+    private final int termCount;
+    /* Dense views hold the coefficients from the constant term upwards, sparse views the coefficients of their terms */
+    private final DoubleBuffer coefficients;
+    /* The degrees of the terms of sparse views, in increasing order, and null for dense views */
+    private final IntBuffer degrees;
+
+    /* Views a record that was already checked by PolynomialCodec.recordSize */
+    PolynomialView(ByteBuffer record) {
+        ByteBuffer body = record.order(PolynomialCodec.ORDER);
+        sparse = body.get(0) == PolynomialCodec.SPARSE;
+        degree = body.getInt(4);
+        termCount = body.getInt(8);
+
+        if (sparse) {
+            coefficients = body.slice(PolynomialCodec.HEADER_SIZE, 8 * termCount).order(PolynomialCodec.ORDER).asDoubleBuffer();
+            degrees = body.slice(PolynomialCodec.HEADER_SIZE + 8 * termCount, 4 * termCount).order(PolynomialCodec.ORDER).asIntBuffer();
+        }
+        else {
+            coefficients = body.slice(PolynomialCodec.HEADER_SIZE, 8 * (degree + 1)).order(PolynomialCodec.ORDER).asDoubleBuffer();
+            degrees = null;
+        }
+    }
+
+    public int getDegree() {
+        return degree;
+    }
+
+    public boolean isSparse() {
+        return sparse;
+    }
+
+    public int getTermCount() {
+        return termCount;
+    }
+
+    /**
+     * Produces the coefficient of the term with a certain degree.
+     * @param termDegree the degree of the term
+     * @return the coefficient of x^termDegree, which is 0 if the polynomial has no such term
+     */
+    public double getCoefficient(int termDegree) {
+        if (termDegree < 0 || termDegree > degree) return 0;
+        if (!sparse) return coefficients.get(termDegree);
+
+        /* Binary search over the degrees of the terms */
+        int low = 0;
+        int high = termCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int middleDegree = degrees.get(middle);
+            if (middleDegree < termDegree) low = middle + 1;
+            else if (middleDegree > termDegree) high = middle - 1;
+            else return coefficients.get(middle);
+        }
+        return 0;
+    }
+
+    /**
+     * Produces the evaluation of the polynomial at a certain x value, using Horner's scheme on the coefficients in
+     * place. Sparse polynomials skip over the gaps between their degrees, as in Polynomial.valueAt.
+     * @param a the value at which the polynomial should be evaluated
+     * @return the value of the polynomial at x = a
+     */
+    public double valueAt(double a) {
+        if (sparse) {
+            if (termCount == 0) return 0;
+            double value = coefficients.get(termCount - 1);
+            for (int i = termCount - 2; i >= 0; i--) {
+                value = value * SparseCoefficients.power(a, degrees.get(i + 1) - degrees.get(i)) + coefficients.get(i);
+            }
+            return value * SparseCoefficients.power(a, degrees.get(0));
+        }
+        double value = coefficients.get(degree);
+        for (int i = degree - 1; i >= 0; i--) {
+            value = value * a + coefficients.get(i);
+        }
+        return value;
+    }
+
+    /**
+     * Produces the evaluation of the polynomial at many x values at once. The input and output may be the same array.
+     * @param xs the values at which the polynomial should be evaluated
+     * @param out the array that the value of the polynomial at xs[i] is written to, at index i
+     * @throws IllegalArgumentException if out is shorter than xs
+     */
+    public void valueAt(double[] xs, double[] out) {
+        if (out.length < xs.length) throw new IllegalArgumentException("The output array is shorter than the input array.");
+        for (int i = 0; i < xs.length; i++) out[i] = valueAt(xs[i]);
+    }
+
+    /**
+     * Produces the polynomial on the heap, copying its coefficients out of the buffer.
+     * @return the polynomial
+     */
+    public Polynomial toPolynomial() {
+        double[] termCoefficients = new double[coefficients.capacity()];
+        coefficients.get(0, termCoefficients);
+        if (!sparse) return new Polynomial(termCoefficients);
+        int[] termDegrees = new int[termCount];
+        degrees.get(0, termDegrees);
+        return new Polynomial(SparseCoefficients.fromTerms(termDegrees, termCoefficients, termCount));
+    }
+
+    @Override
+    public String toString() {
+        return toPolynomial().toString();
+    }
+}
@@ -0,0 +1,42 @@
+package polynomial.src;
+
+/**
+ * A half-open interval (lower, upper] of the real line that holds exactly one distinct real root of a polynomial.
+ */
+public final class RootInterval {
+
+    private final double lower;
+    private final double upper;
+
+    public RootInterval(double argLower, double argUpper) {
+        if (!(argLower < argUpper)) throw new IllegalArgumentException("The lower end of an interval must be less than its upper end.");
+        lower = argLower;
+        upper = argUpper;
+    }
+
+    public double getLower() {
+        return lower;
+    }
+
+    public double getUpper() {
+        return upper;
+    }
+
+    public double width() {
+        return upper - lower;
+    }
+
+    /**
+     * Asserts if a value lies within the interval.
+     * @param x the value that is being checked
+     * @return whether or not lower < x <= upper
+     */
+    public boolean contains(double x) {
+        return lower < x && x <= upper;
+    }
+
+    @Override
+    public String toString() {
+        return "(" + lower + ", " + upper + "]";
+    }
+}
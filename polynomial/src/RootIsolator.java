@@ -0,0 +1,536 @@
+package polynomial.src;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Isolates the real roots of a polynomial with a Sturm sequence, and then refines each of them. The Sturm sequence
+ * is p0 = p, p1 = p', and p(i+1) = -(p(i-1) mod p(i)), which ends at the greatest common divisor of p and p'. By Sturm's
+ * theorem, the number of distinct real roots in (a, b] is V(a) - V(b), where V(x) is the number of sign changes in the
+ * sequence evaluated at x. Bisecting with these counts gives disjoint intervals that hold exactly one distinct root each,
+ * and since the intervals are independent they are refined in parallel.
+ */
+final class RootIsolator {
+
+    /* The degree from which the intervals are refined on the common fork-join pool */
+    static final int PARALLEL_THRESHOLD = 32;
+
+    /* Intervals that are still not resolved after this many bisections hold roots that can't be told apart in doubles */
+    private static final int MAX_DEPTH = 128;
+    private static final int MAX_REFINEMENT_STEPS = 256;
+    /* Polishing a repeated root takes at most this many steps, and may move it at most this far, relative to its size */
+    private static final int MAX_POLISHING_STEPS = 16;
+    private static final double POLISHING_RANGE = 1e-4;
+    private static final double UNIT_ROUNDOFF = Math.ulp(1.0) / 2;
+
+    /* Remainder coefficients below these multiples of the division's scale are treated as 0, at the stated stages */
+    private static final double ROUNDING_TOLERANCE = PolynomialGcd.ROUNDING_TOLERANCE;
+    private static final double GCD_TOLERANCE = PolynomialGcd.DEFAULT_TOLERANCE;
+    private static final double DIVISIBILITY_TOLERANCE = PolynomialGcd.DIVISIBILITY_FACTOR * GCD_TOLERANCE;
+
+    private final double[][] sequence;
+    private final int degree;
+    /* Whether a remainder lost non-zero coefficients to a tolerance, or came within the tolerance of the greatest common
+       divisor, which is where an ill-conditioned sequence loses sign changes */
+    private final boolean truncated;
+
+    /**
+     * Builds the Sturm sequence of a polynomial. Every polynomial in the sequence is scaled so that its largest
+     * coefficient has a magnitude of 1, which keeps the signs and avoids overflow. Remainder coefficients that
+     * are within the rounding error of the division are taken to be 0.
+     * @param coefficients the coefficients from the constant term upwards
+     * @param polyDegree the degree of the polynomial, such that coefficients[polyDegree] is not 0
+     * @throws IllegalArgumentException if a coefficient is infinite or NaN
+     */
+    RootIsolator(double[] coefficients, int polyDegree) {
+        checkFinite(coefficients, polyDegree);
+        degree = polyDegree;
+        boolean anyTruncated = false;
+        ArrayList<double[]> chain = new ArrayList<double[]>();
+        chain.add(PolynomialGcd.normalized(Arrays.copyOf(coefficients, degree + 1)));
+
+        if (degree >= 1) {
+            double[] derivative = new double[degree];
+            for (int i = 1; i <= degree; i++) derivative[i - 1] = coefficients[i] * i;
+            chain.add(PolynomialGcd.normalized(derivative));
+
+            double[] p = chain.get(0);
+            while (true) {
+                double[] dividend = chain.get(chain.size() - 2);
+                double[] divisor = chain.get(chain.size() - 1);
+                double[] remainder = PolynomialGcd.remainder(dividend, divisor, ROUNDING_TOLERANCE);
+                /* Without a tolerance, only the coefficients that cancelled exactly are trimmed */
+                double[] untrimmed = PolynomialGcd.remainder(dividend, divisor, 0);
+                if (untrimmed != null && (remainder == null || remainder.length < untrimmed.length)) anyTruncated = true;
+                if (remainder == null) break;
+
+                /** A remainder that is merely small may just come from roots that are close together, so the divisor is
+                 * only taken to be the greatest common divisor if it also divides both p and p' */
+                if (PolynomialGcd.remainder(dividend, divisor, GCD_TOLERANCE) == null) {
+                    anyTruncated = true;
+                    if (PolynomialGcd.remainder(p, divisor, DIVISIBILITY_TOLERANCE) == null &&
+                        PolynomialGcd.remainder(chain.get(1), divisor, DIVISIBILITY_TOLERANCE) == null) break;
+                }
+                for (int i = 0; i < remainder.length; i++) remainder[i] = -remainder[i];
+                chain.add(PolynomialGcd.normalized(remainder));
+            }
+        }
+        sequence = chain.toArray(new double[0][]);
+        truncated = anyTruncated;
+    }
+
+    /* Rejects coefficients that no sign or bound can be computed from */
+    private static void checkFinite(double[] coefficients, int degree) {
+        for (int i = 0; i <= degree; i++) {
+            if (!Double.isFinite(coefficients[i])) throw new IllegalArgumentException("The coefficients must be finite to find the real roots.");
+        }
+    }
+
+    /**
+     * Produces the last polynomial of the Sturm sequence, which is (a multiple of) the greatest common divisor of
+     * the polynomial and its derivative. It holds the repeated roots of the polynomial, each with one less multiplicity.
+     * @return the coefficients of the greatest common divisor, from the constant term upwards
+     */
+    double[] gcd() {
+        return sequence[sequence.length - 1];
+    }
+
+    /**
+     * Counts the distinct real roots in an interval.
+     * @param lower the lower end of the interval, which is excluded
+     * @param upper the upper end of the interval, which is included
+     * @return the number of distinct real roots x with lower < x <= upper
+     */
+    int countRoots(double lower, double upper) {
+        return signChanges(lower) - signChanges(upper);
+    }
+
+    /**
+     * Produces disjoint intervals that each hold exactly one distinct real root, in increasing order.
+     * @return the isolating intervals
+     */
+    ArrayList<RootInterval> isolate() {
+        return isolate(null);
+    }
+
+    /* Isolates the roots, recording the depth of the bisection if stats is not null */
+    private ArrayList<RootInterval> isolate(RootSearchStats stats) {
+        ArrayList<RootInterval> intervals = new ArrayList<RootInterval>();
+        if (degree < 1) return intervals;
+
+        /* The Cauchy bound: every root has a magnitude less than 1 + max|a(i) / a(n)| */
+        double[] p = sequence[0];
+        double bound = 0;
+        for (int i = 0; i < degree; i++) bound = Math.max(bound, Math.abs(p[i] / p[degree]));
+        bound += 1;
+
+        /* Each pending interval is stored as {lower, upper, V(lower), V(upper), depth}, with the upper halves popped first */
+        ArrayDeque<double[]> pending = new ArrayDeque<double[]>();
+        pending.push(new double[] {-bound, bound, signChanges(-bound), signChanges(bound), 0});
+        while (!pending.isEmpty()) {
+            double[] interval = pending.pop();
+            double lower = interval[0], upper = interval[1];
+            int count = (int) (interval[2] - interval[3]);
+            if (count <= 0) continue;
+
+            double middle = (lower + upper) / 2;
+            if (count == 1 || interval[4] >= MAX_DEPTH || middle <= lower || middle >= upper) {
+                intervals.add(new RootInterval(lower, upper));
+                if (stats != null) {
+                    stats.depth = Math.max(stats.depth, (int) interval[4]);
+                    /* An interval that still holds several distinct roots couldn't be resolved */
+                    if (count > 1) stats.converged = false;
+                }
+                continue;
+            }
+            /* At a repeated root the whole sequence vanishes and the count breaks down, so the split is moved off the root */
+            if (HornerEvaluator.evaluate(p, degree, middle) == 0) middle += (upper - middle) / 1024;
+            double middleChanges = signChanges(middle);
+            pending.push(new double[] {middle, upper, middleChanges, interval[3], interval[4] + 1});
+            pending.push(new double[] {lower, middle, interval[2], middleChanges, interval[4] + 1});
+        }
+        return intervals;
+    }
+
+    /**
+     * Refines an isolating interval down to its root. A root of multiplicity m is a simple root of the (m - 1)th
+     * derivative, so if that derivative changes sign over the interval, Newton's method is used on it, falling back to
+     * bisection whenever a step would leave the interval. Otherwise, the interval is bisected using the root counts
+     * of the Sturm sequence.
+     * @param interval an interval that holds exactly one distinct root
+     * @param multiplicity the multiplicity of the root
+     * @param stats the statistics that the number of steps is added to, or null
+     * @return the approximation of the root
+     */
+    double refine(RootInterval interval, int multiplicity, RootSearchStats stats) {
+        int order = Math.min(multiplicity - 1, degree - 1);
+        /* The Taylor coefficients up to the order after the derivative, which differ from the derivatives by positive factors */
+        double[] taylor = new double[order + 2];
+        double lower = interval.getLower(), upper = interval.getUpper();
+        HornerEvaluator.taylor(sequence[0], 0, degree, lower, taylor, 0, order + 1);
+        double lowerValue = taylor[order];
+        HornerEvaluator.taylor(sequence[0], 0, degree, upper, taylor, 0, order + 1);
+        double upperValue = taylor[order];
+        if (upperValue == 0 && order == 0) return upper;
+
+        if (Math.signum(lowerValue) * Math.signum(upperValue) < 0) return newton(sequence[0], degree, order, lower, upper, lowerValue, stats);
+
+        int steps = 0;
+        boolean converged = false;
+        for (; steps < MAX_REFINEMENT_STEPS; steps++) {
+            double middle = (lower + upper) / 2;
+            if (middle <= lower || middle >= upper) {
+                converged = true;
+                break;
+            }
+            if (countRoots(lower, middle) > 0) upper = middle;
+            else lower = middle;
+        }
+        return counted((lower + upper) / 2, steps, converged, stats);
+    }
+
+    /**
+     * Finds the root of the derivative of a given order in an interval over which that derivative changes sign, with
+     * Newton's method, falling back to bisection whenever a step would leave the interval.
+     * @param coefficients the coefficients of the polynomial, from the constant term upwards
+     * @param degree the degree of the polynomial
+     * @param order the order of the derivative, which is 0 for the polynomial itself
+     * @param lower the lower end of the interval
+     * @param upper the upper end of the interval
+     * @param lowerValue the value of the derivative at the lower end, or any value of the same sign
+     * @param stats the statistics that the number of steps is added to, or null
+     * @return the approximation of the root
+     */
+    private static double newton(double[] coefficients, int degree, int order, double lower, double upper, double lowerValue,
+                                 RootSearchStats stats) {
+        double[] taylor = new double[order + 2];
+        double x = (lower + upper) / 2;
+        for (int step = 0; step < MAX_REFINEMENT_STEPS; step++) {
+            /* Evaluate the derivative and the next one together in a single pass */
+            HornerEvaluator.taylor(coefficients, 0, degree, x, taylor, 0, order + 2);
+            double value = taylor[order];
+            double slope = (order + 1) * taylor[order + 1];
+            if (value == 0) return counted(x, step + 1, true, stats);
+            /* Keep the root bracketed */
+            if (Math.signum(value) == Math.signum(lowerValue)) lower = x;
+            else upper = x;
+
+            double next = x - value / slope;
+            if (!(next > lower && next < upper)) next = (lower + upper) / 2;
+            if (next == x || upper - lower <= Math.ulp(x)) return counted(next, step + 1, true, stats);
+            x = next;
+        }
+        return counted(x, MAX_REFINEMENT_STEPS, false, stats);
+    }
+
+    /* Adds the steps taken to refine a root to the statistics, if there are any, and produces the root */
+    private static double counted(double root, int steps, boolean converged, RootSearchStats stats) {
+        if (stats != null) {
+            stats.iterations.add(steps);
+            if (!converged) stats.converged = false;
+        }
+        return root;
+    }
+
+    /**
+     * Approximates the real roots of a polynomial, counted with multiplicity. The polynomial is split into its
+     * square-free factors first, so that every root is found as a simple root of the factor that holds the roots of
+     * its multiplicity, where Newton's method converges quadratically, instead of as a repeated root of the polynomial.
+     * The roots of each factor are isolated, and the intervals are then refined independently, in parallel for higher
+     * degrees. The decomposition is only used if the degrees of the factors add up with their multiplicities, and if
+     * every factor has a number of real roots that its degree allows, otherwise the polynomial is solved as a whole.
+     * @param coefficients the coefficients from the constant term upwards
+     * @param degree the degree of the polynomial, such that coefficients[degree] is not 0
+     * @return the real roots, sorted from least to greatest
+     * @throws IllegalArgumentException if a coefficient is infinite or NaN
+     * @see PolynomialGcd
+     */
+    static double[] realRoots(double[] coefficients, int degree) {
+        return realRoots(coefficients, degree, null);
+    }
+
+    /**
+     * Approximates the real roots of a polynomial as above, collecting the statistics of the search.
+     * @param coefficients the coefficients from the constant term upwards
+     * @param degree the degree of the polynomial, such that coefficients[degree] is not 0
+     * @param stats the statistics that the refinement steps and the depth of the bisection are added to, or null
+     * @return the real roots, sorted from least to greatest
+     * @throws IllegalArgumentException if a coefficient is infinite or NaN
+     */
+    static double[] realRoots(double[] coefficients, int degree, RootSearchStats stats) {
+        checkFinite(coefficients, degree);
+        if (degree < 1) return new double[0];
+        double[][] factors = PolynomialGcd.squareFree(Arrays.copyOf(coefficients, degree + 1), PolynomialGcd.DEFAULT_TOLERANCE);
+        /* The factors must make up the whole degree with their multiplicities, or the polynomial is taken as it is */
+        int factorDegrees = 0;
+        for (int i = 0; i < factors.length; i++) factorDegrees += (i + 1) * (factors[i].length - 1);
+        if (factorDegrees != degree) factors = new double[][] {Arrays.copyOf(coefficients, degree + 1)};
+
+        double[][] factorRoots = new double[factors.length][];
+        for (int i = 0; i < factors.length; i++) {
+            int factorDegree = factors[i].length - 1;
+            factorRoots[i] = factorRoots(factors[i], factorDegree, stats);
+            /* A number of roots that the factor can't have means that the decomposition went wrong, so it is dropped */
+            if (factors.length > 1 && !isPossibleCount(factorRoots[i].length, factorDegree)) {
+                double[] whole = Arrays.copyOf(coefficients, degree + 1);
+                return collect(new double[][] {whole}, new double[][] {factorRoots(whole, degree, stats)});
+            }
+            if (factors.length > 1 && i < degree) {
+                double[] taylor = new double[i + 2];
+                for (int j = 0; j < factorRoots[i].length; j++) {
+                    factorRoots[i][j] = polished(coefficients, degree, i, factorRoots[i][j], taylor);
+                }
+            }
+        }
+        return collect(factors, factorRoots);
+    }
+
+    /* The roots of all the factors, each repeated as often as the multiplicity of its factor, sorted */
+    private static double[] collect(double[][] factors, double[][] factorRoots) {
+        int count = 0;
+        for (int i = 0; i < factors.length; i++) count += (i + 1) * factorRoots[i].length;
+        double[] roots = new double[count];
+        int index = 0;
+        for (int i = 0; i < factors.length; i++) {
+            for (double root : factorRoots[i]) {
+                for (int j = 0; j <= i; j++) roots[index++] = root;
+            }
+        }
+        Arrays.sort(roots);
+        return roots;
+    }
+
+    /**
+     * Polishes a root of multiplicity m with Newton's method on the (m - 1)th derivative of the polynomial, where it is
+     * a simple root. The factors of a polynomial with repeated roots come from approximate greatest common divisors,
+     * which lose more accuracy than the polynomial itself has. The root is kept if the iteration doesn't settle close to it.
+     */
+    private static double polished(double[] coefficients, int degree, int order, double root, double[] taylor) {
+        double x = root;
+        double lastStep = Double.POSITIVE_INFINITY;
+        for (int step = 0; step < MAX_POLISHING_STEPS; step++) {
+            /* The (m - 1)th derivative and the next one, as Taylor coefficients, in a single pass */
+            HornerEvaluator.taylor(coefficients, 0, degree, x, taylor, 0, order + 2);
+            if (taylor[order] == 0) break;
+            double delta = taylor[order] / ((order + 1) * taylor[order + 1]);
+            /* Stop once the steps no longer shrink, which is where rounding takes over */
+            if (!(Math.abs(delta) < lastStep)) break;
+            x -= delta;
+            lastStep = Math.abs(delta);
+        }
+        return Math.abs(x - root) <= POLISHING_RANGE * Math.max(1, Math.abs(root)) ? x : root;
+    }
+
+    /**
+     * Approximates the real roots of a single factor. A square-free factor has a constant greatest common divisor with
+     * its derivative, so all its roots are simple. If the factor still has repeated roots, because the decomposition
+     * couldn't separate them within the tolerance, their multiplicities come from the roots of that divisor instead.
+     *
+     * A Sturm sequence computed in floating point can lose sign changes on an ill-conditioned polynomial, such as one
+     * with many real roots, and then it undercounts the roots. So if some roots are missing and the sequence shows a
+     * cheap sign of breaking down, the count is checked against the approximations of Aberth's method that are real
+     * within the rounding error. The signs are a remainder that was cut off or nearly cut off by a tolerance, a count
+     * that the factor can't have, and an isolating interval of a root of odd multiplicity over which the polynomial
+     * doesn't certainly change sign. If Aberth's method has more real roots, they are bracketed with the derivatives
+     * instead, which only relies on the values of the polynomials and not on their remainders. When the coefficients are too inaccurate for
+     * even that, the real parts of the approximations are the roots, since no sign test can tell them apart.
+     */
+    private static double[] factorRoots(double[] coefficients, int degree, RootSearchStats stats) {
+        if (degree < 1) return new double[0];
+        RootIsolator isolator = new RootIsolator(coefficients, degree);
+        ArrayList<RootInterval> sturmIntervals = isolator.isolate(stats);
+
+        int[] sturmMultiplicities = new int[sturmIntervals.size()];
+        Arrays.fill(sturmMultiplicities, 1);
+        double[] gcd = isolator.gcd();
+        int sturmCount = sturmIntervals.size();
+        if (!sturmIntervals.isEmpty()) {
+            for (double repeatedRoot : realRoots(gcd, gcd.length - 1, stats)) {
+                sturmMultiplicities[closestInterval(sturmIntervals, repeatedRoot)]++;
+                sturmCount++;
+            }
+        }
+
+        ArrayList<RootInterval> intervals = sturmIntervals;
+        int[] multiplicities = sturmMultiplicities;
+        if (sturmCount != degree && (isolator.truncated || !isPossibleCount(sturmCount, degree) ||
+                                     !changeSigns(isolator.sequence[0], degree, sturmIntervals, sturmMultiplicities))) {
+            double[] nearReal = nearRealRoots(isolator.sequence[0], degree, stats);
+            if (nearReal.length > sturmCount || !isPossibleCount(sturmCount, degree)) {
+                ArrayList<RootInterval> bracketed = bracketRoots(isolator.sequence[0], degree);
+                /* Roots that are only real within the rounding error can't be bracketed by their signs */
+                if (bracketed.size() < nearReal.length) return nearReal;
+                intervals = bracketed;
+                multiplicities = new int[bracketed.size()];
+                Arrays.fill(multiplicities, 1);
+            }
+        }
+
+        ArrayList<RootInterval> finalIntervals = intervals;
+        int[] finalMultiplicities = multiplicities;
+        double[] distinctRoots = new double[intervals.size()];
+        if (degree >= PARALLEL_THRESHOLD && intervals.size() > 1) {
+            IntStream.range(0, distinctRoots.length).parallel()
+                     .forEach(i -> distinctRoots[i] = isolator.refine(finalIntervals.get(i), finalMultiplicities[i], stats));
+        }
+        else {
+            for (int i = 0; i < distinctRoots.length; i++) distinctRoots[i] = isolator.refine(intervals.get(i), multiplicities[i], stats);
+        }
+
+        int count = 0;
+        for (int multiplicity : multiplicities) count += multiplicity;
+        double[] roots = new double[count];
+        int index = 0;
+        for (int i = 0; i < distinctRoots.length; i++) {
+            for (int j = 0; j < multiplicities[i]; j++) roots[index++] = distinctRoots[i];
+        }
+        return roots;
+    }
+
+    /**
+     * Approximates the roots of a polynomial that are real within the rounding error, with Aberth's method. An
+     * approximation counts as real if the polynomial vanishes at its real part, up to the rounding error of evaluating
+     * it there, which is the same test that Aberth's method stops at.
+     * @param p the coefficients from the constant term upwards
+     * @param degree the degree of the polynomial
+     * @param stats the statistics that the passes of Aberth's method are added to, or null
+     * @return the real parts of those approximations, sorted from least to greatest
+     */
+    private static double[] nearRealRoots(double[] p, int degree, RootSearchStats stats) {
+        double[] realParts = AberthRootFinder.roots(p, degree, stats)[0];
+        double[] roots = new double[degree];
+        int count = 0;
+        for (double x : realParts) {
+            double bound = 0;
+            for (int i = degree; i >= 0; i--) bound = bound * Math.abs(x) + Math.abs(p[i]);
+            if (Math.abs(HornerEvaluator.evaluate(p, degree, x)) <= (4 * degree + 1) * UNIT_ROUNDOFF * bound) roots[count++] = x;
+        }
+        roots = Arrays.copyOf(roots, count);
+        Arrays.sort(roots);
+        return roots;
+    }
+
+    /**
+     * Brackets the real roots of a polynomial with its derivatives. Between consecutive real roots of p', the polynomial
+     * is monotone, so it has a root there exactly if it changes sign, and the same holds beyond the outermost ones up to
+     * the Cauchy bound. The roots of p' are found in turn from those of p'', and so on down to a linear derivative. A
+     * root of even multiplicity doesn't change the sign, and is not bracketed.
+     * @param p the coefficients from the constant term upwards
+     * @param degree the degree of the polynomial, at least 1
+     * @return intervals that each hold a single root, over which the polynomial changes sign, in increasing order
+     */
+    private static ArrayList<RootInterval> bracketRoots(double[] p, int degree) {
+        /* The roots of every derivative lie within the convex hull of the roots of the polynomial, and so within its
+           bound. Fujiwara's bound, 2 max|a(i) / a(n)|^(1 / (n - i)) with a(0) halved, is much tighter than the Cauchy
+           bound when the coefficients are large, which keeps the outermost intervals short enough for Newton's method */
+        double bound = 0;
+        for (int i = 0; i < degree; i++) {
+            double ratio = Math.abs(p[i] / p[degree]) / (i == 0 ? 2 : 1);
+            bound = Math.max(bound, Math.pow(ratio, 1.0 / (degree - i)));
+        }
+        bound = 2 * bound + Double.MIN_NORMAL;
+
+        /* derivatives[k] is the kth derivative, scaled like the Sturm sequence */
+        double[][] derivatives = new double[degree][];
+        derivatives[0] = p;
+        for (int k = 1; k < degree; k++) {
+            double[] previous = derivatives[k - 1];
+            double[] derivative = new double[previous.length - 1];
+            for (int i = 1; i < previous.length; i++) derivative[i - 1] = previous[i] * i;
+            derivatives[k] = PolynomialGcd.normalized(derivative);
+        }
+
+        double[] criticalPoints = new double[0];
+        for (int k = degree - 1; ; k--) {
+            double[] q = derivatives[k];
+            int qDegree = degree - k;
+            ArrayList<RootInterval> intervals = signChangeIntervals(q, qDegree, criticalPoints, bound);
+            if (k == 0) return intervals;
+            criticalPoints = new double[intervals.size()];
+            for (int i = 0; i < criticalPoints.length; i++) {
+                RootInterval interval = intervals.get(i);
+                double lowerValue = HornerEvaluator.evaluate(q, qDegree, interval.getLower());
+                criticalPoints[i] = newton(q, qDegree, 0, interval.getLower(), interval.getUpper(), lowerValue, null);
+            }
+        }
+    }
+
+    /* The intervals between consecutive cuts, from -bound over the sorted points to bound, over which q changes sign */
+    private static ArrayList<RootInterval> signChangeIntervals(double[] q, int qDegree, double[] points, double bound) {
+        ArrayList<RootInterval> intervals = new ArrayList<RootInterval>();
+        double previousCut = -bound;
+        double previousValue = nonZeroValue(q, qDegree, -bound);
+        for (int i = 0; i <= points.length; i++) {
+            double cut = i == points.length ? bound : points[i];
+            if (!(cut > previousCut)) continue;
+            double value = nonZeroValue(q, qDegree, cut);
+            if (Math.signum(previousValue) * Math.signum(value) < 0) intervals.add(new RootInterval(previousCut, cut));
+            previousCut = cut;
+            previousValue = value;
+        }
+        return intervals;
+    }
+
+    /* The value of q at x, or just above it if x is an exact root, so that a sign change over x is still seen */
+    private static double nonZeroValue(double[] q, int qDegree, double x) {
+        double value = HornerEvaluator.evaluate(q, qDegree, x);
+        for (int step = 0; value == 0 && step < 64; step++) value = HornerEvaluator.evaluate(q, qDegree, x = Math.nextUp(x));
+        return value;
+    }
+
+    /* Whether the polynomial changes sign over every interval of a root of odd multiplicity, with values at both ends
+       that are larger than the rounding error of evaluating them, so that the signs are certain */
+    private static boolean changeSigns(double[] p, int degree, ArrayList<RootInterval> intervals, int[] multiplicities) {
+        for (int i = 0; i < intervals.size(); i++) {
+            if (multiplicities[i] % 2 == 0) continue;
+            double lowerSign = certainSign(p, degree, intervals.get(i).getLower());
+            double upperSign = certainSign(p, degree, intervals.get(i).getUpper());
+            if (lowerSign * upperSign >= 0) return false;
+        }
+        return true;
+    }
+
+    /* The sign of the polynomial at x, or 0 if its value is within the rounding error of evaluating it */
+    private static double certainSign(double[] p, int degree, double x) {
+        double bound = 0;
+        for (int i = degree; i >= 0; i--) bound = bound * Math.abs(x) + Math.abs(p[i]);
+        double value = HornerEvaluator.evaluate(p, degree, x);
+        return Math.abs(value) > (4 * degree + 1) * UNIT_ROUNDOFF * bound ? Math.signum(value) : 0;
+    }
+
+    /* Whether a real polynomial can have this many real roots, counted with multiplicity, as its other roots are conjugate pairs */
+    private static boolean isPossibleCount(int count, int degree) {
+        return count <= degree && (degree - count) % 2 == 0;
+    }
+
+    /* The index of the interval that holds a value, or of the closest interval if none of them do */
+    private static int closestInterval(ArrayList<RootInterval> intervals, double x) {
+        int closest = 0;
+        double closestDistance = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < intervals.size(); i++) {
+            RootInterval interval = intervals.get(i);
+            if (interval.contains(x)) return i;
+            double distance = Math.min(Math.abs(interval.getLower() - x), Math.abs(interval.getUpper() - x));
+            if (distance < closestDistance) {
+                closest = i;
+                closestDistance = distance;
+            }
+        }
+        return closest;
+    }
+
+    /* The number of sign changes in the Sturm sequence at x, where zeros are skipped */
+    private int signChanges(double x) {
+        int changes = 0;
+        double previousSign = 0;
+        for (double[] polynomial : sequence) {
+            double sign = Math.signum(HornerEvaluator.evaluate(polynomial, polynomial.length - 1, x));
+            if (sign == 0) continue;
+            if (previousSign != 0 && sign != previousSign) changes++;
+            previousSign = sign;
+        }
+        return changes;
+    }
+}
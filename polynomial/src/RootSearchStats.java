@@ -0,0 +1,21 @@
+package polynomial.src;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The statistics of a single root search, collected by the root finders while PolynomialMetrics is enabled. Roots
+ * may be refined in parallel, so the counts can be updated by multiple threads at once.
+ */
+final class RootSearchStats {
+
+    final long start;
+    final LongAdder iterations = new LongAdder();
+    /* Only updated while the intervals are isolated, which is done on a single thread */
+    int depth;
+    /* Only ever set to false, so racing writes are harmless */
+    volatile boolean converged = true;
+
+    RootSearchStats(long startNanos) {
+        start = startNanos;
+    }
+}
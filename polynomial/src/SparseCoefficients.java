@@ -0,0 +1,359 @@
+package polynomial.src;
+
+import java.util.Arrays;
+
+/**
+ * The sparse storage of a polynomial, for polynomials of a high degree with only a few terms. The non-zero terms are
+ * kept in two packed parallel arrays, with the degrees in increasing order, so that the memory and the cost of every
+ * operation depend on the number of terms instead of on the degree. The zero polynomial has no terms. Instances are
+ * never modified after they are built.
+ */
+final class SparseCoefficients {
+
+    static final SparseCoefficients ZERO = new SparseCoefficients(new int[0], new double[0]);
+
+    final int[] degrees;
+    final double[] coefficients;
+
+    /* Takes over two arrays of the same length, with strictly increasing degrees and non-zero coefficients */
+    SparseCoefficients(int[] termDegrees, double[] termCoefficients) {
+        degrees = termDegrees;
+        coefficients = termCoefficients;
+    }
+
+    /**
+     * Combines a list of terms, in any order, into sparse storage, adding together like terms.
+     * @param polyTerms the terms
+     * @return the sparse storage of the sum of the terms
+     */
+    static SparseCoefficients fromTerms(Iterable<Term> polyTerms) {
+        int count = 0;
+        for (Term term : polyTerms) count++;
+
+        int[] termDegrees = new int[count];
+        double[] termCoefficients = new double[count];
+        int index = 0;
+        for (Term term : polyTerms) {
+            termDegrees[index] = term.getDegree();
+            termCoefficients[index] = term.getCoefficient();
+            index++;
+        }
+        return fromTerms(termDegrees, termCoefficients, count);
+    }
+
+    /**
+     * Combines terms given as parallel arrays, in any order, into sparse storage, adding together like terms. The
+     * arrays are not modified or kept.
+     * @param termDegrees the degrees of the terms, which must not be negative
+     * @param termCoefficients the coefficients of the terms
+     * @param count the number of terms, from the start of the arrays
+     * @return the sparse storage of the sum of the terms
+     */
+    static SparseCoefficients fromTerms(int[] termDegrees, double[] termCoefficients, int count) {
+        /* Terms that are already in strictly decreasing or increasing order of degree, as written in standard form, need no sort */
+        boolean decreasing = true;
+        boolean increasing = true;
+        for (int i = 1; i < count && (decreasing || increasing); i++) {
+            if (termDegrees[i] >= termDegrees[i - 1]) decreasing = false;
+            if (termDegrees[i] <= termDegrees[i - 1]) increasing = false;
+        }
+        int[] combinedDegrees = new int[count];
+        double[] combinedCoefficients = new double[count];
+        int length = 0;
+
+        if (decreasing || increasing) {
+            for (int i = 0; i < count; i++) {
+                int index = decreasing ? count - 1 - i : i;
+                if (termCoefficients[index] != 0) {
+                    combinedDegrees[length] = termDegrees[index];
+                    combinedCoefficients[length] = termCoefficients[index];
+                    length++;
+                }
+            }
+        }
+        else {
+            /* Each key packs a degree with the index of its term, so that one primitive sort orders the terms by degree */
+            long[] keys = new long[count];
+            for (int i = 0; i < count; i++) keys[i] = ((long) termDegrees[i] << 32) | i;
+            Arrays.sort(keys);
+
+            for (long key : keys) {
+                int termDegree = (int) (key >>> 32);
+                double coefficient = termCoefficients[(int) key];
+                if (length > 0 && combinedDegrees[length - 1] == termDegree) {
+                    combinedCoefficients[length - 1] += coefficient;
+                }
+                else {
+                    /* A previous degree whose terms cancelled out is overwritten */
+                    if (length > 0 && combinedCoefficients[length - 1] == 0) length--;
+                    combinedDegrees[length] = termDegree;
+                    combinedCoefficients[length] = coefficient;
+                    length++;
+                }
+            }
+            if (length > 0 && combinedCoefficients[length - 1] == 0) length--;
+        }
+        return new SparseCoefficients(Arrays.copyOf(combinedDegrees, length), Arrays.copyOf(combinedCoefficients, length));
+    }
+
+    /**
+     * Produces the sparse storage of a dense coefficient array.
+     * @param dense the coefficients, such that dense[i] is the coefficient of x^i
+     * @param degree the highest index of the array that is used
+     * @return the sparse storage, holding the non-zero coefficients
+     */
+    static SparseCoefficients fromDense(double[] dense, int degree) {
+        int length = 0;
+        for (int i = 0; i <= degree; i++) {
+            if (dense[i] != 0) length++;
+        }
+        int[] termDegrees = new int[length];
+        double[] termCoefficients = new double[length];
+        int index = 0;
+        for (int i = 0; i <= degree; i++) {
+            if (dense[i] != 0) {
+                termDegrees[index] = i;
+                termCoefficients[index] = dense[i];
+                index++;
+            }
+        }
+        return new SparseCoefficients(termDegrees, termCoefficients);
+    }
+
+    /**
+     * Produces the dense coefficient array of the polynomial.
+     * @return an array such that the element at index i is the coefficient of x^i, with at least one element
+     */
+    double[] toDense() {
+        double[] dense = new double[degree() + 1];
+        for (int i = 0; i < degrees.length; i++) dense[degrees[i]] = coefficients[i];
+        return dense;
+    }
+
+    /* The number of non-zero terms */
+    int size() {
+        return degrees.length;
+    }
+
+    /* The degree of the polynomial, which is 0 for the zero polynomial */
+    int degree() {
+        return degrees.length == 0 ? 0 : degrees[degrees.length - 1];
+    }
+
+    /* The coefficient of x^termDegree, found with a binary search */
+    double get(int termDegree) {
+        int index = Arrays.binarySearch(degrees, termDegree);
+        return index >= 0 ? coefficients[index] : 0;
+    }
+
+    /**
+     * Produces the value of the polynomial at x, with Horner's scheme over the gaps between consecutive degrees:
+     * the running value is multiplied by x raised to the gap, instead of by x once for every skipped degree.
+     * @param x the value at which the polynomial is evaluated
+     * @return the value of the polynomial at x
+     */
+    double valueAt(double x) {
+        return valueAt(degrees, 0, coefficients, 0, degrees.length, x);
+    }
+
+    /**
+     * Produces the value at x of sparse terms that are packed part way into a pair of arrays, such as a
+     * PolynomialBatch, in the same way as valueAt(double).
+     * @param termDegrees the array holding the degrees of the terms, in increasing order
+     * @param degreesOffset the index of the degree of the first term
+     * @param termCoefficients the array holding the coefficients of the terms
+     * @param coefficientsOffset the index of the coefficient of the first term
+     * @param count the number of terms
+     * @param x the value at which the polynomial is evaluated
+     * @return the value of the polynomial at x
+     */
+    static double valueAt(int[] termDegrees, int degreesOffset, double[] termCoefficients, int coefficientsOffset,
+                          int count, double x) {
+        if (count == 0) return 0;
+        double result = termCoefficients[coefficientsOffset + count - 1];
+        for (int i = count - 2; i >= 0; i--) {
+            result = result * power(x, termDegrees[degreesOffset + i + 1] - termDegrees[degreesOffset + i])
+                   + termCoefficients[coefficientsOffset + i];
+        }
+        return result * power(x, termDegrees[degreesOffset]);
+    }
+
+    /**
+     * Produces the first Taylor coefficients of the polynomial around x, p(x), p'(x), p''(x) / 2!, and so on, in
+     * the same way as HornerEvaluator.taylor. A term c x^d adds c C(d, k) x^(d - k) to the kth Taylor coefficient, so
+     * every term takes one power of x, for its highest order, and a multiplication per order below it.
+     * @param x the point
+     * @param out the array that the coefficient of (t - x)^k is written to, at index outOffset + k
+     * @param outOffset the index that the value of the polynomial is written to
+     * @param count the number of Taylor coefficients, at least 1
+     */
+    void taylor(double x, double[] out, int outOffset, int count) {
+        Arrays.fill(out, outOffset, outOffset + count, 0);
+        for (int i = 0; i < degrees.length; i++) {
+            int termDegree = degrees[i];
+            int highest = Math.min(count - 1, termDegree);
+            double binomial = 1;
+            for (int k = 0; k < highest; k++) binomial = binomial * (termDegree - k) / (k + 1);
+            double term = coefficients[i] * power(x, termDegree - highest);
+            for (int k = highest; k >= 0; k--) {
+                out[outOffset + k] += term * binomial;
+                term *= x;
+                binomial = binomial * k / (termDegree - k + 1);
+            }
+        }
+    }
+
+    SparseCoefficients derivative() {
+        int offset = degrees.length > 0 && degrees[0] == 0 ? 1 : 0;
+        int length = degrees.length - offset;
+        int[] termDegrees = new int[length];
+        double[] termCoefficients = new double[length];
+        for (int i = 0; i < length; i++) {
+            termDegrees[i] = degrees[i + offset] - 1;
+            termCoefficients[i] = coefficients[i + offset] * degrees[i + offset];
+        }
+        return new SparseCoefficients(termDegrees, termCoefficients);
+    }
+
+    SparseCoefficients scaled(double factor) {
+        if (factor == 0) return ZERO;
+        double[] termCoefficients = new double[coefficients.length];
+        for (int i = 0; i < coefficients.length; i++) termCoefficients[i] = factor * coefficients[i];
+        return new SparseCoefficients(degrees, termCoefficients);
+    }
+
+    /**
+     * Adds two polynomials by merging their terms in order of degree.
+     * @param first the first polynomial
+     * @param second the second polynomial
+     * @param secondFactor the factor by which the second polynomial is scaled before it is added
+     * @return the sum, without the terms that cancel out
+     */
+    static SparseCoefficients sum(SparseCoefficients first, SparseCoefficients second, double secondFactor) {
+        int[] termDegrees = new int[first.size() + second.size()];
+        double[] termCoefficients = new double[termDegrees.length];
+        int i = 0;
+        int j = 0;
+        int length = 0;
+        while (i < first.size() || j < second.size()) {
+            int termDegree;
+            double coefficient;
+            if (j == second.size() || (i < first.size() && first.degrees[i] < second.degrees[j])) {
+                termDegree = first.degrees[i];
+                coefficient = first.coefficients[i++];
+            }
+            else if (i == first.size() || second.degrees[j] < first.degrees[i]) {
+                termDegree = second.degrees[j];
+                coefficient = secondFactor * second.coefficients[j++];
+            }
+            else {
+                termDegree = first.degrees[i];
+                coefficient = first.coefficients[i++] + secondFactor * second.coefficients[j++];
+            }
+            if (coefficient != 0) {
+                termDegrees[length] = termDegree;
+                termCoefficients[length] = coefficient;
+                length++;
+            }
+        }
+        return new SparseCoefficients(Arrays.copyOf(termDegrees, length), Arrays.copyOf(termCoefficients, length));
+    }
+
+    /**
+     * Multiplies two polynomials with Johnson's heap method. Every term of the factor with fewer terms starts a row,
+     * which runs over the terms of the other factor in order, and a binary heap holds the next product of each row
+     * keyed by its degree. Popping the heap yields the products in increasing order of degree, so like terms come out
+     * next to each other and are combined as they are produced, and the product is already in sorted, combined form.
+     * For factors with n and m terms, n <= m, this takes O(nm log n) time and only O(n) memory besides the output.
+     * @param first the first factor
+     * @param second the second factor
+     * @return the product
+     * @throws IllegalArgumentException if the degree of the product is too large to be stored
+     */
+    static SparseCoefficients multiply(SparseCoefficients first, SparseCoefficients second) {
+        SparseCoefficients rows = first.size() <= second.size() ? first : second;
+        SparseCoefficients columns = rows == first ? second : first;
+        int rowCount = rows.size();
+        int columnCount = columns.size();
+        if (rowCount == 0) return ZERO;
+        if ((long) rows.degree() + columns.degree() > Integer.MAX_VALUE - 1) {
+            throw new IllegalArgumentException("The degree of the product is too large.");
+        }
+
+        /* heap holds row indices ordered by the degree of their next product, and column[r] is the position in row r */
+        int[] heap = new int[rowCount];
+        int[] column = new int[rowCount];
+        int heapSize = rowCount;
+        /* The rows start in increasing order of degree, which already satisfies the heap property */
+        for (int r = 0; r < rowCount; r++) heap[r] = r;
+
+        int capacity = (int) Math.min((long) rowCount * columnCount, Math.max(16, 2L * (rowCount + columnCount)));
+        int[] productDegrees = new int[capacity];
+        double[] productCoefficients = new double[capacity];
+        int length = 0;
+
+        while (heapSize > 0) {
+            int r = heap[0];
+            int termDegree = rows.degrees[r] + columns.degrees[column[r]];
+            double coefficient = rows.coefficients[r] * columns.coefficients[column[r]];
+
+            if (length > 0 && productDegrees[length - 1] == termDegree) {
+                productCoefficients[length - 1] += coefficient;
+            }
+            else {
+                /* A previous degree whose products cancelled out is overwritten */
+                if (length > 0 && productCoefficients[length - 1] == 0) length--;
+                if (length == productDegrees.length) {
+                    int grown = (int) Math.min((long) rowCount * columnCount, 2L * length);
+                    productDegrees = Arrays.copyOf(productDegrees, grown);
+                    productCoefficients = Arrays.copyOf(productCoefficients, grown);
+                }
+                productDegrees[length] = termDegree;
+                productCoefficients[length] = coefficient;
+                length++;
+            }
+
+            /* Advance the row, or drop it from the heap once it is exhausted */
+            if (++column[r] == columnCount) heap[0] = heap[--heapSize];
+            siftDown(heap, heapSize, column, rows.degrees, columns.degrees);
+        }
+        if (length > 0 && productCoefficients[length - 1] == 0) length--;
+        return new SparseCoefficients(Arrays.copyOf(productDegrees, length), Arrays.copyOf(productCoefficients, length));
+    }
+
+    /* Restores the heap property from the root down, after the key of the root has increased */
+    private static void siftDown(int[] heap, int heapSize, int[] column, int[] rowDegrees, int[] columnDegrees) {
+        if (heapSize == 0) return;
+        int row = heap[0];
+        int key = rowDegrees[row] + columnDegrees[column[row]];
+        int parent = 0;
+        while (true) {
+            int child = 2 * parent + 1;
+            if (child >= heapSize) break;
+            int childKey = rowDegrees[heap[child]] + columnDegrees[column[heap[child]]];
+            if (child + 1 < heapSize) {
+                int rightKey = rowDegrees[heap[child + 1]] + columnDegrees[column[heap[child + 1]]];
+                if (rightKey < childKey) {
+                    child++;
+                    childKey = rightKey;
+                }
+            }
+            if (key <= childKey) break;
+            heap[parent] = heap[child];
+            parent = child;
+        }
+        heap[parent] = row;
+    }
+
+    /* x^n by repeated squaring, in O(log n) multiplications */
+    static double power(double x, int n) {
+        double result = 1;
+        double square = x;
+        while (n > 0) {
+            if ((n & 1) == 1) result *= square;
+            n >>= 1;
+            if (n > 0) square *= square;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,165 @@
+package polynomial.src;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A balanced binary tree of the products of linear factors (x - x_i) over a list of points. Every node holds the
+ * product over a range of the points, which is the product of its two children, so the root holds the polynomial
+ * whose roots are all the points. Building the tree takes O(M(n) log n) with a fast multiplication M, instead of the
+ * O(n^2) of multiplying the factors in one at a time, and independent subtrees are built in parallel. The tree is
+ * kept so that it can be reused for evaluation at the same points, and for interpolation through them.
+ *
+ * The points are placed at the leaves in sorted order, split recursively into the ones at even and odd positions,
+ * so that every subtree holds points from across their whole range. A subtree over clustered points, such as one
+ * half of a sorted list, has huge coefficients that mostly cancel when it is multiplied by the other half, which
+ * loses the accuracy of the product or overflows it. The points are still reported in the order they were given.
+ */
+public class SubproductTree {
+
+    /* Ranges of at most this many points are leaves, whose products are built by multiplying in one factor at a time */
+    static final int LEAF_SIZE = 8;
+    /* Subtrees over at least this many points are built as separate fork-join tasks */
+    static final int PARALLEL_THRESHOLD = 1024;
+
+    private final double[] points;
+    /* The points in the order of the leaves, and for each of them, its index among the points as they were given */
+    private final double[] leafPoints;
+    private final int[] order;
+    /* The products, indexed like a heap: the root is 1, and the children of node i are 2i and 2i + 1 */
+    private final double[][] nodes;
+
+    /**
+     * Builds the subproduct tree over a list of points.
+     * @param treePoints the points, which are the roots of the product at the root of the tree
+     * @throws IllegalArgumentException if there are no points
+     */
+    public SubproductTree(double... treePoints) {
+        if (treePoints.length == 0) throw new IllegalArgumentException("A subproduct tree must have at least 1 point.");
+        points = treePoints.clone();
+        order = interleavedOrder(points);
+        leafPoints = new double[points.length];
+        for (int i = 0; i < points.length; i++) leafPoints[i] = points[order[i]];
+        nodes = new double[4 * points.length][];
+
+        BuildTask root = new BuildTask(this, 1, 0, points.length);
+        if (points.length >= PARALLEL_THRESHOLD) ForkJoinPool.commonPool().invoke(root);
+        else root.compute();
+    }
+
+    public int size() {
+        return points.length;
+    }
+
+    public double[] getPoints() {
+        return points.clone();
+    }
+
+    /**
+     * Produces the product of all the linear factors, which is the monic polynomial whose roots are the points.
+     * @return the product at the root of the tree
+     */
+    public Polynomial getProduct() {
+        return new Polynomial(nodes[1].clone());
+    }
+
+    /* The points as they were given, for the evaluation and interpolation algorithms in this package. They must not be modified. */
+    double[] points() {
+        return points;
+    }
+
+    /* The points in the order of the leaves. They must not be modified. */
+    double[] leafPoints() {
+        return leafPoints;
+    }
+
+    /* The index among the points as they were given of every point in the order of the leaves. It must not be modified. */
+    int[] order() {
+        return order;
+    }
+
+    /* The product held by a node. It must not be modified. */
+    double[] node(int index) {
+        return nodes[index];
+    }
+
+    /* Whether the node over the points from lower (inclusive) to upper (exclusive) is a leaf */
+    static boolean isLeaf(int lower, int upper) {
+        return upper - lower <= LEAF_SIZE;
+    }
+
+    /* The product of (x - x_i) over a range of points, built by multiplying in one factor at a time in place */
+    static double[] leafProduct(double[] points, int lower, int upper) {
+        double[] product = new double[upper - lower + 1];
+        product[0] = 1;
+        int productDegree = 0;
+        for (int i = lower; i < upper; i++) {
+            double root = points[i];
+            productDegree++;
+            for (int j = productDegree; j > 0; j--) {
+                product[j] = product[j - 1] - root * product[j];
+            }
+            product[0] = -root * product[0];
+        }
+        return product;
+    }
+
+    /* The indices of the points in sorted order, split recursively into the ones at even and odd positions */
+    private static int[] interleavedOrder(double[] points) {
+        Integer[] sorted = new Integer[points.length];
+        for (int i = 0; i < sorted.length; i++) sorted[i] = i;
+        Arrays.sort(sorted, (first, second) -> Double.compare(points[first], points[second]));
+        int[] result = new int[points.length];
+        interleave(sorted, 0, 1, sorted.length, result, 0);
+        return result;
+    }
+
+    /* Writes the count indices from start with a stride into the output, the even positions before the odd ones */
+    private static void interleave(Integer[] sorted, int start, int stride, int count, int[] output, int outputOffset) {
+        if (count <= 2) {
+            for (int i = 0; i < count; i++) output[outputOffset + i] = sorted[start + i * stride];
+            return;
+        }
+        int evens = (count + 1) / 2;
+        interleave(sorted, start, 2 * stride, evens, output, outputOffset);
+        interleave(sorted, start + stride, 2 * stride, count / 2, output, outputOffset + evens);
+    }
+
+    /* Builds the products of a subtree, splitting off its left half as a separate task if it is large enough */
+    private static final class BuildTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient SubproductTree tree;
+        private final int index;
+        private final int lower;
+        private final int upper;
+
+        BuildTask(SubproductTree argTree, int argIndex, int argLower, int argUpper) {
+            tree = argTree;
+            index = argIndex;
+            lower = argLower;
+            upper = argUpper;
+        }
+
+        @Override
+        protected void compute() {
+            if (isLeaf(lower, upper)) {
+                tree.nodes[index] = leafProduct(tree.leafPoints, lower, upper);
+                return;
+            }
+            int middle = (lower + upper) >>> 1;
+            BuildTask left = new BuildTask(tree, 2 * index, lower, middle);
+            BuildTask right = new BuildTask(tree, 2 * index + 1, middle, upper);
+            if (upper - lower >= PARALLEL_THRESHOLD) {
+                invokeAll(left, right);
+            }
+            else {
+                left.compute();
+                right.compute();
+            }
+            tree.nodes[index] = PolynomialMultiplier.multiply(tree.nodes[2 * index], tree.nodes[2 * index + 1]);
+        }
+    }
+}
@@ -6,19 +6,20 @@ package polynomial.src;
  * represented by its coefficient and degree, where the coefficient is a real
  * number and the degree is a whole number. Terms and Polynomials share many
  * operations, but not necessarily all of them.
+ *
+ * Terms are immutable, so they can be shared between polynomials and threads freely.
  */
-public class Term {
+public final class Term {
     
-    private int degree;
-    private double coefficient;
+    private final int degree;
+    private final double coefficient;
 
     public Term(double argCoeff, int argDegree) {
+        /* terms can only have a degree within the set of whole numbers. */
+        if (argDegree < 0) throw new IllegalArgumentException("A term can only have a degree/exponent within the set of whole numbers.");
+
         degree = argDegree;
         coefficient = argCoeff;
-
-        /* terms can only have a degree within the set of whole numbers. */
-        if (degree < 0) throw new IllegalArgumentException("A term can only have a degree/exponent within the set of whole numbers.");
-        
     }
 
     public int getDegree() {
@@ -29,13 +30,23 @@ public class Term {
         return coefficient;
     }
 
-    public void setDegree(int newDegree) {
-        degree = newDegree;
+    /**
+     * Produces a term with the same coefficient and a different degree.
+     * @param newDegree the degree of the new term
+     * @return the new term
+     */
+    public Term withDegree(int newDegree) {
+        return new Term(coefficient, newDegree);
     }
 
-    public void setCoefficient(double newCoefficient) {
-        coefficient = newCoefficient;
-    } 
+    /**
+     * Produces a term with the same degree and a different coefficient.
+     * @param newCoefficient the coefficient of the new term
+     * @return the new term
+     */
+    public Term withCoefficient(double newCoefficient) {
+        return new Term(newCoefficient, degree);
+    }
 
     @Override
     public String toString() {
@@ -129,7 +140,7 @@ public class Term {
      */
     
     /** 
-     * Asserts if the two terms being compared are equal.
+     * Asserts if the two terms being compared are equal, allowing for a small difference between the coefficients.
      * @param term the other term that is being checked
      * @return  whether or not the two terms are equal
      */
@@ -138,4 +149,24 @@ public class Term {
                degree == term.getDegree();
     }
 
+    /**
+     * Asserts if an object is a term with exactly the same degree and coefficient. Unlike equals(Term) there is no
+     * tolerance, so that equal terms have equal hash codes.
+     * @param other the object that is being checked
+     * @return whether or not the object is an equal term
+     */
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) return true;
+        if (!(other instanceof Term)) return false;
+        Term term = (Term) other;
+        return degree == term.degree && Double.compare(coefficient + 0.0, term.coefficient + 0.0) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        /* Adding 0.0 turns -0.0 into 0.0, so that the two zeros hash the same */
+        return 31 * degree + Double.hashCode(coefficient + 0.0);
+    }
+
 }
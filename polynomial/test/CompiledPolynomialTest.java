@@ -0,0 +1,60 @@
+package polynomial.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import java.util.function.DoubleUnaryOperator;
+
+import org.junit.jupiter.api.Test;
+
+import polynomial.src.Polynomial;
+
+/**
+ * Tests that the compiled evaluator of a polynomial gives exactly the same values as valueAt, including the signs of
+ * zeros and the values at infinities, for dense polynomials with zero coefficients and for sparse ones.
+ */
+public class CompiledPolynomialTest {
+
+    private static final double[] SPECIAL_POINTS = {0.0, -0.0, 1, -1, 0.5, -3, 1e300, -1e300, Double.MIN_VALUE, -Double.MIN_VALUE,
+                                                    Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NaN};
+
+    /* Compares the values bit for bit, which assertEquals does for doubles */
+    private static void assertSameValues(Polynomial polynomial, double[] points) {
+        DoubleUnaryOperator compiled = polynomial.compile();
+        for (double x : points) assertEquals(polynomial.valueAt(x), compiled.applyAsDouble(x), () -> polynomial + " at " + x);
+    }
+
+    @Test
+    public void keepsTheSignOfZero() {
+        Polynomial identity = Polynomial.fromCoefficients(0, 1);
+        assertEquals(0.0, identity.compile().applyAsDouble(-0.0));
+        assertSameValues(identity, SPECIAL_POINTS);
+        assertSameValues(Polynomial.fromCoefficients(0, 0, -2), SPECIAL_POINTS);
+        assertSameValues(Polynomial.fromCoefficients(-0.0, 3), SPECIAL_POINTS);
+    }
+
+    @Test
+    public void matchesValueAtWithZeroCoefficients() {
+        Random random = new Random(1);
+        for (int degree = 1; degree <= 40; degree++) {
+            double[] coefficients = new double[degree + 1];
+            for (int i = 0; i <= degree; i++) coefficients[i] = random.nextInt(3) == 0 ? 0 : random.nextGaussian();
+            coefficients[degree] = 1 + random.nextDouble();
+            double[] points = new double[20];
+            for (int i = 0; i < points.length; i++) points[i] = random.nextGaussian() * 2;
+            Polynomial polynomial = Polynomial.fromCoefficients(coefficients);
+            assertSameValues(polynomial, points);
+            assertSameValues(polynomial, SPECIAL_POINTS);
+        }
+    }
+
+    @Test
+    public void matchesValueAtWhenSparse() {
+        Polynomial sparse = Polynomial.fromCoefficients(1, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, -2).multiply(Polynomial.fromCoefficients(0, 1));
+        sparse = sparse.pow(50);
+        assertTrue(sparse.isSparse());
+        assertSameValues(sparse, SPECIAL_POINTS);
+        assertSameValues(sparse, new double[] {1.001, -0.999, 0.7, -1.3});
+    }
+}
@@ -0,0 +1,168 @@
+package polynomial.test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import polynomial.src.MultipointEvaluator;
+import polynomial.src.Polynomial;
+
+/**
+ * Tests the remainder tree against Horner's scheme, and the accuracy of interpolation through points far from 0,
+ * at Chebyshev nodes and at random points, by the residuals at the points relative to the rounding of evaluating
+ * the result there.
+ */
+public class MultipointEvaluatorTest {
+
+    private static final double UNIT_ROUNDOFF = Math.ulp(1.0) / 2;
+
+    private static double[] random(Random random, int length) {
+        double[] values = new double[length];
+        for (int i = 0; i < length; i++) values[i] = random.nextDouble() * 2 - 1;
+        return values;
+    }
+
+    private static double[] chebyshevNodes(int n) {
+        double[] nodes = new double[n];
+        for (int k = 0; k < n; k++) nodes[k] = Math.cos(Math.PI * (2 * k + 1) / (2 * n));
+        return nodes;
+    }
+
+    /* The sum of |a_i| |x|^i, which bounds the rounding error of evaluating p at x */
+    private static double evaluationScale(Polynomial polynomial, double x) {
+        double scale = 0;
+        for (int i = polynomial.getDegree(); i >= 0; i--) scale = scale * Math.abs(x) + Math.abs(polynomial.getCoefficient(i));
+        return scale;
+    }
+
+    /* Checks that the values at the points are off by at most a factor of the rounding of evaluating there */
+    private static void assertBackwardStable(Polynomial polynomial, double[] xs, double[] ys, double factor) {
+        for (int i = 0; i < xs.length; i++) {
+            double residual = Math.abs(polynomial.valueAt(xs[i]) - ys[i]);
+            assertTrue(residual <= factor * UNIT_ROUNDOFF * evaluationScale(polynomial, xs[i]), "Residual " + residual + " at " + xs[i]);
+        }
+    }
+
+    private static double maxResidual(Polynomial polynomial, double[] xs, double[] ys) {
+        double residual = 0;
+        for (int i = 0; i < xs.length; i++) residual = Math.max(residual, Math.abs(polynomial.valueAt(xs[i]) - ys[i]));
+        return residual;
+    }
+
+    @Test
+    public void defaultEvaluationIsHornersScheme() {
+        Random random = new Random(1);
+        for (int n : new int[] {2048, 4096}) {
+            double[] points = random(random, n);
+            Polynomial polynomial = Polynomial.fromCoefficients(random(random, 500));
+            double[] expected = new double[n];
+            for (int i = 0; i < n; i++) expected[i] = polynomial.valueAt(points[i]);
+            assertArrayEquals(expected, new MultipointEvaluator(points).evaluate(polynomial));
+        }
+    }
+
+    @Test
+    public void remainderTreeMatchesHorner() {
+        Random random = new Random(2);
+        int threshold = MultipointEvaluator.getHornerThreshold();
+        MultipointEvaluator.setHornerThreshold(0);
+        try {
+            for (int n : new int[] {1, 7, 8, 9, 16, 33}) {
+                double[] points = random(random, n);
+                for (int degree : new int[] {n / 2, n - 1, 2 * n}) {
+                    Polynomial polynomial = Polynomial.fromCoefficients(random(random, degree + 1));
+                    double[] values = new MultipointEvaluator(points).evaluate(polynomial);
+                    for (int i = 0; i < n; i++) {
+                        double scale = evaluationScale(polynomial, points[i]);
+                        assertEquals(polynomial.valueAt(points[i]), values[i], 1e-10 * scale, "Degree " + degree + " at " + n + " points");
+                    }
+                }
+            }
+        }
+        finally {
+            MultipointEvaluator.setHornerThreshold(threshold);
+        }
+    }
+
+    @Test
+    public void interpolatesThroughIntegers() {
+        double[] xs = new double[20];
+        double[] ys = new double[20];
+        for (int i = 0; i < 20; i++) {
+            xs[i] = i + 1;
+            ys[i] = xs[i] * xs[i] - 3;
+        }
+        Polynomial interpolated = MultipointEvaluator.interpolate(xs, ys);
+        assertEquals(-3, interpolated.getCoefficient(0), 1e-9);
+        assertEquals(0, interpolated.getCoefficient(1), 1e-9);
+        assertEquals(1, interpolated.getCoefficient(2), 1e-9);
+        for (int i = 3; i < 20; i++) assertEquals(0, interpolated.getCoefficient(i), 1e-9, "Coefficient of x^" + i);
+    }
+
+    @Test
+    public void interpolatesAtChebyshevNodes() {
+        for (int n : new int[] {10, 50}) {
+            double[] xs = chebyshevNodes(n);
+            double[] ys = new double[n];
+            for (int i = 0; i < n; i++) ys[i] = Math.exp(xs[i]);
+            Polynomial interpolated = MultipointEvaluator.interpolate(xs, ys);
+            assertTrue(maxResidual(interpolated, xs, ys) < 1e-13, "Residual at " + n + " nodes");
+            /* The interpolant converges to exp between the nodes too */
+            assertEquals(Math.exp(0.3), interpolated.valueAt(0.3), 1e-9);
+        }
+    }
+
+    @Test
+    public void interpolationIsBackwardStable() {
+        Random random = new Random(3);
+        for (int n : new int[] {20, 100, 300}) {
+            double[] xs = random(random, n);
+            double[] ys = random(random, n);
+            assertBackwardStable(MultipointEvaluator.interpolate(xs, ys), xs, ys, 100 * n);
+        }
+        /* Away from 0, the points are mapped into [-1, 1] before the divided differences are taken */
+        double[] xs = new double[30];
+        double[] ys = new double[30];
+        for (int i = 0; i < 30; i++) {
+            xs[i] = 1000 + i;
+            ys[i] = Math.sin(xs[i]);
+        }
+        assertBackwardStable(MultipointEvaluator.interpolate(xs, ys), xs, ys, 100 * 30);
+    }
+
+    @Test
+    public void treeInterpolationMatchesNewton() {
+        int threshold = MultipointEvaluator.getInterpolationThreshold();
+        MultipointEvaluator.setInterpolationThreshold(0);
+        try {
+            double[] xs = chebyshevNodes(16);
+            double[] ys = new double[16];
+            for (int i = 0; i < 16; i++) ys[i] = Math.exp(xs[i]);
+            assertTrue(maxResidual(MultipointEvaluator.interpolate(xs, ys), xs, ys) < 1e-10);
+
+            double[] integers = new double[12];
+            double[] cubic = new double[12];
+            for (int i = 0; i < 12; i++) {
+                integers[i] = 2 * i + 1;
+                cubic[i] = integers[i] * integers[i] * integers[i] - integers[i];
+            }
+            Polynomial interpolated = MultipointEvaluator.interpolate(integers, cubic);
+            assertEquals(-1, interpolated.getCoefficient(1), 1e-6);
+            assertEquals(1, interpolated.getCoefficient(3), 1e-6);
+        }
+        finally {
+            MultipointEvaluator.setInterpolationThreshold(threshold);
+        }
+    }
+
+    @Test
+    public void interpolationRejectsRepeatedPoints() {
+        assertThrows(IllegalArgumentException.class, () -> MultipointEvaluator.interpolate(new double[] {1, 2, 1}, new double[] {0, 1, 2}));
+        assertThrows(IllegalArgumentException.class, () -> new MultipointEvaluator(1, 2).interpolate(1, 2, 3));
+    }
+}
@@ -0,0 +1,106 @@
+package polynomial.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import polynomial.src.Polynomial;
+import polynomial.src.PolynomialCache;
+
+/**
+ * Tests the bounds of PolynomialCache, with entries heavier than the weight bound, the weight of the operands held by
+ * the keys, and clears that run concurrently with stores.
+ */
+public class PolynomialCacheTest {
+
+    /* A dense polynomial of a degree, whose derivative has that many coefficients */
+    private static Polynomial polynomialOfDegree(int degree, double seed) {
+        double[] coefficients = new double[degree + 1];
+        for (int i = 0; i <= degree; i++) coefficients[i] = seed + i;
+        return Polynomial.fromCoefficients(coefficients);
+    }
+
+    @Test
+    public void heavyResultIsNotCachedAndKeepsTheOtherEntries() {
+        PolynomialCache cache = new PolynomialCache(100, 100);
+        /* Each entry holds the 6 coefficients of its operand and the 5 of its derivative */
+        for (int i = 0; i < 5; i++) cache.derivative(polynomialOfDegree(5, i));
+        assertEquals(5, cache.size());
+        assertEquals(55, cache.getWeight());
+
+        Polynomial heavy = polynomialOfDegree(200, 0);
+        assertEquals(heavy.derivative(), cache.derivative(heavy));
+        assertEquals(5, cache.size());
+        assertEquals(55, cache.getWeight());
+        assertEquals(0, cache.getEvictionCount());
+
+        /* It is computed again, since it was never stored */
+        cache.derivative(heavy);
+        assertEquals(0, cache.getHitCount());
+    }
+
+    @Test
+    public void operandsAreWeighed() {
+        PolynomialCache cache = new PolynomialCache(10, 1000);
+        /* A dividend of degree 40 by a divisor of degree 38 leaves a light result, but the key holds both operands */
+        cache.divide(polynomialOfDegree(40, 1), polynomialOfDegree(38, 2));
+        assertEquals(41 + 39 + 3 + 38, cache.getWeight());
+        cache.clear();
+
+        String expression = "x^2 + 2x + 1 + 0x^3 + 0x^4";
+        cache.parseExpression(expression);
+        assertEquals((expression.length() + 3) / 4 + 3, cache.getWeight());
+
+        /* Operands too heavy for the cache are not stored, even if their result is light */
+        PolynomialCache small = new PolynomialCache(10, 50);
+        small.divide(polynomialOfDegree(40, 1), polynomialOfDegree(39, 2));
+        assertEquals(0, small.size());
+    }
+
+    @Test
+    public void cachedResultIsShared() {
+        PolynomialCache cache = new PolynomialCache(10, 100);
+        Polynomial polynomial = polynomialOfDegree(4, 1);
+        Polynomial first = cache.derivative(polynomial);
+        assertSame(first, cache.derivative(polynomialOfDegree(4, 1)));
+        assertEquals(1, cache.getHitCount());
+    }
+
+    @Test
+    public void clearsDuringStoresLeaveNoUnreachableEntries() throws Exception {
+        PolynomialCache cache = new PolynomialCache(64, 1 << 20);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            ArrayList<Future<?>> tasks = new ArrayList<Future<?>>();
+            for (int thread = 0; thread < 3; thread++) {
+                int offset = thread;
+                tasks.add(executor.submit(() -> {
+                    for (int i = 0; i < 20000; i++) cache.derivative(polynomialOfDegree(3, (i * 3 + offset) % 500));
+                }));
+            }
+            tasks.add(executor.submit(() -> {
+                for (int i = 0; i < 2000; i++) cache.clear();
+            }));
+            for (Future<?> task : tasks) task.get();
+        }
+        finally {
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        }
+
+        /* Every entry must still be reachable by the clock, and so by clear */
+        assertTrue(cache.size() <= cache.getMaxEntries());
+        assertEquals(7L * cache.size(), cache.getWeight());
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getWeight());
+    }
+}
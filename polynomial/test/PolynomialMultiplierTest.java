@@ -0,0 +1,110 @@
+package polynomial.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import polynomial.src.MathConstants;
+import polynomial.src.PolynomialMultiplier;
+
+/**
+ * Tests the Karatsuba and FFT multiplications against the schoolbook method, for factor sizes around the default
+ * thresholds of the dispatch, and the rounding of integer products computed with the FFT.
+ */
+public class PolynomialMultiplierTest {
+
+    private static double[] random(Random random, int length) {
+        double[] coefficients = new double[length];
+        for (int i = 0; i < length; i++) coefficients[i] = random.nextDouble() * 2 - 1;
+        return coefficients;
+    }
+
+    private static double[] randomIntegers(Random random, int length, int bound) {
+        double[] coefficients = new double[length];
+        for (int i = 0; i < length; i++) coefficients[i] = random.nextInt(2 * bound + 1) - bound;
+        return coefficients;
+    }
+
+    /* Checks a product against the schoolbook one, relative to the size of the products that make up its coefficients */
+    private static void assertProduct(double[] expected, double[] actual, double scale) {
+        assertEquals(expected.length, actual.length);
+        for (int i = 0; i < expected.length; i++) assertEquals(expected[i], actual[i], MathConstants.EPSILON * scale);
+    }
+
+    @Test
+    public void karatsubaMatchesSchoolbookAroundItsThreshold() {
+        Random random = new Random(1);
+        for (int length = 28; length <= 36; length++) {
+            for (int otherLength : new int[] {length, length + 1, 3 * length + 5}) {
+                double[] first = random(random, otherLength);
+                double[] second = random(random, length);
+                double[] expected = PolynomialMultiplier.schoolbook(first, second);
+                assertProduct(expected, PolynomialMultiplier.karatsuba(first, second), length);
+                assertProduct(expected, PolynomialMultiplier.karatsuba(second, first), length);
+                assertProduct(expected, PolynomialMultiplier.multiply(first, second), length);
+            }
+        }
+    }
+
+    @Test
+    public void fftMatchesSchoolbookAroundItsThreshold() {
+        Random random = new Random(2);
+        for (int length : new int[] {1020, 1023, 1024, 1025, 1030}) {
+            for (int otherLength : new int[] {length, 2 * length + 1}) {
+                double[] first = random(random, otherLength);
+                double[] second = random(random, length);
+                double[] expected = PolynomialMultiplier.schoolbook(first, second);
+                assertProduct(expected, PolynomialMultiplier.fft(first, second), length);
+                assertProduct(expected, PolynomialMultiplier.karatsuba(first, second), length);
+                assertProduct(expected, PolynomialMultiplier.multiply(first, second), length);
+            }
+        }
+    }
+
+    @Test
+    public void integerProductsAreExact() {
+        Random random = new Random(3);
+        /* From products that are rounded back to integers up to ones beyond the bound, which are left unrounded */
+        for (int bits : new int[] {10, 15, 17, 18, 20}) {
+            int bound = (1 << bits) - 1;
+            for (int length : new int[] {1024, 1500, 4096}) {
+                double[] first = randomIntegers(random, length, bound);
+                double[] second = randomIntegers(random, length, bound);
+                /* Factors of equal sign and the largest magnitude have the largest coefficients */
+                second[0] = second[length - 1] = bound;
+                double[] product = PolynomialMultiplier.fft(first, second);
+                for (int k = 0; k < product.length; k++) {
+                    long exact = 0;
+                    for (int i = Math.max(0, k - length + 1); i <= Math.min(k, length - 1); i++) exact += (long) first[i] * (long) second[k - i];
+                    assertEquals((double) exact, Math.rint(product[k]), "Coefficient " + k + " of a product of " + bits + " bit factors");
+                }
+            }
+        }
+    }
+
+    @Test
+    public void integerProductsAreNeverRoundedToTheWrongInteger() {
+        /* Just below max|a| max|b| min(m, n) = 2^50, periodic signs make the rounding error of the transform exceed 1/2 */
+        int length = 1 << 14;
+        double magnitude = (1 << 18) - 1;
+        for (int pattern = 0; pattern < 2; pattern++) {
+            double[] first = new double[length];
+            double[] second = new double[length];
+            for (int i = 0; i < length; i++) {
+                first[i] = pattern == 0 || i % 3 == 0 ? magnitude : -magnitude;
+                second[i] = pattern == 0 || i % 5 < 2 ? magnitude : -magnitude;
+            }
+            double[] product = PolynomialMultiplier.fft(first, second);
+            double scale = magnitude * magnitude * length;
+            for (int k = 0; k < product.length; k++) {
+                long exact = 0;
+                for (int i = Math.max(0, k - length + 1); i <= Math.min(k, length - 1); i++) exact += (long) first[i] * (long) second[k - i];
+                assertEquals((double) exact, product[k], MathConstants.EPSILON * scale);
+                /* A coefficient may only come back as an integer if it is the exact one */
+                if (product[k] == Math.rint(product[k])) assertEquals((double) exact, product[k], "Coefficient " + k);
+            }
+        }
+    }
+}
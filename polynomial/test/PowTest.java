@@ -0,0 +1,53 @@
+package polynomial.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import org.junit.jupiter.api.Test;
+
+import polynomial.src.MathConstants;
+import polynomial.src.Polynomial;
+
+/**
+ * Tests the closed forms of Polynomial.pow against repeated multiplication, and on powers whose binomial
+ * coefficients don't fit in a double.
+ */
+public class PowTest {
+
+    @Test
+    public void binomialPowerMatchesRepeatedMultiplication() {
+        Polynomial binomial = Polynomial.fromCoefficients(-0.5, 0, 3);
+        Polynomial product = binomial;
+        for (int k = 2; k <= 30; k++) {
+            product = product.multiply(binomial);
+            Polynomial power = binomial.pow(k);
+            assertEquals(product.getDegree(), power.getDegree());
+            for (int i = 0; i <= product.getDegree(); i++) {
+                double expected = product.getCoefficient(i);
+                assertEquals(expected, power.getCoefficient(i), MathConstants.EPSILON * Math.max(1, Math.abs(expected)));
+            }
+        }
+    }
+
+    @Test
+    public void largeBinomialPowerStaysFinite() {
+        Polynomial power = Polynomial.fromCoefficients(-0.5, 1).pow(1100);
+        for (int i = 0; i <= power.getDegree(); i++) {
+            double coefficient = power.getCoefficient(i);
+            assertFalse(Double.isNaN(coefficient) || Double.isInfinite(coefficient), "Coefficient of x^" + i + " is " + coefficient);
+        }
+        /* C(1100, 550) / 2^550 */
+        assertEquals(8.864262956247459e163, power.getCoefficient(550), 8.864262956247459e163 * 1e-12);
+        assertEquals(1, power.getCoefficient(1100));
+        /* 2^-1100 is below the range of a double */
+        assertEquals(0, power.getCoefficient(0));
+    }
+
+    @Test
+    public void binomialPowerWithExtremeCoefficients() {
+        /* (10^-3 + 10^3 x^2)^200, whose middle coefficient is C(200, 100) while its outer ones are out of range */
+        Polynomial power = Polynomial.fromCoefficients(1e-3, 0, 1e3).pow(200);
+        assertEquals(9.054851465610328e58, power.getCoefficient(200), 9.054851465610328e58 * 1e-12);
+        assertEquals(0, power.getCoefficient(0));
+    }
+}
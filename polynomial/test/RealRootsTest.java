@@ -0,0 +1,93 @@
+package polynomial.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import polynomial.src.Polynomial;
+
+/**
+ * Tests that the real roots of polynomials built from their roots are all found, including on the ill-conditioned
+ * polynomials where a Sturm sequence computed in floating point loses sign changes.
+ */
+public class RealRootsTest {
+
+    /* Checks that every root is found, each within a tolerance of the corresponding expected root */
+    private static void assertRoots(double[] expected, ArrayList<Double> found, double tolerance) {
+        double[] sorted = expected.clone();
+        Arrays.sort(sorted);
+        assertEquals(sorted.length, found.size(), () -> "Found " + found);
+        for (int i = 0; i < sorted.length; i++) assertEquals(sorted[i], found.get(i), tolerance);
+    }
+
+    @Test
+    public void findsTheRootsOfWilkinsonsPolynomial() {
+        double[] roots = new double[20];
+        for (int i = 0; i < roots.length; i++) roots[i] = i + 1;
+        assertRoots(roots, new Polynomial(1, roots).realRoots(), 1e-1);
+    }
+
+    @Test
+    public void findsTheRootsOfChebyshevPolynomials() {
+        for (int n : new int[] {10, 20, 40}) {
+            double[] roots = new double[n];
+            for (int k = 0; k < n; k++) roots[k] = Math.cos(Math.PI * (2 * k + 1) / (2 * n));
+            assertRoots(roots, new Polynomial(1, roots).realRoots(), 1e-2);
+        }
+    }
+
+    @Test
+    public void findsManyRandomRoots() {
+        Random random = new Random(1);
+        for (int n : new int[] {20, 60}) {
+            double[] roots = new double[n];
+            for (int i = 0; i < n; i++) roots[i] = random.nextDouble() * 10 - 5;
+            /* The clustered roots of the larger polynomial are only determined by its coefficients to about 1 */
+            assertRoots(roots, new Polynomial(1, roots).realRoots(), n == 20 ? 1e-6 : 1);
+        }
+    }
+
+    @Test
+    public void findsRepeatedRoots() {
+        double[] roots = {1, 1, 1, 2, 2, -0.5};
+        assertRoots(roots, new Polynomial(1, roots).realRoots(), 1e-12);
+    }
+
+    @Test
+    public void findsRepeatedRootsAmongIllConditionedOnes() {
+        double[] wilkinson = new double[22];
+        for (int i = 0; i < 20; i++) wilkinson[i] = i + 1;
+        wilkinson[20] = 10;
+        wilkinson[21] = 3;
+        assertRoots(wilkinson, new Polynomial(1, wilkinson).realRoots(), 0.5);
+
+        double[] chebyshev = new double[43];
+        for (int k = 0; k < 40; k++) chebyshev[k] = Math.cos(Math.PI * (2 * k + 1) / 80);
+        chebyshev[40] = chebyshev[0];
+        chebyshev[41] = chebyshev[0];
+        chebyshev[42] = chebyshev[7];
+        assertRoots(chebyshev, new Polynomial(1, chebyshev).realRoots(), 0.1);
+
+        double[] squared = new double[20];
+        for (int k = 0; k < 10; k++) squared[2 * k] = squared[2 * k + 1] = Math.cos(Math.PI * (2 * k + 1) / 20);
+        assertRoots(squared, new Polynomial(1, squared).realRoots(), 1e-9);
+    }
+
+    @Test
+    public void findsNoRootsWhereThereAreNone() {
+        assertEquals(0, Polynomial.fromCoefficients(1, 0, 1).realRoots().size());
+        assertEquals(1, Polynomial.fromCoefficients(-2, 1, -2, 1).realRoots().size());
+        assertEquals(0, Polynomial.fromCoefficients(1, 0, 0, 0, 0, 0, 0, 0, 0, 0, 1).realRoots().size());
+    }
+
+    @Test
+    public void rejectsNonFiniteCoefficients() {
+        assertThrows(IllegalArgumentException.class, () -> Polynomial.fromCoefficients(Double.POSITIVE_INFINITY, 1, 1).realRoots());
+        assertThrows(IllegalArgumentException.class, () -> Polynomial.fromCoefficients(1, Double.NaN, 1).realRootIntervals());
+    }
+}
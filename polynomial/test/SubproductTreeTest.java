@@ -0,0 +1,68 @@
+package polynomial.test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import polynomial.src.MultipointEvaluator;
+import polynomial.src.Polynomial;
+import polynomial.src.SubproductTree;
+
+/**
+ * Tests that the subproduct tree keeps its product accurate over sorted points, which it spreads over the leaves,
+ * and that the points are still reported in the order they were given.
+ */
+public class SubproductTreeTest {
+
+    @Test
+    public void productOverSortedRootsStaysAccurate() {
+        Random random = new Random(1);
+        double[] roots = new double[2000];
+        for (int i = 0; i < roots.length; i++) roots[i] = random.nextDouble() * 2 - 1;
+        Arrays.sort(roots);
+
+        Polynomial product = new Polynomial(1, new SubproductTree(roots));
+        Polynomial shuffled = new Polynomial(1, roots);
+        assertEquals(roots.length, product.getDegree());
+        for (int i = 0; i <= roots.length; i++) {
+            double coefficient = product.getCoefficient(i);
+            assertEquals(shuffled.getCoefficient(i), coefficient, 1e-9 * Math.max(1, Math.abs(coefficient)), "Coefficient of x^" + i);
+        }
+        /* Every root is a root of the product, to within its rounding */
+        for (double root : new double[] {roots[0], roots[999], roots[1999]}) {
+            double scale = 0;
+            for (int i = roots.length; i >= 0; i--) scale = scale * Math.abs(root) + Math.abs(product.getCoefficient(i));
+            assertEquals(0, product.valueAt(root), 1e-10 * scale);
+        }
+    }
+
+    @Test
+    public void pointsKeepTheirOrder() {
+        double[] points = {5, -1, 3, 0.5, 2, -7, 11, 4, 6, 8, 9, -2};
+        SubproductTree tree = new SubproductTree(points);
+        assertArrayEquals(points, tree.getPoints());
+
+        /* The remainder tree works in the order of the leaves, and must report its values in the given order */
+        Polynomial square = Polynomial.fromCoefficients(0, 0, 1);
+        int threshold = MultipointEvaluator.getHornerThreshold();
+        int interpolationThreshold = MultipointEvaluator.getInterpolationThreshold();
+        MultipointEvaluator.setHornerThreshold(0);
+        MultipointEvaluator.setInterpolationThreshold(0);
+        try {
+            MultipointEvaluator evaluator = new MultipointEvaluator(tree);
+            double[] values = evaluator.evaluate(square);
+            for (int i = 0; i < points.length; i++) assertEquals(points[i] * points[i], values[i], 1e-9);
+
+            Polynomial interpolated = evaluator.interpolate(values);
+            for (int i = 0; i <= 2; i++) assertEquals(square.getCoefficient(i), interpolated.getCoefficient(i), 1e-6);
+        }
+        finally {
+            MultipointEvaluator.setHornerThreshold(threshold);
+            MultipointEvaluator.setInterpolationThreshold(interpolationThreshold);
+        }
+    }
+}